@@ -26,6 +26,18 @@ func (m *mockRegistry) PublishSchema(ctx context.Context, in *registry.PublishSc
 	return &registry.PublishSchemaResponse{}, nil
 }
 
+func (m *mockRegistry) WatchSchema(ctx context.Context, in *registry.WatchSchemaRequest, opts ...grpc.CallOption) (registry.SchemaRegistry_WatchSchemaClient, error) {
+	return nil, fmt.Errorf("not implemented")
+}
+
+func (m *mockRegistry) GetDescriptorSet(ctx context.Context, in *registry.GetDescriptorSetRequest, opts ...grpc.CallOption) (*registry.GetDescriptorSetResponse, error) {
+	return &registry.GetDescriptorSetResponse{}, nil
+}
+
+func (m *mockRegistry) DiffSchema(ctx context.Context, in *registry.DiffSchemaRequest, opts ...grpc.CallOption) (*registry.SchemaDiff, error) {
+	return &registry.SchemaDiff{}, nil
+}
+
 func mockClient() registry.SchemaRegistryClient {
 	return &mockRegistry{}
 }
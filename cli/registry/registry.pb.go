@@ -18,12 +18,22 @@ It has these top-level messages:
 	SchemaVersion
 	GetSchemaRequest
 	GetSchemaResponse
+	GetDescriptorSetRequest
+	GetDescriptorSetResponse
+	WatchSchemaRequest
+	SchemaChange
+	DiffSchemaRequest
+	SchemaDiff
+	PathChange
+	PackageChange
+	DescriptorChange
 */
 package registry
 
 import proto "github.com/golang/protobuf/proto"
 import fmt "fmt"
 import math "math"
+import google_protobuf "github.com/golang/protobuf/protoc-gen-go/descriptor"
 
 import (
 	context "golang.org/x/net/context"
@@ -41,6 +51,75 @@ var _ = math.Inf
 // proto package needs to be updated.
 const _ = proto.ProtoPackageIsVersion2 // please upgrade the proto package
 
+type ChangeType int32
+
+const (
+	ChangeType_UNKNOWN_CHANGE_TYPE ChangeType = 0
+	ChangeType_ADDED               ChangeType = 1
+	ChangeType_REMOVED             ChangeType = 2
+	ChangeType_MODIFIED            ChangeType = 3
+)
+
+var ChangeType_name = map[int32]string{
+	0: "UNKNOWN_CHANGE_TYPE",
+	1: "ADDED",
+	2: "REMOVED",
+	3: "MODIFIED",
+}
+var ChangeType_value = map[string]int32{
+	"UNKNOWN_CHANGE_TYPE": 0,
+	"ADDED":               1,
+	"REMOVED":             2,
+	"MODIFIED":            3,
+}
+
+func (x ChangeType) String() string {
+	return proto.EnumName(ChangeType_name, int32(x))
+}
+func (ChangeType) EnumDescriptor() ([]byte, []int) { return fileDescriptor0, []int{0} }
+
+type DescriptorChange_Kind int32
+
+const (
+	DescriptorChange_UNKNOWN    DescriptorChange_Kind = 0
+	DescriptorChange_FILE       DescriptorChange_Kind = 1
+	DescriptorChange_MESSAGE    DescriptorChange_Kind = 2
+	DescriptorChange_FIELD      DescriptorChange_Kind = 3
+	DescriptorChange_ONEOF      DescriptorChange_Kind = 4
+	DescriptorChange_ENUM_TYPE  DescriptorChange_Kind = 5
+	DescriptorChange_ENUM_VALUE DescriptorChange_Kind = 6
+	DescriptorChange_SERVICE    DescriptorChange_Kind = 7
+	DescriptorChange_METHOD     DescriptorChange_Kind = 8
+)
+
+var DescriptorChange_Kind_name = map[int32]string{
+	0: "UNKNOWN",
+	1: "FILE",
+	2: "MESSAGE",
+	3: "FIELD",
+	4: "ONEOF",
+	5: "ENUM_TYPE",
+	6: "ENUM_VALUE",
+	7: "SERVICE",
+	8: "METHOD",
+}
+var DescriptorChange_Kind_value = map[string]int32{
+	"UNKNOWN":    0,
+	"FILE":       1,
+	"MESSAGE":    2,
+	"FIELD":      3,
+	"ONEOF":      4,
+	"ENUM_TYPE":  5,
+	"ENUM_VALUE": 6,
+	"SERVICE":    7,
+	"METHOD":     8,
+}
+
+func (x DescriptorChange_Kind) String() string {
+	return proto.EnumName(DescriptorChange_Kind_name, int32(x))
+}
+func (DescriptorChange_Kind) EnumDescriptor() ([]byte, []int) { return fileDescriptor0, []int{18, 0} }
+
 type PublishSchemaRequest struct {
 	ProtoFile []*ProtoFile `protobuf:"bytes,1,rep,name=proto_file,json=protoFile" json:"proto_file,omitempty"`
 	DryRun    bool         `protobuf:"varint,2,opt,name=dry_run,json=dryRun" json:"dry_run,omitempty"`
@@ -331,6 +410,301 @@ func (m *GetSchemaResponse) GetProtoFile() []*ProtoFile {
 	return nil
 }
 
+type GetDescriptorSetRequest struct {
+	Package []string `protobuf:"bytes,1,rep,name=package" json:"package,omitempty"`
+	// Leave out source code info (locations and comments), which makes up most of the size of
+	// a descriptor
+	ExcludeSourceCodeInfo bool `protobuf:"varint,2,opt,name=exclude_source_code_info,json=excludeSourceCodeInfo" json:"exclude_source_code_info,omitempty"`
+}
+
+func (m *GetDescriptorSetRequest) Reset()                    { *m = GetDescriptorSetRequest{} }
+func (m *GetDescriptorSetRequest) String() string            { return proto.CompactTextString(m) }
+func (*GetDescriptorSetRequest) ProtoMessage()               {}
+func (*GetDescriptorSetRequest) Descriptor() ([]byte, []int) { return fileDescriptor0, []int{10} }
+
+func (m *GetDescriptorSetRequest) GetPackage() []string {
+	if m != nil {
+		return m.Package
+	}
+	return nil
+}
+
+func (m *GetDescriptorSetRequest) GetExcludeSourceCodeInfo() bool {
+	if m != nil {
+		return m.ExcludeSourceCodeInfo
+	}
+	return false
+}
+
+type GetDescriptorSetResponse struct {
+	FileDescriptorSet *google_protobuf.FileDescriptorSet `protobuf:"bytes,1,opt,name=file_descriptor_set,json=fileDescriptorSet" json:"file_descriptor_set,omitempty"`
+	// Snapshot generation the descriptors were compiled from
+	Generation int64 `protobuf:"varint,2,opt,name=generation" json:"generation,omitempty"`
+}
+
+func (m *GetDescriptorSetResponse) Reset()                    { *m = GetDescriptorSetResponse{} }
+func (m *GetDescriptorSetResponse) String() string            { return proto.CompactTextString(m) }
+func (*GetDescriptorSetResponse) ProtoMessage()               {}
+func (*GetDescriptorSetResponse) Descriptor() ([]byte, []int) { return fileDescriptor0, []int{11} }
+
+func (m *GetDescriptorSetResponse) GetFileDescriptorSet() *google_protobuf.FileDescriptorSet {
+	if m != nil {
+		return m.FileDescriptorSet
+	}
+	return nil
+}
+
+func (m *GetDescriptorSetResponse) GetGeneration() int64 {
+	if m != nil {
+		return m.Generation
+	}
+	return 0
+}
+
+type WatchSchemaRequest struct {
+	// Snapshot generation already seen by the client. 0 means no generation has been seen.
+	FromGeneration int64 `protobuf:"varint,1,opt,name=from_generation,json=fromGeneration" json:"from_generation,omitempty"`
+}
+
+func (m *WatchSchemaRequest) Reset()                    { *m = WatchSchemaRequest{} }
+func (m *WatchSchemaRequest) String() string            { return proto.CompactTextString(m) }
+func (*WatchSchemaRequest) ProtoMessage()               {}
+func (*WatchSchemaRequest) Descriptor() ([]byte, []int) { return fileDescriptor0, []int{12} }
+
+func (m *WatchSchemaRequest) GetFromGeneration() int64 {
+	if m != nil {
+		return m.FromGeneration
+	}
+	return 0
+}
+
+type SchemaChange struct {
+	// Snapshot generation the change leads up to
+	Generation int64 `protobuf:"varint,1,opt,name=generation" json:"generation,omitempty"`
+	// Snapshot generation the change is relative to
+	PreviousGeneration int64 `protobuf:"varint,2,opt,name=previous_generation,json=previousGeneration" json:"previous_generation,omitempty"`
+	// Packages whose version changed, was added or was removed
+	ChangedPackage []string `protobuf:"bytes,3,rep,name=changed_package,json=changedPackage" json:"changed_package,omitempty"`
+	// Paths of proto files that were added, removed or whose content changed
+	ChangedPath []string `protobuf:"bytes,4,rep,name=changed_path,json=changedPath" json:"changed_path,omitempty"`
+}
+
+func (m *SchemaChange) Reset()                    { *m = SchemaChange{} }
+func (m *SchemaChange) String() string            { return proto.CompactTextString(m) }
+func (*SchemaChange) ProtoMessage()               {}
+func (*SchemaChange) Descriptor() ([]byte, []int) { return fileDescriptor0, []int{13} }
+
+func (m *SchemaChange) GetGeneration() int64 {
+	if m != nil {
+		return m.Generation
+	}
+	return 0
+}
+
+func (m *SchemaChange) GetPreviousGeneration() int64 {
+	if m != nil {
+		return m.PreviousGeneration
+	}
+	return 0
+}
+
+func (m *SchemaChange) GetChangedPackage() []string {
+	if m != nil {
+		return m.ChangedPackage
+	}
+	return nil
+}
+
+func (m *SchemaChange) GetChangedPath() []string {
+	if m != nil {
+		return m.ChangedPath
+	}
+	return nil
+}
+
+type DiffSchemaRequest struct {
+	// Snapshot generation to diff from. 0 means the empty snapshot.
+	FromGeneration int64 `protobuf:"varint,1,opt,name=from_generation,json=fromGeneration" json:"from_generation,omitempty"`
+	// Snapshot generation to diff to. 0 means the latest snapshot.
+	ToGeneration int64 `protobuf:"varint,2,opt,name=to_generation,json=toGeneration" json:"to_generation,omitempty"`
+}
+
+func (m *DiffSchemaRequest) Reset()                    { *m = DiffSchemaRequest{} }
+func (m *DiffSchemaRequest) String() string            { return proto.CompactTextString(m) }
+func (*DiffSchemaRequest) ProtoMessage()               {}
+func (*DiffSchemaRequest) Descriptor() ([]byte, []int) { return fileDescriptor0, []int{14} }
+
+func (m *DiffSchemaRequest) GetFromGeneration() int64 {
+	if m != nil {
+		return m.FromGeneration
+	}
+	return 0
+}
+
+func (m *DiffSchemaRequest) GetToGeneration() int64 {
+	if m != nil {
+		return m.ToGeneration
+	}
+	return 0
+}
+
+type SchemaDiff struct {
+	// Snapshot generation the diff leads up to
+	Generation int64 `protobuf:"varint,1,opt,name=generation" json:"generation,omitempty"`
+	// Snapshot generation the diff is relative to
+	PreviousGeneration int64            `protobuf:"varint,2,opt,name=previous_generation,json=previousGeneration" json:"previous_generation,omitempty"`
+	PathChange         []*PathChange    `protobuf:"bytes,3,rep,name=path_change,json=pathChange" json:"path_change,omitempty"`
+	PackageChange      []*PackageChange `protobuf:"bytes,4,rep,name=package_change,json=packageChange" json:"package_change,omitempty"`
+	// Descriptors declared in the changed paths that were added, removed or modified. Messages,
+	// enums, services and files are modified only if they changed themselves, not their children.
+	DescriptorChange []*DescriptorChange `protobuf:"bytes,5,rep,name=descriptor_change,json=descriptorChange" json:"descriptor_change,omitempty"`
+}
+
+func (m *SchemaDiff) Reset()                    { *m = SchemaDiff{} }
+func (m *SchemaDiff) String() string            { return proto.CompactTextString(m) }
+func (*SchemaDiff) ProtoMessage()               {}
+func (*SchemaDiff) Descriptor() ([]byte, []int) { return fileDescriptor0, []int{15} }
+
+func (m *SchemaDiff) GetGeneration() int64 {
+	if m != nil {
+		return m.Generation
+	}
+	return 0
+}
+
+func (m *SchemaDiff) GetPreviousGeneration() int64 {
+	if m != nil {
+		return m.PreviousGeneration
+	}
+	return 0
+}
+
+func (m *SchemaDiff) GetPathChange() []*PathChange {
+	if m != nil {
+		return m.PathChange
+	}
+	return nil
+}
+
+func (m *SchemaDiff) GetPackageChange() []*PackageChange {
+	if m != nil {
+		return m.PackageChange
+	}
+	return nil
+}
+
+func (m *SchemaDiff) GetDescriptorChange() []*DescriptorChange {
+	if m != nil {
+		return m.DescriptorChange
+	}
+	return nil
+}
+
+type PathChange struct {
+	Path string     `protobuf:"bytes,1,opt,name=path" json:"path,omitempty"`
+	Type ChangeType `protobuf:"varint,2,opt,name=type,enum=spotify.protoman.ChangeType" json:"type,omitempty"`
+}
+
+func (m *PathChange) Reset()                    { *m = PathChange{} }
+func (m *PathChange) String() string            { return proto.CompactTextString(m) }
+func (*PathChange) ProtoMessage()               {}
+func (*PathChange) Descriptor() ([]byte, []int) { return fileDescriptor0, []int{16} }
+
+func (m *PathChange) GetPath() string {
+	if m != nil {
+		return m.Path
+	}
+	return ""
+}
+
+func (m *PathChange) GetType() ChangeType {
+	if m != nil {
+		return m.Type
+	}
+	return ChangeType_UNKNOWN_CHANGE_TYPE
+}
+
+type PackageChange struct {
+	Package         string         `protobuf:"bytes,1,opt,name=package" json:"package,omitempty"`
+	Type            ChangeType     `protobuf:"varint,2,opt,name=type,enum=spotify.protoman.ChangeType" json:"type,omitempty"`
+	PreviousVersion *SchemaVersion `protobuf:"bytes,3,opt,name=previous_version,json=previousVersion" json:"previous_version,omitempty"`
+	Version         *SchemaVersion `protobuf:"bytes,4,opt,name=version" json:"version,omitempty"`
+}
+
+func (m *PackageChange) Reset()                    { *m = PackageChange{} }
+func (m *PackageChange) String() string            { return proto.CompactTextString(m) }
+func (*PackageChange) ProtoMessage()               {}
+func (*PackageChange) Descriptor() ([]byte, []int) { return fileDescriptor0, []int{17} }
+
+func (m *PackageChange) GetPackage() string {
+	if m != nil {
+		return m.Package
+	}
+	return ""
+}
+
+func (m *PackageChange) GetType() ChangeType {
+	if m != nil {
+		return m.Type
+	}
+	return ChangeType_UNKNOWN_CHANGE_TYPE
+}
+
+func (m *PackageChange) GetPreviousVersion() *SchemaVersion {
+	if m != nil {
+		return m.PreviousVersion
+	}
+	return nil
+}
+
+func (m *PackageChange) GetVersion() *SchemaVersion {
+	if m != nil {
+		return m.Version
+	}
+	return nil
+}
+
+type DescriptorChange struct {
+	FullName string                `protobuf:"bytes,1,opt,name=full_name,json=fullName" json:"full_name,omitempty"`
+	Kind     DescriptorChange_Kind `protobuf:"varint,2,opt,name=kind,enum=spotify.protoman.DescriptorChange_Kind" json:"kind,omitempty"`
+	Type     ChangeType            `protobuf:"varint,3,opt,name=type,enum=spotify.protoman.ChangeType" json:"type,omitempty"`
+	// Path of the file declaring the descriptor
+	Path string `protobuf:"bytes,4,opt,name=path" json:"path,omitempty"`
+}
+
+func (m *DescriptorChange) Reset()                    { *m = DescriptorChange{} }
+func (m *DescriptorChange) String() string            { return proto.CompactTextString(m) }
+func (*DescriptorChange) ProtoMessage()               {}
+func (*DescriptorChange) Descriptor() ([]byte, []int) { return fileDescriptor0, []int{18} }
+
+func (m *DescriptorChange) GetFullName() string {
+	if m != nil {
+		return m.FullName
+	}
+	return ""
+}
+
+func (m *DescriptorChange) GetKind() DescriptorChange_Kind {
+	if m != nil {
+		return m.Kind
+	}
+	return DescriptorChange_UNKNOWN
+}
+
+func (m *DescriptorChange) GetType() ChangeType {
+	if m != nil {
+		return m.Type
+	}
+	return ChangeType_UNKNOWN_CHANGE_TYPE
+}
+
+func (m *DescriptorChange) GetPath() string {
+	if m != nil {
+		return m.Path
+	}
+	return ""
+}
+
 func init() {
 	proto.RegisterType((*PublishSchemaRequest)(nil), "spotify.protoman.PublishSchemaRequest")
 	proto.RegisterType((*PublishSchemaResponse)(nil), "spotify.protoman.PublishSchemaResponse")
@@ -343,6 +717,17 @@ func init() {
 	proto.RegisterType((*GetSchemaRequest)(nil), "spotify.protoman.GetSchemaRequest")
 	proto.RegisterType((*GetSchemaRequest_RequestedPackage)(nil), "spotify.protoman.GetSchemaRequest.RequestedPackage")
 	proto.RegisterType((*GetSchemaResponse)(nil), "spotify.protoman.GetSchemaResponse")
+	proto.RegisterType((*GetDescriptorSetRequest)(nil), "spotify.protoman.GetDescriptorSetRequest")
+	proto.RegisterType((*GetDescriptorSetResponse)(nil), "spotify.protoman.GetDescriptorSetResponse")
+	proto.RegisterType((*WatchSchemaRequest)(nil), "spotify.protoman.WatchSchemaRequest")
+	proto.RegisterType((*SchemaChange)(nil), "spotify.protoman.SchemaChange")
+	proto.RegisterType((*DiffSchemaRequest)(nil), "spotify.protoman.DiffSchemaRequest")
+	proto.RegisterType((*SchemaDiff)(nil), "spotify.protoman.SchemaDiff")
+	proto.RegisterType((*PathChange)(nil), "spotify.protoman.PathChange")
+	proto.RegisterType((*PackageChange)(nil), "spotify.protoman.PackageChange")
+	proto.RegisterType((*DescriptorChange)(nil), "spotify.protoman.DescriptorChange")
+	proto.RegisterEnum("spotify.protoman.ChangeType", ChangeType_name, ChangeType_value)
+	proto.RegisterEnum("spotify.protoman.DescriptorChange_Kind", DescriptorChange_Kind_name, DescriptorChange_Kind_value)
 }
 
 // Reference imports to suppress errors if they are not otherwise used.
@@ -358,6 +743,14 @@ const _ = grpc.SupportPackageIsVersion4
 type SchemaRegistryClient interface {
 	PublishSchema(ctx context.Context, in *PublishSchemaRequest, opts ...grpc.CallOption) (*PublishSchemaResponse, error)
 	GetSchema(ctx context.Context, in *GetSchemaRequest, opts ...grpc.CallOption) (*GetSchemaResponse, error)
+	// Compiled descriptors of the requested packages and everything they import, in dependency
+	// order. Unlike GetSchema this does not require running protoc on the result.
+	GetDescriptorSet(ctx context.Context, in *GetDescriptorSetRequest, opts ...grpc.CallOption) (*GetDescriptorSetResponse, error)
+	// Streams a SchemaChange for every new snapshot of the registry. Changes that happened after
+	// from_generation are sent first, coalesced into a single message.
+	WatchSchema(ctx context.Context, in *WatchSchemaRequest, opts ...grpc.CallOption) (SchemaRegistry_WatchSchemaClient, error)
+	// Differences between two snapshots: changed paths, package versions and descriptors
+	DiffSchema(ctx context.Context, in *DiffSchemaRequest, opts ...grpc.CallOption) (*SchemaDiff, error)
 }
 
 type schemaRegistryClient struct {
@@ -386,11 +779,69 @@ func (c *schemaRegistryClient) GetSchema(ctx context.Context, in *GetSchemaReque
 	return out, nil
 }
 
+func (c *schemaRegistryClient) GetDescriptorSet(ctx context.Context, in *GetDescriptorSetRequest, opts ...grpc.CallOption) (*GetDescriptorSetResponse, error) {
+	out := new(GetDescriptorSetResponse)
+	err := grpc.Invoke(ctx, "/spotify.protoman.SchemaRegistry/GetDescriptorSet", in, out, c.cc, opts...)
+	if err != nil {
+		return nil, err
+	}
+	return out, nil
+}
+
+func (c *schemaRegistryClient) WatchSchema(ctx context.Context, in *WatchSchemaRequest, opts ...grpc.CallOption) (SchemaRegistry_WatchSchemaClient, error) {
+	stream, err := grpc.NewClientStream(ctx, &_SchemaRegistry_serviceDesc.Streams[0], c.cc, "/spotify.protoman.SchemaRegistry/WatchSchema", opts...)
+	if err != nil {
+		return nil, err
+	}
+	x := &schemaRegistryWatchSchemaClient{stream}
+	if err := x.ClientStream.SendMsg(in); err != nil {
+		return nil, err
+	}
+	if err := x.ClientStream.CloseSend(); err != nil {
+		return nil, err
+	}
+	return x, nil
+}
+
+type SchemaRegistry_WatchSchemaClient interface {
+	Recv() (*SchemaChange, error)
+	grpc.ClientStream
+}
+
+type schemaRegistryWatchSchemaClient struct {
+	grpc.ClientStream
+}
+
+func (x *schemaRegistryWatchSchemaClient) Recv() (*SchemaChange, error) {
+	m := new(SchemaChange)
+	if err := x.ClientStream.RecvMsg(m); err != nil {
+		return nil, err
+	}
+	return m, nil
+}
+
+func (c *schemaRegistryClient) DiffSchema(ctx context.Context, in *DiffSchemaRequest, opts ...grpc.CallOption) (*SchemaDiff, error) {
+	out := new(SchemaDiff)
+	err := grpc.Invoke(ctx, "/spotify.protoman.SchemaRegistry/DiffSchema", in, out, c.cc, opts...)
+	if err != nil {
+		return nil, err
+	}
+	return out, nil
+}
+
 // Server API for SchemaRegistry service
 
 type SchemaRegistryServer interface {
 	PublishSchema(context.Context, *PublishSchemaRequest) (*PublishSchemaResponse, error)
 	GetSchema(context.Context, *GetSchemaRequest) (*GetSchemaResponse, error)
+	// Compiled descriptors of the requested packages and everything they import, in dependency
+	// order. Unlike GetSchema this does not require running protoc on the result.
+	GetDescriptorSet(context.Context, *GetDescriptorSetRequest) (*GetDescriptorSetResponse, error)
+	// Streams a SchemaChange for every new snapshot of the registry. Changes that happened after
+	// from_generation are sent first, coalesced into a single message.
+	WatchSchema(*WatchSchemaRequest, SchemaRegistry_WatchSchemaServer) error
+	// Differences between two snapshots: changed paths, package versions and descriptors
+	DiffSchema(context.Context, *DiffSchemaRequest) (*SchemaDiff, error)
 }
 
 func RegisterSchemaRegistryServer(s *grpc.Server, srv SchemaRegistryServer) {
@@ -433,6 +884,63 @@ func _SchemaRegistry_GetSchema_Handler(srv interface{}, ctx context.Context, dec
 	return interceptor(ctx, in, info, handler)
 }
 
+func _SchemaRegistry_GetDescriptorSet_Handler(srv interface{}, ctx context.Context, dec func(interface{}) error, interceptor grpc.UnaryServerInterceptor) (interface{}, error) {
+	in := new(GetDescriptorSetRequest)
+	if err := dec(in); err != nil {
+		return nil, err
+	}
+	if interceptor == nil {
+		return srv.(SchemaRegistryServer).GetDescriptorSet(ctx, in)
+	}
+	info := &grpc.UnaryServerInfo{
+		Server:     srv,
+		FullMethod: "/spotify.protoman.SchemaRegistry/GetDescriptorSet",
+	}
+	handler := func(ctx context.Context, req interface{}) (interface{}, error) {
+		return srv.(SchemaRegistryServer).GetDescriptorSet(ctx, req.(*GetDescriptorSetRequest))
+	}
+	return interceptor(ctx, in, info, handler)
+}
+
+func _SchemaRegistry_WatchSchema_Handler(srv interface{}, stream grpc.ServerStream) error {
+	m := new(WatchSchemaRequest)
+	if err := stream.RecvMsg(m); err != nil {
+		return err
+	}
+	return srv.(SchemaRegistryServer).WatchSchema(m, &schemaRegistryWatchSchemaServer{stream})
+}
+
+type SchemaRegistry_WatchSchemaServer interface {
+	Send(*SchemaChange) error
+	grpc.ServerStream
+}
+
+type schemaRegistryWatchSchemaServer struct {
+	grpc.ServerStream
+}
+
+func (x *schemaRegistryWatchSchemaServer) Send(m *SchemaChange) error {
+	return x.ServerStream.SendMsg(m)
+}
+
+func _SchemaRegistry_DiffSchema_Handler(srv interface{}, ctx context.Context, dec func(interface{}) error, interceptor grpc.UnaryServerInterceptor) (interface{}, error) {
+	in := new(DiffSchemaRequest)
+	if err := dec(in); err != nil {
+		return nil, err
+	}
+	if interceptor == nil {
+		return srv.(SchemaRegistryServer).DiffSchema(ctx, in)
+	}
+	info := &grpc.UnaryServerInfo{
+		Server:     srv,
+		FullMethod: "/spotify.protoman.SchemaRegistry/DiffSchema",
+	}
+	handler := func(ctx context.Context, req interface{}) (interface{}, error) {
+		return srv.(SchemaRegistryServer).DiffSchema(ctx, req.(*DiffSchemaRequest))
+	}
+	return interceptor(ctx, in, info, handler)
+}
+
 var _SchemaRegistry_serviceDesc = grpc.ServiceDesc{
 	ServiceName: "spotify.protoman.SchemaRegistry",
 	HandlerType: (*SchemaRegistryServer)(nil),
@@ -445,51 +953,103 @@ var _SchemaRegistry_serviceDesc = grpc.ServiceDesc{
 			MethodName: "GetSchema",
 			Handler:    _SchemaRegistry_GetSchema_Handler,
 		},
+		{
+			MethodName: "GetDescriptorSet",
+			Handler:    _SchemaRegistry_GetDescriptorSet_Handler,
+		},
+		{
+			MethodName: "DiffSchema",
+			Handler:    _SchemaRegistry_DiffSchema_Handler,
+		},
+	},
+	Streams: []grpc.StreamDesc{
+		{
+			StreamName:    "WatchSchema",
+			Handler:       _SchemaRegistry_WatchSchema_Handler,
+			ServerStreams: true,
+		},
 	},
-	Streams:  []grpc.StreamDesc{},
 	Metadata: "registry.proto",
 }
 
 func init() { proto.RegisterFile("registry.proto", fileDescriptor0) }
 
 var fileDescriptor0 = []byte{
-	// 595 bytes of a gzipped FileDescriptorProto
-	0x1f, 0x8b, 0x08, 0x00, 0x00, 0x00, 0x00, 0x00, 0x02, 0xff, 0xa4, 0x54, 0xcf, 0x6e, 0xd3, 0x4e,
-	0x10, 0xfe, 0xf9, 0xd7, 0x26, 0xa9, 0x27, 0x6d, 0x95, 0x2e, 0x81, 0x46, 0x41, 0x82, 0xb0, 0x08,
-	0xc8, 0x01, 0x72, 0x48, 0x2f, 0x14, 0x71, 0x2a, 0x02, 0x4e, 0xd0, 0xb0, 0x48, 0x39, 0x70, 0x89,
-	0x36, 0xf6, 0xa6, 0x59, 0xb0, 0xbd, 0x66, 0x6d, 0x47, 0xca, 0x91, 0x27, 0xe0, 0x41, 0x78, 0x0e,
-	0x6e, 0x3c, 0x02, 0x0f, 0x83, 0xf6, 0x5f, 0x93, 0xd8, 0x29, 0xad, 0xc4, 0x29, 0xfb, 0xcd, 0x7c,
-	0x33, 0xf9, 0xe6, 0xf3, 0xee, 0xc0, 0xa1, 0x64, 0x17, 0x3c, 0xcb, 0xe5, 0x72, 0x90, 0x4a, 0x91,
-	0x0b, 0xd4, 0xca, 0x52, 0x91, 0xf3, 0x99, 0x85, 0x31, 0x4d, 0xf0, 0x37, 0x0f, 0xda, 0xa3, 0x62,
-	0x1a, 0xf1, 0x6c, 0xfe, 0x31, 0x98, 0xb3, 0x98, 0x12, 0xf6, 0xb5, 0x60, 0x59, 0x8e, 0x5e, 0x00,
-	0x68, 0xd2, 0x64, 0xc6, 0x23, 0xd6, 0xf1, 0x7a, 0x3b, 0xfd, 0xe6, 0xf0, 0xee, 0xa0, 0x5c, 0x3f,
-	0x18, 0xa9, 0xc3, 0x1b, 0x1e, 0x31, 0xe2, 0xa7, 0xee, 0x88, 0x8e, 0xa1, 0x11, 0xca, 0xe5, 0x44,
-	0x16, 0x49, 0xe7, 0xff, 0x9e, 0xd7, 0xdf, 0x23, 0xf5, 0x50, 0x2e, 0x49, 0x91, 0xa0, 0x36, 0xd4,
-	0x66, 0x42, 0x06, 0xac, 0xb3, 0xa3, 0xc3, 0x06, 0xe0, 0xdf, 0x1e, 0xdc, 0x2e, 0x69, 0xc8, 0x52,
-	0x91, 0x64, 0x0c, 0x9d, 0xc3, 0x51, 0x6a, 0x12, 0x2c, 0x9c, 0xa4, 0x34, 0xf8, 0x42, 0x2f, 0x9c,
-	0x16, 0xbc, 0x45, 0x8b, 0xa3, 0x8e, 0x0c, 0x93, 0xb4, 0xd2, 0x52, 0x04, 0xbd, 0x02, 0x7f, 0xc1,
-	0x45, 0x44, 0x73, 0x2e, 0x94, 0x36, 0xd5, 0xe8, 0x51, 0xb5, 0xd1, 0x98, 0x46, 0x3c, 0xd4, 0x9c,
-	0xb1, 0x23, 0x93, 0x55, 0x1d, 0x7a, 0x06, 0x35, 0x26, 0xa5, 0x90, 0x7a, 0x8a, 0xe6, 0xf0, 0xb8,
-	0xda, 0xe0, 0xb5, 0x4a, 0x13, 0xc3, 0xc2, 0x0f, 0xa0, 0xa6, 0x31, 0xea, 0x40, 0x23, 0x66, 0x59,
-	0x66, 0x66, 0xf0, 0xfa, 0x3e, 0x71, 0x10, 0x9f, 0x82, 0x7f, 0x69, 0x24, 0x42, 0xb0, 0x9b, 0xd2,
-	0x7c, 0x6e, 0x39, 0xfa, 0xac, 0x4a, 0x03, 0x91, 0xe4, 0x2c, 0xc9, 0xb5, 0xa3, 0x3e, 0x71, 0x10,
-	0xff, 0xf4, 0xe0, 0xd6, 0x16, 0xbd, 0xa8, 0x07, 0xcd, 0x90, 0x65, 0x81, 0xe4, 0xa9, 0x9e, 0xd5,
-	0x34, 0x5b, 0x0f, 0xe9, 0x8f, 0x41, 0x73, 0x1a, 0xd9, 0x6f, 0x64, 0x00, 0x7a, 0x0e, 0x8d, 0xa0,
-	0x90, 0x52, 0xfd, 0x93, 0x19, 0xef, 0x5e, 0x75, 0x3c, 0x25, 0x73, 0x24, 0x32, 0xae, 0x8d, 0x71,
-	0x74, 0xf4, 0x12, 0xfc, 0x80, 0x26, 0xa1, 0x52, 0xc2, 0x3a, 0xbb, 0x37, 0xaa, 0x5d, 0x15, 0xe0,
-	0xf7, 0xb0, 0xbf, 0x9e, 0xda, 0xea, 0x02, 0x82, 0xdd, 0x88, 0x27, 0x4c, 0x0b, 0xae, 0x11, 0x7d,
-	0x46, 0x77, 0xa0, 0x1e, 0x88, 0xa8, 0x88, 0x13, 0x2d, 0xb7, 0x46, 0x2c, 0xc2, 0x3f, 0x3c, 0x68,
-	0x95, 0x2f, 0x84, 0xb2, 0x71, 0x75, 0x8b, 0xb4, 0x8d, 0x16, 0xa2, 0x33, 0xd8, 0x4f, 0x25, 0x5b,
-	0x4c, 0x16, 0x4c, 0x66, 0xe6, 0x6e, 0x28, 0xfd, 0xf7, 0xab, 0xfa, 0xcd, 0x0d, 0x1d, 0x1b, 0x1a,
-	0x69, 0xaa, 0x22, 0x0b, 0xd0, 0x29, 0x34, 0x5c, 0xf9, 0xce, 0xcd, 0xca, 0x1d, 0x1f, 0x7f, 0x80,
-	0x83, 0x8d, 0x8c, 0xfa, 0x38, 0x31, 0xfd, 0x2c, 0xa4, 0xd5, 0x69, 0x80, 0x8e, 0xf2, 0x44, 0x48,
-	0xeb, 0x80, 0x01, 0x2a, 0x9a, 0xd2, 0x3c, 0x98, 0x5b, 0x07, 0x0c, 0xc0, 0xdf, 0x3d, 0x68, 0xbd,
-	0x65, 0xf9, 0xe6, 0xab, 0x7e, 0x07, 0x0d, 0x69, 0x8e, 0xf6, 0x19, 0x9d, 0x54, 0x25, 0x96, 0x8b,
-	0x06, 0xf6, 0x77, 0xf5, 0xae, 0x5c, 0x8f, 0xee, 0x53, 0x68, 0x95, 0x93, 0x57, 0x7b, 0x8c, 0xcf,
-	0xe1, 0x68, 0xad, 0xb7, 0x7d, 0xe2, 0xff, 0xb0, 0x67, 0x86, 0xbf, 0x3c, 0x38, 0x74, 0xed, 0xcc,
-	0x9e, 0x43, 0x53, 0x38, 0xd8, 0x58, 0x25, 0xe8, 0xf1, 0x95, 0x7b, 0x62, 0x63, 0xc8, 0xee, 0x93,
-	0x6b, 0x79, 0x46, 0x30, 0xfe, 0x0f, 0x8d, 0xc1, 0xbf, 0x9c, 0x03, 0xe1, 0xeb, 0x0d, 0xec, 0x3e,
-	0xfc, 0x2b, 0xc7, 0xf5, 0x3d, 0xc3, 0xd0, 0x0e, 0x44, 0x5c, 0xe1, 0x8e, 0xbc, 0x4f, 0x7b, 0x6e,
-	0x8f, 0x4f, 0xeb, 0x3a, 0x7a, 0xf2, 0x27, 0x00, 0x00, 0xff, 0xff, 0x1a, 0xae, 0x4c, 0x04, 0xda,
-	0x05, 0x00, 0x00,
+	// 1210 bytes of a gzipped FileDescriptorProto
+	0x1f, 0x8b, 0x08, 0x00, 0x00, 0x00, 0x00, 0x00, 0x02, 0xff, 0xad, 0x57, 0xcd, 0x52, 0xdb, 0x56,
+	0x14, 0x46, 0x58, 0xc6, 0xf6, 0xb1, 0x71, 0xc4, 0x85, 0x14, 0x8f, 0x93, 0x21, 0x44, 0x69, 0x02,
+	0xcd, 0xb4, 0x26, 0x43, 0x16, 0x6d, 0xda, 0x66, 0x41, 0xb0, 0x20, 0x04, 0xfc, 0x13, 0x19, 0xcc,
+	0xb4, 0x1b, 0x8d, 0x90, 0xaf, 0xb1, 0x8a, 0x2c, 0xa9, 0xfa, 0x61, 0xc2, 0xb2, 0x2f, 0xd0, 0x3e,
+	0x48, 0xbb, 0xed, 0x23, 0xf4, 0x2d, 0xba, 0xea, 0x4c, 0xdf, 0xa3, 0xf7, 0x47, 0xb2, 0x6c, 0xcb,
+	0x04, 0x68, 0xbb, 0xf2, 0x3d, 0xe7, 0x7e, 0xe7, 0xff, 0xdc, 0x73, 0x64, 0x28, 0x7b, 0xf8, 0xdc,
+	0xf4, 0x03, 0xef, 0xaa, 0xe6, 0x7a, 0x4e, 0xe0, 0x20, 0xc9, 0x77, 0x9d, 0xc0, 0xec, 0x47, 0xe4,
+	0x50, 0xb7, 0xab, 0xeb, 0xe7, 0x8e, 0x73, 0x6e, 0xe1, 0x2d, 0xc6, 0x38, 0x0b, 0xfb, 0x5b, 0x3d,
+	0xec, 0x1b, 0x9e, 0xe9, 0x06, 0x8e, 0xc7, 0x41, 0xf2, 0x4f, 0x02, 0xac, 0xb4, 0xc3, 0x33, 0xcb,
+	0xf4, 0x07, 0x1d, 0x63, 0x80, 0x87, 0xba, 0x8a, 0x7f, 0x0c, 0xb1, 0x1f, 0xa0, 0xaf, 0x01, 0x18,
+	0x42, 0xeb, 0x9b, 0x16, 0xae, 0x08, 0xeb, 0x99, 0xcd, 0xe2, 0xf6, 0x83, 0xda, 0xb4, 0x85, 0x5a,
+	0x9b, 0x1e, 0xf6, 0x08, 0x44, 0x2d, 0xb8, 0xf1, 0x11, 0xad, 0x42, 0xae, 0xe7, 0x5d, 0x69, 0x5e,
+	0x68, 0x57, 0xe6, 0xd7, 0x85, 0xcd, 0xbc, 0xba, 0x40, 0x48, 0x35, 0xb4, 0xd1, 0x0a, 0x64, 0xfb,
+	0x8e, 0x67, 0xe0, 0x4a, 0x86, 0xb1, 0x39, 0x21, 0xff, 0x29, 0xc0, 0xfd, 0x29, 0x1f, 0x88, 0x1d,
+	0xdb, 0xc7, 0xa8, 0x05, 0x4b, 0x2e, 0xbf, 0xc0, 0x3d, 0xcd, 0xd5, 0x8d, 0x0b, 0xfd, 0x3c, 0xf6,
+	0x45, 0x9e, 0xe1, 0x4b, 0x0c, 0x6d, 0x73, 0xa4, 0x2a, 0xb9, 0x53, 0x1c, 0xb4, 0x0b, 0x85, 0x4b,
+	0xd3, 0xb1, 0xf4, 0xc0, 0x74, 0xa8, 0x6f, 0x54, 0xd1, 0xd3, 0xb4, 0xa2, 0xae, 0x6e, 0x99, 0x3d,
+	0x86, 0xe9, 0xc6, 0x60, 0x35, 0x91, 0x43, 0x5f, 0x40, 0x16, 0x7b, 0x9e, 0xe3, 0xb1, 0x28, 0x8a,
+	0xdb, 0xab, 0x69, 0x05, 0x0a, 0xbd, 0x56, 0x39, 0x4a, 0x7e, 0x0c, 0x59, 0x46, 0xa3, 0x0a, 0xe4,
+	0x86, 0xd8, 0xf7, 0x79, 0x0c, 0xc2, 0x66, 0x41, 0x8d, 0x49, 0xf9, 0x15, 0x14, 0x46, 0x89, 0x44,
+	0x08, 0x44, 0x57, 0x0f, 0x06, 0x11, 0x86, 0x9d, 0xa9, 0xa8, 0xe1, 0xd8, 0x01, 0xb6, 0x03, 0x96,
+	0x51, 0x22, 0x1a, 0x91, 0xf2, 0x1f, 0x02, 0x2c, 0xcf, 0xf0, 0x17, 0xad, 0x43, 0x31, 0x2e, 0x36,
+	0x8d, 0x95, 0x2b, 0x1b, 0x67, 0xb1, 0x62, 0xe8, 0x81, 0x6e, 0x45, 0x35, 0xe2, 0x04, 0xfa, 0x8a,
+	0x58, 0x0a, 0x3d, 0x8f, 0x5a, 0xe2, 0xe1, 0xad, 0xa5, 0xc3, 0xa3, 0x6e, 0xb6, 0x1d, 0xdf, 0x64,
+	0x89, 0x89, 0xe1, 0xe8, 0x5b, 0x28, 0x18, 0xba, 0xdd, 0xa3, 0x9e, 0xe0, 0x8a, 0x78, 0x2b, 0xd9,
+	0x44, 0x40, 0x6e, 0x42, 0x69, 0xfc, 0x6a, 0x66, 0x16, 0x08, 0xcf, 0x32, 0x6d, 0xcc, 0x1c, 0xce,
+	0xaa, 0xec, 0x8c, 0x3e, 0x81, 0x05, 0xc3, 0xb1, 0xc2, 0xa1, 0xcd, 0xdc, 0xcd, 0xaa, 0x11, 0x25,
+	0xff, 0x2a, 0x80, 0x34, 0xdd, 0x10, 0x34, 0x8d, 0x49, 0x17, 0xb1, 0x34, 0x46, 0x24, 0x7a, 0x03,
+	0x25, 0xd7, 0xc3, 0x97, 0xda, 0x25, 0xf6, 0x7c, 0xde, 0x1b, 0xd4, 0xff, 0x47, 0x69, 0xff, 0x79,
+	0x87, 0x76, 0x39, 0x4c, 0x2d, 0x52, 0xa1, 0x88, 0x40, 0xaf, 0x20, 0x17, 0x8b, 0x67, 0x6e, 0x27,
+	0x1e, 0xe3, 0xe5, 0xf7, 0xb0, 0x38, 0x71, 0x43, 0x8b, 0x33, 0xd4, 0x7f, 0x20, 0x3d, 0xc6, 0xfd,
+	0xe4, 0x04, 0xe3, 0x9a, 0x36, 0xe1, 0xf2, 0x0c, 0x70, 0x82, 0x72, 0x49, 0x7a, 0x8c, 0x41, 0x94,
+	0x01, 0x4e, 0xc8, 0xbf, 0x90, 0x04, 0xec, 0xe3, 0x60, 0xf2, 0x55, 0x37, 0x20, 0xe7, 0xf1, 0x63,
+	0xf4, 0x8c, 0x5e, 0xa6, 0x5d, 0x9c, 0x16, 0xaa, 0x45, 0xbf, 0xc9, 0xbb, 0x8a, 0x75, 0x54, 0x3f,
+	0x07, 0x69, 0xfa, 0xf2, 0xfa, 0x1c, 0xcb, 0xe4, 0x35, 0x8f, 0xe9, 0x8e, 0x9e, 0xf8, 0x7f, 0x98,
+	0x33, 0xb2, 0x05, 0xab, 0x44, 0x61, 0x7d, 0x34, 0xd3, 0x3a, 0x38, 0x88, 0x03, 0x9d, 0xf0, 0x22,
+	0x33, 0x5e, 0xe9, 0x2f, 0xa1, 0x82, 0x3f, 0x18, 0x56, 0xd8, 0xc3, 0x9a, 0xef, 0x84, 0x64, 0xfe,
+	0x68, 0x86, 0x43, 0xce, 0xa6, 0xdd, 0x77, 0xa2, 0x97, 0x70, 0x3f, 0xba, 0xef, 0xb0, 0xeb, 0x5d,
+	0x72, 0x7b, 0x40, 0x2e, 0xe5, 0x9f, 0x05, 0xa8, 0xa4, 0xcd, 0x45, 0x61, 0xa8, 0xb0, 0x4c, 0x03,
+	0xd0, 0x92, 0x01, 0xab, 0xf9, 0x38, 0x60, 0x19, 0xa0, 0xb3, 0x8a, 0xcf, 0xe1, 0x5a, 0x3c, 0x87,
+	0xd9, 0x2b, 0x98, 0x54, 0xb4, 0xd4, 0x9f, 0x66, 0xa1, 0x35, 0x80, 0x73, 0x6c, 0x63, 0x2f, 0x9e,
+	0x56, 0xc2, 0x66, 0x46, 0x1d, 0xe3, 0xc8, 0xaf, 0x01, 0x9d, 0xd2, 0x52, 0x4f, 0x96, 0x78, 0x03,
+	0xee, 0xf5, 0x3d, 0x67, 0xa8, 0x8d, 0x89, 0x0a, 0x4c, 0xb4, 0x4c, 0xd9, 0xfb, 0x89, 0x38, 0x79,
+	0x21, 0x25, 0x2e, 0xba, 0x3b, 0xd0, 0x6d, 0x92, 0x99, 0x49, 0x7b, 0xc2, 0xb4, 0x3d, 0xb4, 0x05,
+	0xcb, 0xb4, 0xdd, 0x4d, 0x27, 0xf4, 0xb5, 0x94, 0x63, 0x28, 0xbe, 0x4a, 0x2c, 0x50, 0x57, 0x0c,
+	0xa6, 0x3a, 0x19, 0xde, 0x19, 0x56, 0x8c, 0x72, 0xc4, 0x8e, 0x7b, 0xe6, 0x31, 0x94, 0x12, 0x20,
+	0x79, 0xf4, 0x22, 0x43, 0x15, 0x47, 0xa8, 0x60, 0x20, 0xeb, 0xb0, 0x54, 0x37, 0xfb, 0xfd, 0x7f,
+	0x17, 0x2b, 0x7a, 0x02, 0x8b, 0xa4, 0xc5, 0x52, 0x4e, 0x97, 0x02, 0x67, 0x2c, 0x21, 0xbf, 0xcf,
+	0x03, 0x70, 0xfd, 0xd4, 0xd2, 0xff, 0x9f, 0x8e, 0xd7, 0x50, 0xa4, 0xd1, 0x69, 0x3c, 0x2c, 0x96,
+	0x8a, 0xe2, 0xf6, 0xc3, 0x19, 0xbd, 0x4e, 0x40, 0xbc, 0x24, 0x2a, 0xb8, 0xa3, 0x33, 0xda, 0x83,
+	0x72, 0x94, 0xc5, 0x58, 0x83, 0xc8, 0x34, 0x3c, 0x9a, 0xa5, 0x81, 0xe1, 0x22, 0x25, 0x8b, 0xee,
+	0x38, 0x49, 0x97, 0xea, 0x58, 0x97, 0x46, 0xaa, 0xb2, 0xd7, 0x2d, 0xd5, 0xa4, 0x25, 0x23, 0x6d,
+	0x52, 0x6f, 0x8a, 0x23, 0xab, 0x00, 0x89, 0xcb, 0x33, 0x07, 0xf7, 0x0b, 0x10, 0x83, 0x2b, 0x97,
+	0x0f, 0xee, 0xf2, 0xac, 0x90, 0xb9, 0xec, 0x31, 0xc1, 0xa8, 0x0c, 0x29, 0xff, 0x25, 0xc0, 0xe2,
+	0x44, 0x14, 0x1f, 0x99, 0xdd, 0x77, 0xd6, 0x8e, 0xde, 0x81, 0x34, 0x2a, 0xdd, 0x1d, 0x47, 0xf6,
+	0xbd, 0x58, 0x70, 0xc6, 0xd4, 0x17, 0xef, 0x38, 0xf5, 0x7f, 0x9b, 0x07, 0x69, 0x3a, 0xbf, 0xe8,
+	0x01, 0x14, 0xfa, 0xa1, 0x65, 0x69, 0xb6, 0x3e, 0x8c, 0x23, 0xcd, 0x53, 0x46, 0x93, 0xd0, 0xe8,
+	0x1b, 0x10, 0x2f, 0x4c, 0xbb, 0x17, 0x85, 0xba, 0x71, 0x73, 0xb9, 0x6a, 0x87, 0x04, 0xae, 0x32,
+	0xa1, 0x51, 0x9e, 0x32, 0xb7, 0xce, 0x53, 0x5c, 0x4b, 0x31, 0xa9, 0xa5, 0xfc, 0x01, 0x44, 0xaa,
+	0x13, 0x15, 0x21, 0x77, 0xd2, 0x3c, 0x6c, 0xb6, 0x4e, 0x9b, 0xd2, 0x1c, 0xca, 0x83, 0xb8, 0x77,
+	0x70, 0xa4, 0x48, 0x02, 0x65, 0x37, 0x94, 0x4e, 0x67, 0x67, 0x5f, 0x91, 0xe6, 0x51, 0x01, 0xb2,
+	0x7b, 0x07, 0xca, 0x51, 0x5d, 0xca, 0xd0, 0x63, 0xab, 0xa9, 0xb4, 0xf6, 0x24, 0x11, 0x2d, 0x42,
+	0x41, 0x69, 0x9e, 0x34, 0xb4, 0xe3, 0xef, 0xda, 0x8a, 0x94, 0x45, 0x65, 0x00, 0x46, 0x76, 0x77,
+	0x8e, 0x4e, 0x14, 0x69, 0x81, 0x6a, 0xe8, 0x28, 0x6a, 0xf7, 0x60, 0x57, 0x91, 0x72, 0x08, 0x60,
+	0xa1, 0xa1, 0x1c, 0xbf, 0x6d, 0xd5, 0xa5, 0xfc, 0xf3, 0x43, 0x80, 0xc4, 0x43, 0xf2, 0x91, 0xb9,
+	0x1c, 0xd9, 0xd7, 0x76, 0xdf, 0xee, 0x34, 0xf7, 0x15, 0xae, 0x6f, 0x8e, 0x5a, 0xda, 0xa9, 0xd7,
+	0x95, 0x3a, 0x77, 0x46, 0x55, 0x1a, 0xad, 0x2e, 0x21, 0xe6, 0x51, 0x09, 0xf2, 0x8d, 0x56, 0xfd,
+	0x80, 0x38, 0x44, 0xfc, 0xd9, 0xfe, 0x3b, 0x03, 0xe5, 0x78, 0x98, 0xf0, 0xaf, 0x68, 0x74, 0x46,
+	0x5a, 0x6e, 0xfc, 0x33, 0x14, 0x3d, 0xbb, 0xf6, 0x1b, 0x73, 0x62, 0x0c, 0x55, 0x37, 0x6e, 0xc4,
+	0xf1, 0x2d, 0x21, 0xcf, 0xa1, 0x2e, 0x14, 0x46, 0x3b, 0x10, 0xc9, 0x37, 0x2f, 0xdf, 0xea, 0x93,
+	0x8f, 0x62, 0x46, 0x7a, 0x2f, 0xd8, 0xb2, 0x9f, 0xdc, 0x1f, 0x9f, 0xcd, 0x14, 0x9d, 0xb5, 0x2e,
+	0xab, 0xcf, 0x6f, 0x03, 0x1d, 0x19, 0x3b, 0x85, 0xe2, 0xd8, 0xe2, 0x41, 0x9f, 0xa6, 0x85, 0xd3,
+	0x7b, 0xa9, 0xba, 0x76, 0xdd, 0xb3, 0x88, 0xa6, 0xc8, 0xdc, 0x0b, 0x01, 0xbd, 0x07, 0x48, 0x86,
+	0x3c, 0x9a, 0x11, 0x7a, 0x6a, 0x05, 0x54, 0x1f, 0x5e, 0xa7, 0x96, 0x42, 0xe5, 0xb9, 0x37, 0x32,
+	0xac, 0x18, 0xce, 0x30, 0x05, 0x6a, 0x0b, 0xdf, 0xe7, 0xe3, 0xbf, 0x4f, 0x67, 0x0b, 0x8c, 0xfb,
+	0xf2, 0x1f, 0x6b, 0x29, 0x4c, 0x68, 0x51, 0x0d, 0x00, 0x00,
 }
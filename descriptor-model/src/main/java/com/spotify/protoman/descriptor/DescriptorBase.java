@@ -20,6 +20,8 @@
 
 package com.spotify.protoman.descriptor;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
 import com.google.protobuf.Message;
 import java.util.Optional;
 
@@ -28,19 +30,24 @@ abstract class DescriptorBase<ProtoType extends Message> implements GenericDescr
   private final ProtoType proto;
   private FileDescriptor file;
   private int index;
-  private final SourceCodeInfo sourceCodeInfo;
-  private final String fullName;
+  private final PathNode path;
+  private final int symbol;
+  // Computed lazily. HashCode, Optional and SourceCodeInfo are immutable, so threads racing to
+  // compute them are harmless.
+  private Optional<SourceCodeInfo> sourceCodeInfo;
+  private HashCode structuralHash;
+  private HashCode sourceHash;
 
   protected DescriptorBase(final ProtoType proto,
                            final FileDescriptor file,
                            final int index,
                            final PathNode path,
-                           final String fullName) {
+                           final int symbol) {
     this.proto = proto;
     this.file = file;
     this.index = index;
-    this.sourceCodeInfo = path.sourceCodeInfo(file).orElse(null);
-    this.fullName = fullName;
+    this.path = path;
+    this.symbol = symbol;
   }
 
   @Override
@@ -50,12 +57,24 @@ abstract class DescriptorBase<ProtoType extends Message> implements GenericDescr
 
   @Override
   public Optional<SourceCodeInfo> sourceCodeInfo() {
-    return Optional.ofNullable(sourceCodeInfo);
+    Optional<SourceCodeInfo> result = sourceCodeInfo;
+    if (result == null) {
+      result = path.sourceCodeInfo(file);
+      sourceCodeInfo = result;
+    }
+    return result;
   }
 
   @Override
   public String fullName() {
-    return fullName;
+    return file.symbols().fullName(symbol);
+  }
+
+  /**
+   * The full name of the descriptor, interned in the {@link SymbolTable} of its file.
+   */
+  int symbol() {
+    return symbol;
   }
 
   @Override
@@ -66,4 +85,43 @@ abstract class DescriptorBase<ProtoType extends Message> implements GenericDescr
   public int index() {
     return index;
   }
+
+  PathNode path() {
+    return path;
+  }
+
+  @Override
+  public HashCode structuralHash() {
+    HashCode hash = structuralHash;
+    if (hash == null) {
+      hash = StructuralHashes.structuralHash(protoWithoutChildren(), children());
+      structuralHash = hash;
+    }
+    return hash;
+  }
+
+  @Override
+  public HashCode sourceHash() {
+    HashCode hash = sourceHash;
+    if (hash == null) {
+      hash = StructuralHashes.sourceHash(
+          structuralHash(), sourceCodeInfo().orElse(null), children());
+      sourceHash = hash;
+    }
+    return hash;
+  }
+
+  /**
+   * The proto with the descriptors declared in it cleared, those are hashed separately.
+   */
+  protected Message protoWithoutChildren() {
+    return proto;
+  }
+
+  /**
+   * The descriptors declared in this one, grouped by kind.
+   */
+  protected ImmutableList<ImmutableList<? extends GenericDescriptor>> children() {
+    return ImmutableList.of();
+  }
 }
@@ -20,101 +20,227 @@
 
 package com.spotify.protoman.descriptor;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Message and enum types of a descriptor set by symbol, see {@link SymbolTable}.
+ *
+ * Types are put in the pool as the descriptors declaring them are built. Finding a type that is
+ * not in the pool walks to it from the files of every package it could be in, building
+ * descriptors on the way. This is how types are found in lazy pools, which do not build the
+ * children of descriptors up front, and in files reused from another descriptor set, which were
+ * built with another pool. Descriptors may be built by several threads at once, so the pool is
+ * thread-safe.
+ */
 class DescriptorPool {
 
-  // Fully-qualified (.<package>.<type>...) name -> MessageDescriptor
-  private final Map<String, MessageDescriptor> messageTypes = new HashMap<>();
-  private final Map<String, EnumDescriptor> enumTypes = new HashMap<>();
+  private final boolean lazy;
+  private final SymbolTable symbols;
+  private final BySymbol<MessageDescriptor> messageTypes = new BySymbol<>();
+  private final BySymbol<EnumDescriptor> enumTypes = new BySymbol<>();
+  // Files by package symbol, used to find the file declaring a type that is not in the pool
+  private final BySymbol<List<FileDescriptor>> files = new BySymbol<>();
 
-  private DescriptorPool() {
+  private DescriptorPool(final boolean lazy, final SymbolTable symbols) {
+    this.lazy = lazy;
+    this.symbols = symbols;
   }
 
-  public static DescriptorPool create() {
-    return new DescriptorPool();
+  public static DescriptorPool create(final SymbolTable symbols) {
+    return new DescriptorPool(false, symbols);
   }
 
+  public static DescriptorPool createLazy(final SymbolTable symbols) {
+    return new DescriptorPool(true, symbols);
+  }
+
+  /**
+   * Whether descriptors should build their children on first access rather than up front.
+   */
+  boolean isLazy() {
+    return lazy;
+  }
+
+  SymbolTable symbols() {
+    return symbols;
+  }
+
+  /**
+   * @param fullName A fully-qualified name, with or without a leading dot.
+   */
   MessageDescriptor findMessageType(final String fullName) {
-    return messageTypes.get(fullyQualify(fullName));
+    return findMessageType(SymbolTable.ROOT, stripLeadingDot(fullName));
   }
 
+  /**
+   * @param fullName A fully-qualified name, with or without a leading dot.
+   */
   EnumDescriptor findEnumType(final String fullName) {
-    return enumTypes.get(fullyQualify(fullName));
+    return findEnumType(SymbolTable.ROOT, stripLeadingDot(fullName));
+  }
+
+  void put(final FileDescriptor file) {
+    files.computeIfAbsent(file.packageSymbol(), CopyOnWriteArrayList::new).add(file);
   }
 
   void put(final MessageDescriptor descriptor) {
-    messageTypes.put("." + descriptor.fullName(), descriptor);
+    messageTypes.put(descriptor.symbol(), descriptor);
   }
 
   void put(final EnumDescriptor descriptor) {
-    enumTypes.put("." + descriptor.fullName(), descriptor);
+    enumTypes.put(descriptor.symbol(), descriptor);
   }
 
-  public MessageDescriptor lookupMessageDescriptor(final String name,
-                                                   final MessageDescriptor relativeTo) {
-    return lookupDescriptor(name, relativeTo, this::findMessageType);
+  private MessageDescriptor findMessageType(final int scope, final String name) {
+    return find(scope, name, messageTypes,
+                MessageDescriptor::findMessageByName, FileDescriptor::findMessageByName);
   }
 
-  public EnumDescriptor lookupEnumDescriptor(final String name,
-                                             final MessageDescriptor relativeTo) {
-    return lookupDescriptor(name, relativeTo, this::findEnumType);
+  private EnumDescriptor findEnumType(final int scope, final String name) {
+    return find(scope, name, enumTypes,
+                MessageDescriptor::findEnumByName, FileDescriptor::findEnumByName);
   }
 
-  // TODO(staffan): This is probably buggy as hell. protoc seems to produce names that are
-  // fully-qualified so much of this code hasn't yet been exercised.
-  private static <DescriptorType extends GenericDescriptor>
-  DescriptorType lookupDescriptor(final String name, final MessageDescriptor relativeTo,
-                                  final Function<String, DescriptorType> lookupFn) {
-    if (isFullyQualifiedName(name)) {
-      return lookupFn.apply(name);
+  @Nullable
+  private <DescriptorType extends DescriptorBase<?>> DescriptorType find(
+      final int scope,
+      final String name,
+      final BySymbol<DescriptorType> types,
+      final BiFunction<MessageDescriptor, String, DescriptorType> findInMessage,
+      final BiFunction<FileDescriptor, String, DescriptorType> findInFile) {
+    final int symbol = symbols.lookup(scope, name);
+    if (symbol != SymbolTable.NOT_FOUND) {
+      final DescriptorType descriptor = types.get(symbol);
+      if (descriptor != null) {
+        return descriptor;
+      }
+    }
+    final DescriptorType descriptor = walk(parts(scope, name), findInMessage, findInFile);
+    if (descriptor != null) {
+      // Types in reused files were put in the pool they were built with
+      types.putIfAbsent(descriptor.symbol(), descriptor);
     }
+    return descriptor;
+  }
 
-    // Defined in nested type? E.g.
-    //
-    // message A {
-    //    B b = 1;
-    //    B.C c = 2;
-    //    message B {
-    //      message C {}
-    //    }
-    // }
-    final Deque<MessageDescriptor> q = new ArrayDeque<>();
-    q.push(relativeTo);
-
-    while (!q.isEmpty()) {
-      final MessageDescriptor d = q.pop();
-      final String scope = "." + d.fullName();
-      final DescriptorType maybeDesc = lookupFn.apply(scope + "." + name);
-      if (maybeDesc != null) {
-        return maybeDesc;
+  /**
+   * Find a type that is not in the pool by walking from the files of every package the name
+   * could be in, building descriptors on the way.
+   */
+  @Nullable
+  private <DescriptorType extends DescriptorBase<?>> DescriptorType walk(
+      final List<String> parts,
+      final BiFunction<MessageDescriptor, String, DescriptorType> findInMessage,
+      final BiFunction<FileDescriptor, String, DescriptorType> findInFile) {
+    int packageSymbol = SymbolTable.ROOT;
+    for (int i = 0; i < parts.size() && packageSymbol != SymbolTable.NOT_FOUND; i++) {
+      final List<FileDescriptor> packageFiles = files.get(packageSymbol);
+      if (packageFiles != null) {
+        for (final FileDescriptor file : packageFiles) {
+          final DescriptorType descriptor =
+              walk(file, parts.subList(i, parts.size()), findInMessage, findInFile);
+          if (descriptor != null) {
+            return descriptor;
+          }
+        }
       }
-      d.nestedTypes().forEach(nestedType -> q.push(d));
+      packageSymbol = symbols.lookupChild(packageSymbol, parts.get(i));
     }
+    return null;
+  }
 
-    String s = "." + relativeTo.fullName();
-    while (true) {
-      final int i = s.lastIndexOf('.');
-      if (i == -1) {
-        return null;
-      }
-      s = s.substring(0, i);
-      final DescriptorType d = lookupFn.apply(s + "." + name);
-      if (d != null) {
-        return d;
-      }
+  @Nullable
+  private static <DescriptorType extends GenericDescriptor> DescriptorType walk(
+      final FileDescriptor file,
+      final List<String> parts,
+      final BiFunction<MessageDescriptor, String, DescriptorType> findInMessage,
+      final BiFunction<FileDescriptor, String, DescriptorType> findInFile) {
+    if (parts.size() == 1) {
+      return findInFile.apply(file, parts.get(0));
+    }
+    MessageDescriptor parent = file.findMessageByName(parts.get(0));
+    for (int i = 1; parent != null && i < parts.size() - 1; i++) {
+      parent = parent.findMessageByName(parts.get(i));
+    }
+    return parent != null ? findInMessage.apply(parent, parts.get(parts.size() - 1)) : null;
+  }
+
+  /**
+   * The names making up a name relative to a scope, from the root.
+   */
+  private List<String> parts(final int scope, final String name) {
+    final List<String> parts = new ArrayList<>();
+    for (int symbol = scope; symbol != SymbolTable.ROOT; symbol = symbols.parent(symbol)) {
+      parts.add(0, symbols.name(symbol));
+    }
+    int start = 0;
+    while (start < name.length()) {
+      int end = name.indexOf('.', start);
+      end = end == -1 ? name.length() : end;
+      parts.add(name.substring(start, end));
+      start = end + 1;
     }
+    return parts;
   }
 
   private static boolean isFullyQualifiedName(final String name) {
     return name.startsWith(".");
   }
 
-  private static String fullyQualify(final String fullName) {
-    return isFullyQualifiedName(fullName) ? fullName : "." + fullName;
+  private static String stripLeadingDot(final String fullName) {
+    return isFullyQualifiedName(fullName) ? fullName.substring(1) : fullName;
+  }
+
+  /**
+   * Values indexed by symbol. Symbols are dense, so this is an array grown as symbols are
+   * interned. Reads do not lock, writes lock to not be lost to a concurrent resize.
+   */
+  private static class BySymbol<T> {
+
+    private volatile AtomicReferenceArray<T> values = new AtomicReferenceArray<>(64);
+
+    @Nullable
+    T get(final int symbol) {
+      final AtomicReferenceArray<T> values = this.values;
+      return symbol < values.length() ? values.get(symbol) : null;
+    }
+
+    synchronized void put(final int symbol, final T value) {
+      capacity(symbol).set(symbol, value);
+    }
+
+    synchronized void putIfAbsent(final int symbol, final T value) {
+      capacity(symbol).compareAndSet(symbol, null, value);
+    }
+
+    synchronized T computeIfAbsent(final int symbol, final Supplier<T> valueFactory) {
+      final AtomicReferenceArray<T> values = capacity(symbol);
+      T value = values.get(symbol);
+      if (value == null) {
+        value = valueFactory.get();
+        values.set(symbol, value);
+      }
+      return value;
+    }
+
+    private AtomicReferenceArray<T> capacity(final int symbol) {
+      AtomicReferenceArray<T> values = this.values;
+      if (symbol >= values.length()) {
+        final AtomicReferenceArray<T> grown =
+            new AtomicReferenceArray<>(Math.max(values.length() * 2, symbol + 1));
+        for (int i = 0; i < values.length(); i++) {
+          grown.set(i, values.get(i));
+        }
+        values = grown;
+        this.values = values;
+      }
+      return values;
+    }
   }
 }
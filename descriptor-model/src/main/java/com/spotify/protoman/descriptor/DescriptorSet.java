@@ -21,13 +21,16 @@
 package com.spotify.protoman.descriptor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
 import com.google.auto.value.AutoValue;
+import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.protobuf.DescriptorProtos;
 import java.nio.file.Path;
@@ -35,16 +38,22 @@ import java.nio.file.Paths;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 
@@ -55,13 +64,17 @@ public abstract class DescriptorSet {
 
   public static DescriptorSet create(final DescriptorProtos.FileDescriptorSet fds,
                                      final Predicate<Path> predicate) {
-    final DescriptorPool pool = DescriptorPool.create();
-
-    final ImmutableList<FileDescriptor> fileDescriptors =
-        buildFileDescriptors(fds, pool, fdp -> predicate.test(Paths.get(fdp.getName())))
-            .collect(ImmutableList.toImmutableList());
+    return builder(fds, predicate).build();
+  }
 
-    return new AutoValue_DescriptorSet(fileDescriptors);
+  /**
+   * @param fds       Files to build descriptors from.
+   * @param predicate Which files to include in the descriptor set. Their dependencies are built
+   *                  as well, but only reachable through {@link FileDescriptor#dependencies()}.
+   */
+  public static Builder builder(final DescriptorProtos.FileDescriptorSet fds,
+                                final Predicate<Path> predicate) {
+    return new Builder(fds, predicate);
   }
 
   public static DescriptorSet empty() {
@@ -76,68 +89,209 @@ public abstract class DescriptorSet {
    * Descriptors are matched by <b>name</b> between the descriptor sets in most cases. Enum
    * values and fields are matched between descriptors by number (note that when FieldMask is
    * used changing the name is a breaking change).
+   *
+   * Unless the visitor asks to {@link ComparingVisitor#visitUnchanged() visit unchanged
+   * descriptors}, descriptors that are structurally identical in both sets are skipped together
+   * with everything declared in them. Comparing two mostly identical sets then takes time
+   * proportional to the size of the change.
    */
   public static void compare(final ComparingVisitor visitor,
                              final DescriptorSet a,
                              final DescriptorSet b) {
-    group(a, b, d -> d.fileDescriptors().stream())
-        .forEach(grouping -> visitor.visit(grouping.a(), grouping.b()));
-    group(a, b, d -> d.fileDescriptors().stream().flatMap(x -> x.messageTypes().stream()))
-        .forEach(grouping -> compare(visitor, grouping.a(), grouping.b()));
-    group(a, b, d -> d.fileDescriptors().stream().flatMap(x -> x.enumTypes().stream()))
-        .forEach(grouping -> compare(visitor, grouping.a(), grouping.b()));
-    group(a, b, d -> d.fileDescriptors().stream().flatMap(x -> x.services().stream()))
-        .forEach(grouping -> compare(visitor, grouping.a(), grouping.b()));
+    topLevelComparisons(visitor.visitUnchanged(), a, b)
+        .forEach(comparison -> comparison.accept(visitor));
+  }
+
+  /**
+   * Like {@link #compare(ComparingVisitor, DescriptorSet, DescriptorSet)}, but comparing files,
+   * top-level messages, enums and services in parallel on the given pool.
+   *
+   * Visitors need not be thread-safe. Each task visits a contiguous run of top-level descriptors
+   * with its own visitor, created by {@code visitorFactory}. The visitors are returned in the
+   * order {@code compare} would have visited their descriptors in, so merging their results in
+   * list order gives the same, deterministic, result for the same input.
+   */
+  public static <V extends ComparingVisitor> ImmutableList<V> compareInParallel(
+      final Supplier<V> visitorFactory,
+      final DescriptorSet a,
+      final DescriptorSet b,
+      final ForkJoinPool pool) {
+    final V first = visitorFactory.get();
+    final ImmutableList<Consumer<ComparingVisitor>> comparisons =
+        topLevelComparisons(first.visitUnchanged(), a, b);
+    return pool.invoke(
+        new CompareTask<>(visitorFactory, first, comparisons, 0, comparisons.size()));
+  }
+
+  /**
+   * Comparisons of the files and the top-level descriptors in them, in visiting order.
+   */
+  private static ImmutableList<Consumer<ComparingVisitor>> topLevelComparisons(
+      final boolean visitUnchanged,
+      final DescriptorSet a,
+      final DescriptorSet b) {
+    // Names of files that are identical in both sets. Full names are unique within a set, so
+    // the descriptors declared in those files can only match each other and can be left out.
+    final Set<String> unchangedFiles = visitUnchanged
+                                       ? Collections.emptySet()
+                                       : unchangedFiles(a, b);
+    final Function<DescriptorSet, Stream<FileDescriptor>> changedFiles = d ->
+        d.fileDescriptors().stream().filter(file -> !unchangedFiles.contains(file.name()));
+
+    final ImmutableList.Builder<Consumer<ComparingVisitor>> comparisons = ImmutableList.builder();
+    group(a, b, changedFiles).forEach(grouping -> comparisons.add(
+        visitor -> visitor.visit(grouping.a(), grouping.b())));
+    group(a, b, d -> changedFiles.apply(d).flatMap(x -> x.messageTypes().stream()))
+        .forEach(grouping -> comparisons.add(
+            visitor -> compare(visitor, grouping.a(), grouping.b())));
+    group(a, b, d -> changedFiles.apply(d).flatMap(x -> x.enumTypes().stream()))
+        .forEach(grouping -> comparisons.add(
+            visitor -> compare(visitor, grouping.a(), grouping.b())));
+    group(a, b, d -> changedFiles.apply(d).flatMap(x -> x.services().stream()))
+        .forEach(grouping -> comparisons.add(
+            visitor -> compare(visitor, grouping.a(), grouping.b())));
+    return comparisons.build();
   }
 
   public Optional<FileDescriptor> findFileByPath(final Path path) {
-    return fileDescriptors().stream()
-        .filter(fileDescriptor -> Objects.equals(fileDescriptor.filePath(), path))
-        .findFirst();
+    return Optional.ofNullable(filesByPath().get(path));
+  }
+
+  @Memoized
+  ImmutableMap<Path, FileDescriptor> filesByPath() {
+    return Maps.uniqueIndex(fileDescriptors(), FileDescriptor::filePath);
+  }
+
+  private static Set<String> unchangedFiles(final DescriptorSet a, final DescriptorSet b) {
+    final Map<String, FileDescriptor> aFiles = a.fileDescriptors().stream()
+        .collect(toMap(FileDescriptor::name, d -> d));
+    return b.fileDescriptors().stream()
+        .filter(file -> unchanged(aFiles.get(file.name()), file))
+        .map(FileDescriptor::name)
+        .collect(ImmutableSet.toImmutableSet());
+  }
+
+  /**
+   * True if both descriptors are present and structurally identical, including everything
+   * declared in them.
+   */
+  private static boolean unchanged(@Nullable final GenericDescriptor a,
+                                   @Nullable final GenericDescriptor b) {
+    return a != null && b != null
+           && (a.toProto() == b.toProto() || a.structuralHash().equals(b.structuralHash()));
   }
 
   private static void compare(final ComparingVisitor visitor,
                               @Nullable final MessageDescriptor a,
                               @Nullable final MessageDescriptor b) {
+    if (!visitor.visitUnchanged() && unchanged(a, b)) {
+      return;
+    }
     visitor.visit(a, b);
 
     // Fields (are grouped by number, not name)
-    group(a, b, d -> d.fields().stream(), FieldDescriptor::number)
-        .forEach(grouping -> visitor.visit(grouping.a(), grouping.b(), a, b));
+    mergeJoin(a, b, MessageDescriptor::fieldsByNumber,
+        Comparator.comparingInt(FieldDescriptor::number),
+        (x, y) -> {
+          if (visit(visitor, x, y)) {
+            visitor.visit(x, y, a, b);
+          }
+        });
     // Oneofs
-    group(a, b, d -> d.oneofs().stream())
-        .forEach(grouping -> visitor.visit(grouping.a(), grouping.b()));
+    mergeJoin(a, b, MessageDescriptor::oneofsByName, Util.BY_NAME, (x, y) -> {
+      if (visit(visitor, x, y)) {
+        visitor.visit(x, y);
+      }
+    });
     // Nested enums
-    group(a, b, d -> d.enumTypes().stream())
-        .forEach(grouping -> compare(visitor, grouping.a(), grouping.b()));
+    mergeJoin(a, b, MessageDescriptor::enumTypesByName, Util.BY_NAME,
+        (x, y) -> compare(visitor, x, y));
     // Nested messages
-    group(a, b, d -> d.nestedTypes().stream())
-        .forEach(grouping -> compare(visitor, grouping.a(), grouping.b()));
+    mergeJoin(a, b, MessageDescriptor::nestedTypesByName, Util.BY_NAME,
+        (x, y) -> compare(visitor, x, y));
   }
 
   private static void compare(final ComparingVisitor visitor,
                               @Nullable final ServiceDescriptor a,
                               @Nullable final ServiceDescriptor b) {
+    if (!visitor.visitUnchanged() && unchanged(a, b)) {
+      return;
+    }
     visitor.visit(a, b);
 
-    group(a, b, d -> d.methods().stream())
-        .forEach(grouping -> visitor.visit(grouping.a(), grouping.b()));
+    mergeJoin(a, b, ServiceDescriptor::methodsByName, Util.BY_NAME, (x, y) -> {
+      if (visit(visitor, x, y)) {
+        visitor.visit(x, y);
+      }
+    });
   }
 
   private static void compare(final ComparingVisitor visitor,
                               @Nullable final EnumDescriptor a,
                               @Nullable final EnumDescriptor b) {
+    if (!visitor.visitUnchanged() && unchanged(a, b)) {
+      return;
+    }
     visitor.visit(a, b);
 
+    final BiConsumer<EnumValueDescriptor, EnumValueDescriptor> visitValue = (x, y) -> {
+      if (visit(visitor, x, y)) {
+        visitor.visit(x, y, a, b);
+      }
+    };
     // NOTE(staffan): We probably want to group values by number rather than by name, but
     // "option allow_alias = true;" f's this up. When enabled several values can have
     // the same number :(
     if ((a != null && a.options().hasAllowAlias()) || (b != null && b.options().hasAllowAlias())) {
-      group(a, b, d -> d.values().stream(), EnumValueDescriptor::name)
-          .forEach(grouping -> visitor.visit(grouping.a(), grouping.b(), a, b));
+      mergeJoin(a, b, EnumDescriptor::valuesByName, Util.BY_NAME, visitValue);
     } else {
-      group(a, b, d -> d.values().stream(), EnumValueDescriptor::number)
-          .forEach(grouping -> visitor.visit(grouping.a(), grouping.b(), a, b));
+      mergeJoin(a, b, EnumDescriptor::valuesByNumber,
+          Comparator.comparingInt(EnumValueDescriptor::number), visitValue);
+    }
+  }
+
+  private static boolean visit(final ComparingVisitor visitor,
+                               @Nullable final GenericDescriptor a,
+                               @Nullable final GenericDescriptor b) {
+    return visitor.visitUnchanged() || !unchanged(a, b);
+  }
+
+  /**
+   * Given two descriptors, walk their children of a specific type, sorted by their identity,
+   * in step. The action is called with each pair of children with the same identity, or with
+   * {@code null} in place of a child missing from {@code a} or {@code b}.
+   *
+   * Unlike {@link #group(Object, Object, Function, Function)} this allocates nothing per child,
+   * which matters for large messages and enums compared in full.
+   *
+   * @param sortedChildren Children of a parent, sorted by {@code order} with unique identities.
+   */
+  private static <Parent, Child> void mergeJoin(
+      @Nullable final Parent a,
+      @Nullable final Parent b,
+      final Function<Parent, ImmutableList<Child>> sortedChildren,
+      final Comparator<? super Child> order,
+      final BiConsumer<Child, Child> action) {
+    final List<Child> aChildren = a == null ? ImmutableList.of() : sortedChildren.apply(a);
+    final List<Child> bChildren = b == null ? ImmutableList.of() : sortedChildren.apply(b);
+    int i = 0;
+    int j = 0;
+    while (i < aChildren.size() || j < bChildren.size()) {
+      final int comparison;
+      if (i == aChildren.size()) {
+        comparison = 1;
+      } else if (j == bChildren.size()) {
+        comparison = -1;
+      } else {
+        comparison = order.compare(aChildren.get(i), bChildren.get(j));
+      }
+      if (comparison < 0) {
+        action.accept(aChildren.get(i++), null);
+      } else if (comparison > 0) {
+        action.accept(null, bChildren.get(j++));
+      } else {
+        action.accept(aChildren.get(i++), bChildren.get(j++));
+      }
     }
   }
 
@@ -190,7 +344,9 @@ public abstract class DescriptorSet {
   private static Stream<FileDescriptor> buildFileDescriptors(
       final DescriptorProtos.FileDescriptorSet fileDescriptorSet,
       final DescriptorPool pool,
-      final Predicate<DescriptorProtos.FileDescriptorProto> includePredicate) {
+      final Predicate<DescriptorProtos.FileDescriptorProto> includePredicate,
+      final Map<String, FileDescriptor> reusableFiles,
+      @Nullable final ForkJoinPool forkJoinPool) {
     // Sanity check input - make sure all protos we depend on are included in the FDS
     final ImmutableSet<String> availableFiles = fileDescriptorSet.getFileList().stream()
         .map(DescriptorProtos.FileDescriptorProto::getName)
@@ -220,35 +376,68 @@ public abstract class DescriptorSet {
         }
     );
 
-    // Build FileDescriptor objects, starting with files with no dependents. Only FileDescriptors
-    // for objects that were matched by the given predicate or aree dependencies thereof will are
-    // built.
-    bfs(
-        // Start out at nodes that have no dependencies
-        processSet.stream().filter(node -> node.dependencies.isEmpty()),
-        node -> {
-          final Stream<FileDescriptor> dependencies = node.dependencies.stream()
-              .map(n -> checkNotNull(n.fileDescriptor));
-
-          node.fileDescriptor = FileDescriptor.create(node.fileDescriptorProto, pool, dependencies);
-
-          // Next visit all files that
-          // - depend on this file
-          // - has no unresolved dependencies
-          // - should be processed
-          return node.dependents.stream()
-              .filter(depedent ->
-                  processSet.contains(depedent)
-                  && depedent.dependencies.stream().noneMatch(n -> n.fileDescriptor == null)
-              );
-        }
-    );
+    // Build FileDescriptor objects level by level, starting with files with no dependencies.
+    // Only FileDescriptors for objects that were matched by the given predicate or are
+    // dependencies thereof are built. All dependencies of a level are built in earlier levels,
+    // so the files of a level can be built in parallel.
+    final Consumer<FileNode> build = node -> {
+      final Stream<FileDescriptor> dependencies = node.dependencies.stream()
+          .map(n -> checkNotNull(n.fileDescriptor));
+
+      final FileDescriptor reusable = reusableFiles.get(node.fileDescriptorProto.getName());
+      if (reusable != null && canReuse(reusable, node)) {
+        pool.put(reusable);
+        node.fileDescriptor = reusable;
+      } else {
+        node.fileDescriptor = FileDescriptor.create(node.fileDescriptorProto, pool, dependencies);
+      }
+    };
+    List<FileNode> level = processSet.stream()
+        .filter(node -> node.dependencies.isEmpty())
+        .collect(toList());
+    while (!level.isEmpty()) {
+      if (forkJoinPool == null || level.size() == 1) {
+        level.forEach(build);
+      } else {
+        forkJoinPool.invoke(new BuildTask(build, level, 0, level.size()));
+      }
+
+      // Next visit all files that
+      // - depend on a file in this level
+      // - has no unresolved dependencies
+      // - should be processed
+      level = level.stream()
+          .flatMap(node -> node.dependents.stream())
+          .distinct()
+          .filter(dependent ->
+              processSet.contains(dependent)
+              && dependent.dependencies.stream().noneMatch(n -> n.fileDescriptor == null))
+          .collect(toList());
+    }
 
     return dependencyGraph.stream()
         .filter(node -> includePredicate.test(node.fileDescriptorProto))
         .map(node -> checkNotNull(node.fileDescriptor));
   }
 
+  /**
+   * A file can be reused if its proto is unchanged and its dependencies were reused, i.e. its
+   * whole dependency closure is unchanged. Types it refers to then resolve to the same
+   * descriptors in both descriptor sets.
+   */
+  private static boolean canReuse(final FileDescriptor reusable, final FileNode node) {
+    if (reusable.dependencies().size() != node.dependencies.size()) {
+      return false;
+    }
+    for (int i = 0; i < node.dependencies.size(); i++) {
+      if (reusable.dependencies().get(i) != node.dependencies.get(i).fileDescriptor) {
+        return false;
+      }
+    }
+    return reusable.toProto() == node.fileDescriptorProto
+           || reusable.toProto().equals(node.fileDescriptorProto);
+  }
+
   private static ImmutableCollection<FileNode> buildDependencyGraph(
       final DescriptorProtos.FileDescriptorSet fileDescriptorSet) {
     final ImmutableMap<String, FileNode> nodes = fileDescriptorSet.getFileList().stream()
@@ -273,11 +462,11 @@ public abstract class DescriptorSet {
     return nodes.values();
   }
 
-  private static void bfs(final Stream<FileNode> startNodes,
-                          final Function<FileNode, Stream<FileNode>> action) {
-    final Queue<FileNode> q = new ArrayDeque<>();
-    final Set<FileNode> queued = new HashSet<>();
-    final Consumer<FileNode> maybeEnqueue = node -> {
+  private static <T> void bfs(final Stream<T> startNodes,
+                              final Function<T, Stream<T>> action) {
+    final Queue<T> q = new ArrayDeque<>();
+    final Set<T> queued = new HashSet<>();
+    final Consumer<T> maybeEnqueue = node -> {
       if (queued.add(node)) {
         q.add(node);
       }
@@ -285,7 +474,7 @@ public abstract class DescriptorSet {
 
     startNodes.forEach(maybeEnqueue);
     while (!q.isEmpty()) {
-      final FileNode node = q.poll();
+      final T node = q.poll();
       action.apply(node).forEach(maybeEnqueue);
     }
   }
@@ -302,6 +491,80 @@ public abstract class DescriptorSet {
     }
   }
 
+  private static class CompareTask<V extends ComparingVisitor>
+      extends RecursiveTask<ImmutableList<V>> {
+
+    // Top-level comparisons vary a lot in size, keep tasks small enough to balance the load
+    private static final int MAX_COMPARISONS_PER_TASK = 16;
+
+    private final Supplier<V> visitorFactory;
+    @Nullable private final V visitor;
+    private final ImmutableList<Consumer<ComparingVisitor>> comparisons;
+    private final int from;
+    private final int to;
+
+    private CompareTask(final Supplier<V> visitorFactory,
+                        @Nullable final V visitor,
+                        final ImmutableList<Consumer<ComparingVisitor>> comparisons,
+                        final int from,
+                        final int to) {
+      this.visitorFactory = visitorFactory;
+      this.visitor = visitor;
+      this.comparisons = comparisons;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected ImmutableList<V> compute() {
+      if (to - from <= MAX_COMPARISONS_PER_TASK) {
+        final V taskVisitor = visitor != null ? visitor : visitorFactory.get();
+        comparisons.subList(from, to).forEach(comparison -> comparison.accept(taskVisitor));
+        return ImmutableList.of(taskVisitor);
+      }
+      final int middle = (from + to) >>> 1;
+      final CompareTask<V> right =
+          new CompareTask<>(visitorFactory, null, comparisons, middle, to);
+      right.fork();
+      final ImmutableList<V> left =
+          new CompareTask<>(visitorFactory, visitor, comparisons, from, middle).compute();
+      return ImmutableList.<V>builder()
+          .addAll(left)
+          .addAll(right.join())
+          .build();
+    }
+  }
+
+  private static class BuildTask extends RecursiveAction {
+
+    private final Consumer<FileNode> build;
+    private final List<FileNode> nodes;
+    private final int from;
+    private final int to;
+
+    private BuildTask(final Consumer<FileNode> build,
+                      final List<FileNode> nodes,
+                      final int from,
+                      final int to) {
+      this.build = build;
+      this.nodes = nodes;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      // Building a file is coarse enough to be a task of its own
+      if (to - from == 1) {
+        build.accept(nodes.get(from));
+        return;
+      }
+      final int middle = (from + to) >>> 1;
+      invokeAll(new BuildTask(build, nodes, from, middle),
+                new BuildTask(build, nodes, middle, to));
+    }
+  }
+
   @AutoValue
   static abstract class Grouping<T> {
     @Nullable abstract T a();
@@ -331,5 +594,83 @@ public abstract class DescriptorSet {
     void visit(@Nullable OneofDescriptor a, @Nullable OneofDescriptor b);
 
     void visit(@Nullable FileDescriptor a, @Nullable FileDescriptor b);
+
+    /**
+     * Whether descriptors present and structurally identical in both sets are visited. By default
+     * they are skipped, together with everything declared in them. Visitors that need to see
+     * every descriptor, or that care about comments and other source code info, opt out of
+     * skipping by returning true.
+     */
+    default boolean visitUnchanged() {
+      return false;
+    }
+  }
+
+  public static class Builder {
+
+    private final DescriptorProtos.FileDescriptorSet fds;
+    private final Predicate<Path> predicate;
+    private boolean lazy = false;
+    private DescriptorSet base = empty();
+    @Nullable private ForkJoinPool forkJoinPool = null;
+
+    private Builder(final DescriptorProtos.FileDescriptorSet fds,
+                    final Predicate<Path> predicate) {
+      this.fds = checkNotNull(fds);
+      this.predicate = checkNotNull(predicate);
+    }
+
+    /**
+     * Build the descriptors declared in files on first access rather than up front. Only file
+     * descriptors are built by {@link #build()}, and field and method types are resolved as they
+     * are looked up. Files can be compared, hashed and versioned without building anything in
+     * them, so this is cheaper when most descriptors will never be looked at.
+     */
+    public Builder lazy(final boolean lazy) {
+      this.lazy = lazy;
+      return this;
+    }
+
+    /**
+     * Reuse file descriptors from another descriptor set, including their dependencies, for
+     * files whose proto and dependency closure are unchanged. This saves building and holding
+     * on to the same files twice, e.g. when building a candidate descriptor set to compare with
+     * the current one. Reused files are built the way they were in the base descriptor set.
+     */
+    public Builder reuse(final DescriptorSet base) {
+      this.base = checkNotNull(base);
+      return this;
+    }
+
+    /**
+     * Build files whose dependencies have been built in parallel, on the given pool. Pays off
+     * for large descriptor sets that are not built lazily.
+     */
+    public Builder parallel(final ForkJoinPool forkJoinPool) {
+      this.forkJoinPool = checkNotNull(forkJoinPool);
+      return this;
+    }
+
+    public DescriptorSet build() {
+      // Reused descriptors keep their symbols, so the table of the base is shared
+      final SymbolTable symbols = base.fileDescriptors().isEmpty()
+                                  ? SymbolTable.create()
+                                  : base.fileDescriptors().get(0).symbols();
+      final DescriptorPool pool =
+          lazy ? DescriptorPool.createLazy(symbols) : DescriptorPool.create(symbols);
+
+      final Map<String, FileDescriptor> reusableFiles = new HashMap<>();
+      bfs(base.fileDescriptors().stream(), file -> {
+        reusableFiles.put(file.name(), file);
+        return file.dependencies().stream();
+      });
+
+      final ImmutableList<FileDescriptor> fileDescriptors =
+          buildFileDescriptors(fds, pool, fdp -> predicate.test(Paths.get(fdp.getName())),
+                               reusableFiles, forkJoinPool)
+              .collect(ImmutableList.toImmutableList());
+
+      return new AutoValue_DescriptorSet(fileDescriptors);
+    }
   }
 }
@@ -20,9 +20,12 @@
 
 package com.spotify.protoman.descriptor;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.protobuf.DescriptorProtos;
-import java.util.Objects;
+import com.google.protobuf.Message;
+import java.util.Comparator;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -30,7 +33,7 @@ import javax.annotation.Nullable;
 public class EnumDescriptor extends DescriptorBase<DescriptorProtos.EnumDescriptorProto> {
 
   @Nullable private final MessageDescriptor containingType;
-  private final ImmutableList<EnumValueDescriptor> values;
+  private final Supplier<Members> members = Suppliers.memoize(() -> new Members(this));
 
   private EnumDescriptor(final DescriptorProtos.EnumDescriptorProto proto,
                          final FileDescriptor file,
@@ -38,16 +41,15 @@ public class EnumDescriptor extends DescriptorBase<DescriptorProtos.EnumDescript
                          final PathNode path,
                          final DescriptorPool pool,
                          @Nullable final MessageDescriptor containingType) {
-    super(proto, file, index, path, Util.computeFullName(file, containingType, proto.getName()));
+    super(proto, file, index, path, Util.symbol(file, containingType, proto.getName()));
 
     this.containingType = containingType;
 
     pool.put(this);
 
-    this.values = IntStream.range(0, proto.getValueCount()).mapToObj(idx -> {
-      final DescriptorProtos.EnumValueDescriptorProto d = proto.getValue(idx);
-      return EnumValueDescriptor.create(d, file, idx, path.enumValue(idx), this);
-    }).collect(ImmutableList.toImmutableList());
+    if (!pool.isLazy()) {
+      members.get();
+    }
   }
 
   static EnumDescriptor create(final DescriptorProtos.EnumDescriptorProto proto,
@@ -60,7 +62,18 @@ public class EnumDescriptor extends DescriptorBase<DescriptorProtos.EnumDescript
   }
 
   public ImmutableList<EnumValueDescriptor> values() {
-    return values;
+    return members.get().inOrder;
+  }
+
+  ImmutableList<EnumValueDescriptor> valuesByName() {
+    return members.get().byName;
+  }
+
+  /**
+   * Values sorted by number. Numbers are not unique if aliases are allowed.
+   */
+  ImmutableList<EnumValueDescriptor> valuesByNumber() {
+    return members.get().byNumber;
   }
 
   @Nullable public MessageDescriptor containingType() {
@@ -73,14 +86,17 @@ public class EnumDescriptor extends DescriptorBase<DescriptorProtos.EnumDescript
   }
 
   public EnumValueDescriptor findValueByName(final String name) {
-    return values().stream()
-        .filter(d -> Objects.equals(d.name(), name))
-        .findFirst()
-        .orElse(null);
+    return Util.findByName(valuesByName(), name);
   }
 
   public Stream<EnumValueDescriptor> findValuesByNumber(final int number) {
-    return values().stream().filter(d -> d.number() == number);
+    final ImmutableList<EnumValueDescriptor> valuesByNumber = valuesByNumber();
+    final int from = Util.lowerBound(valuesByNumber, EnumValueDescriptor::number, number);
+    int to = from;
+    while (to < valuesByNumber.size() && valuesByNumber.get(to).number() == number) {
+      to++;
+    }
+    return valuesByNumber.subList(from, to).stream();
   }
 
   public DescriptorProtos.EnumOptions options() {
@@ -102,4 +118,35 @@ public class EnumDescriptor extends DescriptorBase<DescriptorProtos.EnumDescript
   public boolean isReservedName(final String name) {
     return toProto().getReservedNameList().contains(name);
   }
+
+  @Override
+  protected Message protoWithoutChildren() {
+    return toProto().toBuilder().clearValue().build();
+  }
+
+  @Override
+  protected ImmutableList<ImmutableList<? extends GenericDescriptor>> children() {
+    return ImmutableList.of(members.get().inOrder);
+  }
+
+  private static class Members {
+
+    private final ImmutableList<EnumValueDescriptor> inOrder;
+    // Values sorted for merge joins in DescriptorSet.compare
+    private final ImmutableList<EnumValueDescriptor> byName;
+    private final ImmutableList<EnumValueDescriptor> byNumber;
+
+    private Members(final EnumDescriptor enumDescriptor) {
+      final DescriptorProtos.EnumDescriptorProto proto = enumDescriptor.toProto();
+      final PathNode path = enumDescriptor.path();
+      this.inOrder = IntStream.range(0, proto.getValueCount()).mapToObj(idx -> {
+        final DescriptorProtos.EnumValueDescriptorProto d = proto.getValue(idx);
+        return EnumValueDescriptor.create(
+            d, enumDescriptor.file(), idx, path.enumValue(idx), enumDescriptor);
+      }).collect(ImmutableList.toImmutableList());
+      this.byName = Util.sortedByName(inOrder);
+      this.byNumber = ImmutableList.sortedCopyOf(
+          Comparator.comparingInt(EnumValueDescriptor::number), inOrder);
+    }
+  }
 }
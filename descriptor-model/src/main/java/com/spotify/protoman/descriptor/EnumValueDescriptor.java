@@ -31,7 +31,7 @@ public class EnumValueDescriptor extends DescriptorBase<DescriptorProtos.EnumVal
                               final int index,
                               final PathNode path,
                               final EnumDescriptor containingEnum) {
-    super(proto, file, index, path, containingEnum.fullName() + "." + proto.getName());
+    super(proto, file, index, path, Util.symbol(file, containingEnum, proto.getName()));
     this.containingEnum = containingEnum;
   }
 
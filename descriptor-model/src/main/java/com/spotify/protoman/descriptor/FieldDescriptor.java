@@ -27,9 +27,10 @@ public class FieldDescriptor extends DescriptorBase<DescriptorProtos.FieldDescri
   private DescriptorPool pool;
   private final MessageDescriptor containingType;
   private final FieldType type;
-  // Set during cross-linking
+  // Set during cross-linking, which happens on first access if the pool is lazy
   private MessageDescriptor messageType = null;
   private EnumDescriptor enumType = null;
+  private volatile boolean crossLinked = false;
   private final String jsonName;
 
   private FieldDescriptor(final DescriptorProtos.FieldDescriptorProto proto,
@@ -38,7 +39,7 @@ public class FieldDescriptor extends DescriptorBase<DescriptorProtos.FieldDescri
                           final PathNode path,
                           final DescriptorPool pool,
                           final MessageDescriptor containingType) {
-    super(proto, file, index, path, containingType.fullName() + "." + proto.getName());
+    super(proto, file, index, path, Util.symbol(file, containingType, proto.getName()));
     this.pool = pool;
     this.containingType = containingType;
     this.type = FieldType.fromProtoType(proto.getType());
@@ -61,7 +62,7 @@ public class FieldDescriptor extends DescriptorBase<DescriptorProtos.FieldDescri
   }
 
   public MessageDescriptor containingType() {
-    return messageType;
+    return messageType();
   }
 
   public FieldType type() {
@@ -73,10 +74,16 @@ public class FieldDescriptor extends DescriptorBase<DescriptorProtos.FieldDescri
   }
 
   public MessageDescriptor messageType() {
+    if (!crossLinked) {
+      crossLink();
+    }
     return messageType;
   }
 
   public EnumDescriptor enumType() {
+    if (!crossLinked) {
+      crossLink();
+    }
     return enumType;
   }
 
@@ -122,10 +129,12 @@ public class FieldDescriptor extends DescriptorBase<DescriptorProtos.FieldDescri
   }
 
   void crossLink() {
+    // Racing threads find the same descriptors in the pool
     if (type() == FieldType.MESSAGE) {
       this.messageType = pool.findMessageType(typeName());
     } else if (type() == FieldType.ENUM) {
       this.enumType = pool.findEnumType(typeName());
     }
+    crossLinked = true;
   }
 }
@@ -20,58 +20,54 @@
 
 package com.spotify.protoman.descriptor;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
 import com.google.protobuf.DescriptorProtos;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
-import javax.annotation.Nullable;
 
 public class FileDescriptor implements GenericDescriptor {
 
   private final DescriptorProtos.FileDescriptorProto proto;
-  @Nullable  private final SourceCodeInfo sourceCodeInfo;
+  private final PathNode path;
+  private final DescriptorPool pool;
+  private final int packageSymbol;
 
-  private final ImmutableList<MessageDescriptor> messageTypes;
-  private final ImmutableList<EnumDescriptor> enumTypes;
-  private final ImmutableList<ServiceDescriptor> services;
   private final ImmutableList<FileDescriptor> dependencies;
   private final ImmutableList<FileDescriptor> publicDependencies;
+  private final Supplier<Members> members = Suppliers.memoize(() -> new Members(this));
+  // Computed lazily, see DescriptorBase
+  private HashCode structuralHash;
+  private HashCode sourceHash;
+  private Optional<SourceCodeInfo> sourceCodeInfo;
 
   private FileDescriptor(final DescriptorProtos.FileDescriptorProto proto,
                          final PathNode path,
                          final DescriptorPool pool,
                          final Stream<FileDescriptor> dependencies) {
     this.proto = proto;
-    this.sourceCodeInfo = path.sourceCodeInfo(this).orElse(null);
+    this.path = path;
+    this.pool = pool;
+    this.packageSymbol = pool.symbols().internAll(SymbolTable.ROOT, proto.getPackage());
     this.dependencies = dependencies.collect(ImmutableList.toImmutableList());
     final List<FileDescriptor> publicDeps = new ArrayList<>();
     proto.getPublicDependencyList().forEach(i -> publicDeps.add(this.dependencies.get(i)));
     this.publicDependencies = ImmutableList.copyOf(publicDeps);
 
-    this.messageTypes = IntStream.range(0, proto.getMessageTypeCount()).mapToObj(idx -> {
-      final DescriptorProtos.DescriptorProto messageType = proto.getMessageType(idx);
-      return MessageDescriptor.create(messageType, this, idx, path.messageType(idx), pool, null);
-    }).collect(ImmutableList.toImmutableList());
-
-    this.enumTypes = IntStream.range(0, proto.getEnumTypeCount()).mapToObj(idx -> {
-      final DescriptorProtos.EnumDescriptorProto enumType = proto.getEnumType(idx);
-      return EnumDescriptor.create(enumType, this, idx, path.enumType(idx), pool, null);
-    }).collect(ImmutableList.toImmutableList());
-
-    // NOTE: services must be created after messages and enums!
-    this.services = IntStream.range(0, proto.getServiceCount()).mapToObj(idx -> {
-      final DescriptorProtos.ServiceDescriptorProto service = proto.getService(idx);
-      return ServiceDescriptor.create(service, this, idx, path.service(idx), pool);
-    }).collect(ImmutableList.toImmutableList());
+    if (!pool.isLazy()) {
+      // Cross-link to resolve types for enum and message fields
+      members.get().messageTypes.forEach(FileDescriptor::crossLink);
+    }
 
-    // Cross-link to resolve types for enum and message fields
-    messageTypes.forEach(this::crossLink);
+    // Only once built, so that the pool never walks into a file under construction
+    pool.put(this);
   }
 
   static FileDescriptor create(final DescriptorProtos.FileDescriptorProto proto,
@@ -88,15 +84,15 @@ public class FileDescriptor implements GenericDescriptor {
   }
 
   public ImmutableList<MessageDescriptor> messageTypes() {
-    return messageTypes;
+    return members.get().messageTypes;
   }
 
   public ImmutableList<EnumDescriptor> enumTypes() {
-    return enumTypes;
+    return members.get().enumTypes;
   }
 
   public ImmutableList<ServiceDescriptor> services() {
-    return services;
+    return members.get().services;
   }
 
   public ImmutableList<FileDescriptor> dependencies() {
@@ -133,32 +129,66 @@ public class FileDescriptor implements GenericDescriptor {
 
   @Override
   public Optional<SourceCodeInfo> sourceCodeInfo() {
-    return Optional.ofNullable(sourceCodeInfo);
+    Optional<SourceCodeInfo> result = sourceCodeInfo;
+    if (result == null) {
+      result = path.sourceCodeInfo(this);
+      sourceCodeInfo = result;
+    }
+    return result;
+  }
+
+  /**
+   * Unlike the hashes of other descriptors, the structural hash of a file is computed from its
+   * proto rather than the hashes of its children, so that files can be compared without building
+   * their descriptors in lazy descriptor sets.
+   */
+  @Override
+  public HashCode structuralHash() {
+    HashCode hash = structuralHash;
+    if (hash == null) {
+      hash = StructuralHashes.structuralHash(
+          proto.toBuilder().clearSourceCodeInfo().build(), ImmutableList.of());
+      structuralHash = hash;
+    }
+    return hash;
+  }
+
+  /**
+   * Like {@link #structuralHash()}, but also covering the source code info of the file. Two files
+   * with the same hash have equal protos.
+   */
+  @Override
+  public HashCode sourceHash() {
+    HashCode hash = sourceHash;
+    if (hash == null) {
+      hash = StructuralHashes.fileSourceHash(structuralHash(), proto.getSourceCodeInfo());
+      sourceHash = hash;
+    }
+    return hash;
   }
 
   public String protoPackage() {
     return proto.getPackage();
   }
 
+  int packageSymbol() {
+    return packageSymbol;
+  }
+
+  SymbolTable symbols() {
+    return pool.symbols();
+  }
+
   public MessageDescriptor findMessageByName(final String name) {
-    return messageTypes().stream()
-        .filter(messageDescriptor -> Objects.equals(messageDescriptor.name(), name))
-        .findFirst()
-        .orElse(null);
+    return Util.findByName(members.get().messageTypesByName, name);
   }
 
   public EnumDescriptor findEnumByName(final String name) {
-    return enumTypes().stream()
-        .filter(enumDescriptor -> Objects.equals(enumDescriptor.name(), name))
-        .findFirst()
-        .orElse(null);
+    return Util.findByName(members.get().enumTypesByName, name);
   }
 
   public ServiceDescriptor findServiceByName(final String name) {
-    return services().stream()
-        .filter(serviceDescriptor -> Objects.equals(serviceDescriptor.name(), name))
-        .findFirst()
-        .orElse(null);
+    return Util.findByName(members.get().servicesByName, name);
   }
 
   //public abstract ImmutableList<EnumDescriptor> enumTypes();
@@ -177,8 +207,45 @@ public class FileDescriptor implements GenericDescriptor {
     return options().hasJavaPackage() ? options().getJavaPackage() : protoPackage();
   }
 
-  private void crossLink(final MessageDescriptor messageDescriptor) {
+  private static void crossLink(final MessageDescriptor messageDescriptor) {
     messageDescriptor.fields().forEach(FieldDescriptor::crossLink);
-    messageDescriptor.nestedTypes().forEach(this::crossLink);
+    messageDescriptor.nestedTypes().forEach(FileDescriptor::crossLink);
+  }
+
+  private static class Members {
+
+    private final ImmutableList<MessageDescriptor> messageTypes;
+    private final ImmutableList<EnumDescriptor> enumTypes;
+    private final ImmutableList<ServiceDescriptor> services;
+    // Top-level declarations have the same parent, so their names are unique
+    private final ImmutableList<MessageDescriptor> messageTypesByName;
+    private final ImmutableList<EnumDescriptor> enumTypesByName;
+    private final ImmutableList<ServiceDescriptor> servicesByName;
+
+    private Members(final FileDescriptor file) {
+      final DescriptorProtos.FileDescriptorProto proto = file.proto;
+      final PathNode path = file.path;
+      final DescriptorPool pool = file.pool;
+
+      this.messageTypes = IntStream.range(0, proto.getMessageTypeCount()).mapToObj(idx -> {
+        final DescriptorProtos.DescriptorProto messageType = proto.getMessageType(idx);
+        return MessageDescriptor.create(messageType, file, idx, path.messageType(idx), pool, null);
+      }).collect(ImmutableList.toImmutableList());
+
+      this.enumTypes = IntStream.range(0, proto.getEnumTypeCount()).mapToObj(idx -> {
+        final DescriptorProtos.EnumDescriptorProto enumType = proto.getEnumType(idx);
+        return EnumDescriptor.create(enumType, file, idx, path.enumType(idx), pool, null);
+      }).collect(ImmutableList.toImmutableList());
+
+      // NOTE: services must be created after messages and enums!
+      this.services = IntStream.range(0, proto.getServiceCount()).mapToObj(idx -> {
+        final DescriptorProtos.ServiceDescriptorProto service = proto.getService(idx);
+        return ServiceDescriptor.create(service, file, idx, path.service(idx), pool);
+      }).collect(ImmutableList.toImmutableList());
+
+      this.messageTypesByName = Util.sortedByName(messageTypes);
+      this.enumTypesByName = Util.sortedByName(enumTypes);
+      this.servicesByName = Util.sortedByName(services);
+    }
   }
 }
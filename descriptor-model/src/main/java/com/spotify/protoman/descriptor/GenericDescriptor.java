@@ -20,6 +20,7 @@
 
 package com.spotify.protoman.descriptor;
 
+import com.google.common.hash.HashCode;
 import com.google.protobuf.Message;
 import java.util.Optional;
 
@@ -34,4 +35,17 @@ public interface GenericDescriptor {
   FileDescriptor file();
 
   Optional<SourceCodeInfo> sourceCodeInfo();
+
+  /**
+   * Hash of the descriptor and everything declared in it, excluding source code info. Two
+   * descriptors with the same hash have equal protos, apart from source code info. Computed once,
+   * from the hashes of the children.
+   */
+  HashCode structuralHash();
+
+  /**
+   * Like {@link #structuralHash()}, but also covering source code info, i.e. locations and
+   * comments.
+   */
+  HashCode sourceHash();
 }
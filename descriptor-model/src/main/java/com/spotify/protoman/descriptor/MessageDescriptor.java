@@ -20,20 +20,21 @@
 
 package com.spotify.protoman.descriptor;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Message;
 
 import javax.annotation.Nullable;
-import java.util.Objects;
+import java.util.Comparator;
 import java.util.stream.IntStream;
 
 public class MessageDescriptor extends DescriptorBase<DescriptorProtos.DescriptorProto> {
 
   @Nullable private final MessageDescriptor containingType;
-  private final ImmutableList<MessageDescriptor> nestedTypes;
-  private final ImmutableList<EnumDescriptor> enumTypes;
-  private final ImmutableList<FieldDescriptor> fields;
-  private final ImmutableList<OneofDescriptor> oneofs;
+  private final DescriptorPool pool;
+  private final Supplier<Members> members = Suppliers.memoize(() -> new Members(this));
 
   private MessageDescriptor(final DescriptorProtos.DescriptorProto proto,
                             final FileDescriptor file,
@@ -41,31 +42,16 @@ public class MessageDescriptor extends DescriptorBase<DescriptorProtos.Descripto
                             final PathNode path,
                             final DescriptorPool pool,
                             @Nullable final MessageDescriptor containingType) {
-    super(proto, file, index, path, Util.computeFullName(file, containingType, proto.getName()));
+    super(proto, file, index, path, Util.symbol(file, containingType, proto.getName()));
 
     this.containingType = containingType;
+    this.pool = pool;
 
     pool.put(this);
 
-    this.nestedTypes = IntStream.range(0, proto.getNestedTypeCount()).mapToObj(idx -> {
-      final DescriptorProtos.DescriptorProto d = proto.getNestedType(idx);
-      return MessageDescriptor.create(d, file, idx, path.messageType(idx), pool, this);
-    }).collect(ImmutableList.toImmutableList());
-
-    this.enumTypes = IntStream.range(0, proto.getEnumTypeCount()).mapToObj(idx -> {
-      final DescriptorProtos.EnumDescriptorProto d = proto.getEnumType(idx);
-      return EnumDescriptor.create(d, file, idx, path.enumType(idx), pool, this);
-    }).collect(ImmutableList.toImmutableList());
-
-    this.fields = IntStream.range(0, proto.getFieldCount()).mapToObj(idx -> {
-      final DescriptorProtos.FieldDescriptorProto d = proto.getField(idx);
-      return FieldDescriptor.create(d, file, idx, path.field(idx), pool, this);
-    }).collect(ImmutableList.toImmutableList());
-
-    this.oneofs = IntStream.range(0, proto.getOneofDeclCount()).mapToObj(idx -> {
-      final DescriptorProtos.OneofDescriptorProto d = proto.getOneofDecl(idx);
-      return OneofDescriptor.create(d, file, idx, path.oneof(idx), this);
-    }).collect(ImmutableList.toImmutableList());
+    if (!pool.isLazy()) {
+      members.get();
+    }
   }
 
   static MessageDescriptor create(final DescriptorProtos.DescriptorProto proto,
@@ -78,19 +64,35 @@ public class MessageDescriptor extends DescriptorBase<DescriptorProtos.Descripto
   }
 
   public ImmutableList<MessageDescriptor> nestedTypes() {
-    return nestedTypes;
+    return members.get().nestedTypes;
   }
 
   public ImmutableList<EnumDescriptor> enumTypes() {
-    return enumTypes;
+    return members.get().enumTypes;
   }
 
   public ImmutableList<FieldDescriptor> fields() {
-    return fields;
+    return members.get().fields;
   }
 
   public ImmutableList<OneofDescriptor> oneofs() {
-    return oneofs;
+    return members.get().oneofs;
+  }
+
+  ImmutableList<MessageDescriptor> nestedTypesByName() {
+    return members.get().nestedTypesByName;
+  }
+
+  ImmutableList<EnumDescriptor> enumTypesByName() {
+    return members.get().enumTypesByName;
+  }
+
+  ImmutableList<FieldDescriptor> fieldsByNumber() {
+    return members.get().fieldsByNumber;
+  }
+
+  ImmutableList<OneofDescriptor> oneofsByName() {
+    return members.get().oneofsByName;
   }
 
   @Override
@@ -103,31 +105,24 @@ public class MessageDescriptor extends DescriptorBase<DescriptorProtos.Descripto
   }
 
   public MessageDescriptor findMessageByName(final String name) {
-    return nestedTypes().stream()
-        .filter(d -> Objects.equals(d.name(), name))
-        .findFirst()
-        .orElse(null);
+    return Util.findByName(nestedTypesByName(), name);
   }
 
   public EnumDescriptor findEnumByName(final String name) {
-    return enumTypes().stream()
-        .filter(d -> Objects.equals(d.name(), name))
-        .findFirst()
-        .orElse(null);
+    return Util.findByName(enumTypesByName(), name);
   }
 
   public FieldDescriptor findFieldByName(final String name) {
-    return fields().stream()
-        .filter(d -> Objects.equals(d.name(), name))
-        .findFirst()
-        .orElse(null);
+    return Util.findByName(members.get().fieldsByName, name);
   }
 
   public FieldDescriptor findFieldByNumber(final int number) {
-    return fields().stream()
-        .filter(d -> d.number() == number)
-        .findFirst()
-        .orElse(null);
+    final ImmutableList<FieldDescriptor> fieldsByNumber = fieldsByNumber();
+    final int index = Util.lowerBound(fieldsByNumber, FieldDescriptor::number, number);
+    if (index < fieldsByNumber.size() && fieldsByNumber.get(index).number() == number) {
+      return fieldsByNumber.get(index);
+    }
+    return null;
   }
 
   public DescriptorProtos.MessageOptions options() {
@@ -148,5 +143,70 @@ public class MessageDescriptor extends DescriptorBase<DescriptorProtos.Descripto
     return toProto().getReservedNameList().contains(name);
   }
 
+  @Override
+  protected Message protoWithoutChildren() {
+    return toProto().toBuilder()
+        .clearNestedType()
+        .clearEnumType()
+        .clearField()
+        .clearOneofDecl()
+        .build();
+  }
+
+  @Override
+  protected ImmutableList<ImmutableList<? extends GenericDescriptor>> children() {
+    final Members m = members.get();
+    return ImmutableList.of(m.nestedTypes, m.enumTypes, m.fields, m.oneofs);
+  }
+
+  private static class Members {
+
+    private final ImmutableList<MessageDescriptor> nestedTypes;
+    private final ImmutableList<EnumDescriptor> enumTypes;
+    private final ImmutableList<FieldDescriptor> fields;
+    private final ImmutableList<OneofDescriptor> oneofs;
+    // Children sorted for merge joins in DescriptorSet.compare
+    private final ImmutableList<MessageDescriptor> nestedTypesByName;
+    private final ImmutableList<EnumDescriptor> enumTypesByName;
+    private final ImmutableList<FieldDescriptor> fieldsByNumber;
+    private final ImmutableList<OneofDescriptor> oneofsByName;
+    // Field names are unique within a message too
+    private final ImmutableList<FieldDescriptor> fieldsByName;
+
+    private Members(final MessageDescriptor message) {
+      final DescriptorProtos.DescriptorProto proto = message.toProto();
+      final FileDescriptor file = message.file();
+      final PathNode path = message.path();
+      final DescriptorPool pool = message.pool;
+
+      this.nestedTypes = IntStream.range(0, proto.getNestedTypeCount()).mapToObj(idx -> {
+        final DescriptorProtos.DescriptorProto d = proto.getNestedType(idx);
+        return MessageDescriptor.create(d, file, idx, path.messageType(idx), pool, message);
+      }).collect(ImmutableList.toImmutableList());
+
+      this.enumTypes = IntStream.range(0, proto.getEnumTypeCount()).mapToObj(idx -> {
+        final DescriptorProtos.EnumDescriptorProto d = proto.getEnumType(idx);
+        return EnumDescriptor.create(d, file, idx, path.enumType(idx), pool, message);
+      }).collect(ImmutableList.toImmutableList());
+
+      this.fields = IntStream.range(0, proto.getFieldCount()).mapToObj(idx -> {
+        final DescriptorProtos.FieldDescriptorProto d = proto.getField(idx);
+        return FieldDescriptor.create(d, file, idx, path.field(idx), pool, message);
+      }).collect(ImmutableList.toImmutableList());
+
+      this.oneofs = IntStream.range(0, proto.getOneofDeclCount()).mapToObj(idx -> {
+        final DescriptorProtos.OneofDescriptorProto d = proto.getOneofDecl(idx);
+        return OneofDescriptor.create(d, file, idx, path.oneof(idx), message);
+      }).collect(ImmutableList.toImmutableList());
+
+      this.nestedTypesByName = Util.sortedByName(nestedTypes);
+      this.enumTypesByName = Util.sortedByName(enumTypes);
+      this.fieldsByNumber = ImmutableList.sortedCopyOf(
+          Comparator.comparingInt(FieldDescriptor::number), fields);
+      this.oneofsByName = Util.sortedByName(oneofs);
+      this.fieldsByName = Util.sortedByName(fields);
+    }
+  }
+
   // TODO: extensions/options
 }
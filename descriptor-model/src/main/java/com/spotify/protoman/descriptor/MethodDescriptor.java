@@ -34,7 +34,7 @@ public class MethodDescriptor extends DescriptorBase<DescriptorProtos.MethodDesc
                            final PathNode path,
                            final DescriptorPool pool,
                            final ServiceDescriptor service) {
-    super(proto, file, index, path, service.fullName() + "." + proto.getName());
+    super(proto, file, index, path, Util.symbol(file, service, proto.getName()));
     this.service = service;
     // Message are available when methods descriptors are created because
     // 1) All dependencies of a file is created before we create descriptors from the current file
@@ -31,7 +31,7 @@ public class OneofDescriptor extends DescriptorBase<DescriptorProtos.OneofDescri
                           final int index,
                           final PathNode path,
                           final MessageDescriptor containingType) {
-    super(proto, file, index, path, containingType.fullName() + "." + proto.getName());
+    super(proto, file, index, path, Util.symbol(file, containingType, proto.getName()));
     this.containingType = containingType;
   }
 
@@ -22,66 +22,54 @@ package com.spotify.protoman.descriptor;
 
 import com.google.protobuf.DescriptorProtos;
 import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Optional;
-import javax.annotation.Nullable;
-
+import java.util.stream.IntStream;
+
+/**
+ * The path of a descriptor in its file, as used by {@link DescriptorProtos.SourceCodeInfo}.
+ *
+ * Locations are resolved lazily: the first lookup in a file sorts the indexes of its locations
+ * by path, after which every lookup is a binary search. Descriptors that nobody asks for a
+ * location cost a single int array.
+ */
 class PathNode {
 
-  private static final PathNode DUMMY_NODE = new PathNode(null);
+  private static final int[] ROOT_PATH = new int[0];
+  private static final PathNode EMPTY_TREE =
+      new PathNode(new LocationIndex(DescriptorProtos.SourceCodeInfo.getDefaultInstance()),
+                   ROOT_PATH);
 
-  private final PathNode parent;
-  private final Map<Integer, PathNode> children = new HashMap<>();
-  @Nullable private DescriptorProtos.SourceCodeInfo.Location location;
+  private final LocationIndex locations;
+  private final int[] path;
 
   static PathNode buildPathTree(final DescriptorProtos.SourceCodeInfo sourceCodeInfo) {
-    final PathNode root = new PathNode(null);
-    sourceCodeInfo.getLocationList().forEach(
-        location -> {
-          PathNode p = root;
-          for (final int segment : location.getPathList()) {
-            p = p.addChild(segment);
-          }
-          p.setLocation(location);
-        }
-    );
-    return root;
+    return new PathNode(new LocationIndex(sourceCodeInfo), ROOT_PATH);
   }
 
   static PathNode emptyTree() {
-    return DUMMY_NODE;
+    return EMPTY_TREE;
   }
 
-  private PathNode(final PathNode parent) {
-    this.parent = parent;
-    this.location = null;
+  private PathNode(final LocationIndex locations, final int[] path) {
+    this.locations = locations;
+    this.path = path;
   }
 
-  private PathNode get(final int tag) {
-    final PathNode ret = children.get(tag);
-    return ret != null ? ret : DUMMY_NODE;
+  private PathNode get(final int tag, final int index) {
+    final int[] childPath = Arrays.copyOf(path, path.length + 2);
+    childPath[path.length] = tag;
+    childPath[path.length + 1] = index;
+    return new PathNode(locations, childPath);
   }
 
-  private PathNode addChild(final int tag) {
-    if (children.containsKey(tag)) {
-      return children.get(tag);
-    }
-    final PathNode pathNode = new PathNode(this);
-    children.put(tag, pathNode);
-    return pathNode;
-  }
-
-  private PathNode index(final int index) {
-    return get(index);
-  }
-
-  private void setLocation(final DescriptorProtos.SourceCodeInfo.Location location) {
-    this.location = location;
+  private boolean isRoot() {
+    return path.length == 0;
   }
 
   Optional<DescriptorProtos.SourceCodeInfo.Location> location() {
-    return Optional.ofNullable(location);
+    return locations.find(path);
   }
 
   Optional<SourceCodeInfo> sourceCodeInfo(final FileDescriptor file) {
@@ -89,30 +77,104 @@ class PathNode {
   }
 
   PathNode messageType(final int index) {
-    return get(parent == null ? 4 : 3).index(index);
+    return get(isRoot() ? 4 : 3, index);
   }
 
   PathNode field(final int index) {
-    return get(2).index(index);
+    return get(2, index);
   }
 
   PathNode enumType(final int index) {
-    return get(parent == null ? 5 : 4).index(index);
+    return get(isRoot() ? 5 : 4, index);
   }
 
   PathNode enumValue(final int index) {
-    return get(2).index(index);
+    return get(2, index);
   }
 
   PathNode service(final int index) {
-    return get(6).index(index);
+    return get(6, index);
   }
 
   PathNode method(final int index) {
-    return get(2).index(index);
+    return get(2, index);
   }
 
   PathNode oneof(final int index) {
-    return get(8).index(index);
+    return get(8, index);
+  }
+
+  private static class LocationIndex {
+
+    private final DescriptorProtos.SourceCodeInfo sourceCodeInfo;
+    // Indexes of the locations sorted by path, built on first lookup
+    private volatile int[] sorted;
+
+    private LocationIndex(final DescriptorProtos.SourceCodeInfo sourceCodeInfo) {
+      this.sourceCodeInfo = sourceCodeInfo;
+    }
+
+    Optional<DescriptorProtos.SourceCodeInfo.Location> find(final int[] path) {
+      final int[] sorted = sorted();
+      // The last location with the path wins, as several locations may share a path
+      int low = 0;
+      int high = sorted.length;
+      while (low < high) {
+        final int mid = (low + high) >>> 1;
+        if (compare(sourceCodeInfo.getLocation(sorted[mid]), path) <= 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      if (low > 0) {
+        final DescriptorProtos.SourceCodeInfo.Location location =
+            sourceCodeInfo.getLocation(sorted[low - 1]);
+        if (compare(location, path) == 0) {
+          return Optional.of(location);
+        }
+      }
+      return Optional.empty();
+    }
+
+    private int[] sorted() {
+      int[] result = sorted;
+      if (result == null) {
+        final Comparator<Integer> byPath = (a, b) -> compare(
+            sourceCodeInfo.getLocation(a), sourceCodeInfo.getLocation(b));
+        // Stable, so locations sharing a path keep their order
+        result = IntStream.range(0, sourceCodeInfo.getLocationCount())
+            .boxed()
+            .sorted(byPath)
+            .mapToInt(Integer::intValue)
+            .toArray();
+        sorted = result;
+      }
+      return result;
+    }
+
+    private static int compare(final DescriptorProtos.SourceCodeInfo.Location a,
+                               final DescriptorProtos.SourceCodeInfo.Location b) {
+      final int length = Math.min(a.getPathCount(), b.getPathCount());
+      for (int i = 0; i < length; i++) {
+        final int comparison = Integer.compare(a.getPath(i), b.getPath(i));
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(a.getPathCount(), b.getPathCount());
+    }
+
+    private static int compare(final DescriptorProtos.SourceCodeInfo.Location location,
+                               final int[] path) {
+      final int length = Math.min(location.getPathCount(), path.length);
+      for (int i = 0; i < length; i++) {
+        final int comparison = Integer.compare(location.getPath(i), path[i]);
+        if (comparison != 0) {
+          return comparison;
+        }
+      }
+      return Integer.compare(location.getPathCount(), path.length);
+    }
   }
-}
\ No newline at end of file
+}
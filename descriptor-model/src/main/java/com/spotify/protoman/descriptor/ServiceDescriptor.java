@@ -20,27 +20,29 @@
 
 package com.spotify.protoman.descriptor;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Message;
 import java.util.stream.IntStream;
 
 public class ServiceDescriptor extends DescriptorBase<DescriptorProtos.ServiceDescriptorProto> {
 
-  private final ImmutableList<MethodDescriptor> methods;
+  private final DescriptorPool pool;
+  private final Supplier<Members> members = Suppliers.memoize(() -> new Members(this));
 
   private ServiceDescriptor(final DescriptorProtos.ServiceDescriptorProto proto,
                             final FileDescriptor file,
                             final int index,
                             final PathNode path,
                             final DescriptorPool pool) {
-    super(proto, file, index, path, Util.computeFullName(file, null, proto.getName()));
-
-    this.methods = IntStream.range(0, proto.getMethodCount()).mapToObj(
-        idx -> {
-          final DescriptorProtos.MethodDescriptorProto d = proto.getMethod(idx);
-          return MethodDescriptor.create(d, file, idx, path.method(idx), pool, this);
-        }
-    ).collect(ImmutableList.toImmutableList());
+    super(proto, file, index, path, Util.symbol(file, null, proto.getName()));
+    this.pool = pool;
+
+    if (!pool.isLazy()) {
+      members.get();
+    }
   }
 
   static ServiceDescriptor create(final DescriptorProtos.ServiceDescriptorProto proto,
@@ -52,7 +54,11 @@ public class ServiceDescriptor extends DescriptorBase<DescriptorProtos.ServiceDe
   }
 
   public ImmutableList<MethodDescriptor> methods() {
-    return methods;
+    return members.get().inOrder;
+  }
+
+  ImmutableList<MethodDescriptor> methodsByName() {
+    return members.get().byName;
   }
 
   @Override
@@ -63,4 +69,32 @@ public class ServiceDescriptor extends DescriptorBase<DescriptorProtos.ServiceDe
   public DescriptorProtos.ServiceOptions options() {
     return toProto().getOptions();
   }
+
+  @Override
+  protected Message protoWithoutChildren() {
+    return toProto().toBuilder().clearMethod().build();
+  }
+
+  @Override
+  protected ImmutableList<ImmutableList<? extends GenericDescriptor>> children() {
+    return ImmutableList.of(members.get().inOrder);
+  }
+
+  private static class Members {
+
+    private final ImmutableList<MethodDescriptor> inOrder;
+    // Methods sorted for merge joins in DescriptorSet.compare
+    private final ImmutableList<MethodDescriptor> byName;
+
+    private Members(final ServiceDescriptor service) {
+      final DescriptorProtos.ServiceDescriptorProto proto = service.toProto();
+      final PathNode path = service.path();
+      this.inOrder = IntStream.range(0, proto.getMethodCount()).mapToObj(idx -> {
+        final DescriptorProtos.MethodDescriptorProto d = proto.getMethod(idx);
+        return MethodDescriptor.create(
+            d, service.file(), idx, path.method(idx), service.pool, service);
+      }).collect(ImmutableList.toImmutableList());
+      this.byName = Util.sortedByName(inOrder);
+    }
+  }
 }
@@ -0,0 +1,108 @@
+/*-
+ * -\-\-
+ * protoman-descriptor-model
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.descriptor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Message;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/**
+ * Merkle hashes of descriptor trees. A descriptor is hashed from its own proto, with the
+ * descriptors it declares cleared, and the hashes of those descriptors, so every node is
+ * serialized and hashed once no matter how deep the tree is.
+ */
+class StructuralHashes {
+
+  // Equal hashes are taken as equal descriptors, e.g. to skip validating unchanged ones, so the
+  // hash has to be collision resistant
+  private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+
+  private StructuralHashes() {
+  }
+
+  /**
+   * @param withoutChildren The proto of the descriptor with its children cleared.
+   * @param children        Children grouped by kind, in declaration order.
+   */
+  static HashCode structuralHash(
+      final Message withoutChildren,
+      final ImmutableList<? extends ImmutableList<? extends GenericDescriptor>> children) {
+    final Hasher hasher = HASH_FUNCTION.newHasher().putBytes(withoutChildren.toByteArray());
+    for (final ImmutableList<? extends GenericDescriptor> group : children) {
+      hasher.putInt(group.size());
+      group.forEach(child -> hasher.putBytes(child.structuralHash().asBytes()));
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * The structural hash combined with the location and comments of the descriptor and the
+   * source hashes of its children.
+   */
+  static HashCode sourceHash(
+      final HashCode structuralHash,
+      @Nullable final SourceCodeInfo sourceCodeInfo,
+      final ImmutableList<? extends ImmutableList<? extends GenericDescriptor>> children) {
+    final Hasher hasher = HASH_FUNCTION.newHasher().putBytes(structuralHash.asBytes());
+    if (sourceCodeInfo == null) {
+      hasher.putBoolean(false);
+    } else {
+      hasher.putBoolean(true)
+          .putInt(sourceCodeInfo.start().line())
+          .putInt(sourceCodeInfo.start().column())
+          .putInt(sourceCodeInfo.end().line())
+          .putInt(sourceCodeInfo.end().column());
+      putString(hasher, sourceCodeInfo.leadingComments());
+      putString(hasher, sourceCodeInfo.trailingComments());
+      hasher.putInt(sourceCodeInfo.detachedLeadingComments().size());
+      sourceCodeInfo.detachedLeadingComments().forEach(comment -> putString(hasher, comment));
+    }
+    for (final ImmutableList<? extends GenericDescriptor> group : children) {
+      hasher.putInt(group.size());
+      group.forEach(child -> hasher.putBytes(child.sourceHash().asBytes()));
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * The structural hash of a file combined with its source code info, which also holds the
+   * locations of everything in the file that is not a descriptor, e.g. options and imports.
+   */
+  static HashCode fileSourceHash(final HashCode structuralHash,
+                                 final DescriptorProtos.SourceCodeInfo sourceCodeInfo) {
+    return HASH_FUNCTION.newHasher()
+        .putBytes(structuralHash.asBytes())
+        .putBytes(sourceCodeInfo.toByteArray())
+        .hash();
+  }
+
+  private static void putString(final Hasher hasher, final String string) {
+    // Length prefixed, so that adjacent strings cannot run into each other
+    final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    hasher.putInt(bytes.length).putBytes(bytes);
+  }
+}
@@ -0,0 +1,230 @@
+/*-
+ * -\-\-
+ * protoman-descriptor-model
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.descriptor;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Interns the full names of packages and descriptors as int symbols, each made up of a parent
+ * symbol and a simple name. Descriptors store their symbol rather than their full name, and
+ * names are resolved part by part without building strings. Full name strings are only built
+ * when asked for, once per symbol.
+ *
+ * A table is shared by the descriptor sets built on top of each other with
+ * {@link DescriptorSet.Builder#reuse(DescriptorSet)}, so that reused descriptors have the same
+ * symbols in both. Symbols can be interned by several threads at once.
+ */
+class SymbolTable {
+
+  static final int ROOT = 0;
+  static final int NOT_FOUND = -1;
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  // Symbol -> entry. Slots are written before the symbol is published in children.
+  private volatile Entry[] entries = new Entry[INITIAL_CAPACITY];
+  // Open addressing hash table of (parent symbol, simple name) -> symbol + 1, with 0 marking a
+  // free slot. Slots are only written under the lock and the table is replaced before it is half
+  // full, so lookups probe it without locking, boxing or building substrings.
+  private volatile AtomicIntegerArray children = new AtomicIntegerArray(INITIAL_CAPACITY * 2);
+  private int size = 1;  // guarded by this
+
+  private SymbolTable() {
+    entries[ROOT] = new Entry(NOT_FOUND, "");
+    entries[ROOT].fullName = "";
+  }
+
+  static SymbolTable create() {
+    return new SymbolTable();
+  }
+
+  int intern(final int parent, final String name) {
+    return intern(parent, name, 0, name.length());
+  }
+
+  /**
+   * Intern every part of a dotted name, e.g. a package.
+   */
+  int internAll(final int parent, final String dottedName) {
+    int symbol = parent;
+    int start = 0;
+    while (start < dottedName.length()) {
+      final int end = nextDot(dottedName, start);
+      symbol = intern(symbol, dottedName, start, end);
+      start = end + 1;
+    }
+    return symbol;
+  }
+
+  /**
+   * Resolve a dotted name relative to a scope, without interning anything.
+   *
+   * @return The symbol, or {@link #NOT_FOUND} if some part of the name has not been interned.
+   */
+  int lookup(final int scope, final String dottedName) {
+    int symbol = scope;
+    int start = 0;
+    while (start < dottedName.length() && symbol != NOT_FOUND) {
+      final int end = nextDot(dottedName, start);
+      symbol = lookupChild(symbol, dottedName, start, end);
+      start = end + 1;
+    }
+    return symbol;
+  }
+
+  int lookupChild(final int parent, final String name) {
+    return lookupChild(parent, name, 0, name.length());
+  }
+
+  int parent(final int symbol) {
+    return entries[symbol].parent;
+  }
+
+  String name(final int symbol) {
+    return entries[symbol].name;
+  }
+
+  /**
+   * The dot-separated names of the symbol and its parents, e.g. {@code foo.Bar.baz}.
+   */
+  String fullName(final int symbol) {
+    final Entry entry = entries[symbol];
+    if (entry.fullName != null) {
+      return entry.fullName;
+    }
+    // Build the names of uncached parents first, outermost first. The root name is cached, so
+    // the walk up ends there at the latest. Racing threads build equal strings.
+    final Deque<Entry> uncached = new ArrayDeque<>();
+    Entry cached = entry;
+    while (cached.fullName == null) {
+      uncached.push(cached);
+      cached = entries[cached.parent];
+    }
+    String prefix = cached.fullName;
+    for (final Entry e : uncached) {
+      e.fullName = prefix.isEmpty() ? e.name : prefix + '.' + e.name;
+      prefix = e.fullName;
+    }
+    return entry.fullName;
+  }
+
+  /**
+   * Intern the part of {@code name} between {@code start} and {@code end}. The part is only
+   * copied if it has not been interned under the parent before.
+   */
+  private int intern(final int parent, final String name, final int start, final int end) {
+    final int symbol = lookupChild(parent, name, start, end);
+    if (symbol != NOT_FOUND) {
+      return symbol;
+    }
+    synchronized (this) {
+      final int existing = lookupChild(parent, name, start, end);
+      if (existing != NOT_FOUND) {
+        return existing;
+      }
+      Entry[] entries = this.entries;
+      if (size == entries.length) {
+        entries = Arrays.copyOf(entries, size * 2);
+      }
+      entries[size] = new Entry(parent, name.substring(start, end));
+      this.entries = entries;
+      AtomicIntegerArray children = this.children;
+      if ((size + 1) * 2 > children.length()) {
+        children = rehash(entries, size, children.length() * 2);
+      }
+      insert(children, entries[size], size);
+      this.children = children;
+      return size++;
+    }
+  }
+
+  private int lookupChild(final int parent, final String name, final int start, final int end) {
+    final AtomicIntegerArray children = this.children;
+    final int mask = children.length() - 1;
+    for (int i = hash(parent, name, start, end) & mask; ; i = (i + 1) & mask) {
+      final int slot = children.get(i);
+      if (slot == 0) {
+        return NOT_FOUND;
+      }
+      // Read entries after the slot, so that the entry of the symbol is visible
+      final Entry entry = entries[slot - 1];
+      if (entry.parent == parent
+          && entry.name.length() == end - start
+          && entry.name.regionMatches(0, name, start, end - start)) {
+        return slot - 1;
+      }
+    }
+  }
+
+  /**
+   * A table of twice the capacity holding the first {@code size} symbols, except the root.
+   */
+  private static AtomicIntegerArray rehash(final Entry[] entries,
+                                           final int size,
+                                           final int capacity) {
+    final AtomicIntegerArray children = new AtomicIntegerArray(capacity);
+    for (int symbol = ROOT + 1; symbol < size; symbol++) {
+      insert(children, entries[symbol], symbol);
+    }
+    return children;
+  }
+
+  private static void insert(final AtomicIntegerArray children,
+                             final Entry entry,
+                             final int symbol) {
+    final int mask = children.length() - 1;
+    int i = hash(entry.parent, entry.name, 0, entry.name.length()) & mask;
+    while (children.get(i) != 0) {
+      i = (i + 1) & mask;
+    }
+    children.set(i, symbol + 1);
+  }
+
+  private static int hash(final int parent, final String name, final int start, final int end) {
+    int hash = parent;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + name.charAt(i);
+    }
+    // Spread the low bits, which pick the slot
+    hash *= 0x9e3779b9;
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int nextDot(final String name, final int from) {
+    final int i = name.indexOf('.', from);
+    return i == -1 ? name.length() : i;
+  }
+
+  private static class Entry {
+
+    private final int parent;
+    private final String name;
+    private String fullName;
+
+    private Entry(final int parent, final String name) {
+      this.parent = parent;
+      this.name = name;
+    }
+  }
+}
@@ -20,22 +20,78 @@
 
 package com.spotify.protoman.descriptor;
 
+import com.google.common.collect.ImmutableList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
 import javax.annotation.Nullable;
 
 class Util {
 
+  static final Comparator<GenericDescriptor> BY_NAME =
+      Comparator.comparing(GenericDescriptor::name);
+
   private Util() {
   }
 
-  static String computeFullName(final FileDescriptor file,
-                                @Nullable final MessageDescriptor parent,
-                                final String name) {
-    if (parent != null) {
-      return parent.fullName() + '.' + name;
-    } else if (file.protoPackage().length() > 0) {
-      return file.protoPackage() + '.' + name;
-    } else {
-      return name;
+  /**
+   * Intern the full name of a descriptor declared in a parent descriptor, or at the top level of
+   * a file if the parent is {@code null}.
+   */
+  static int symbol(final FileDescriptor file,
+                    @Nullable final DescriptorBase<?> parent,
+                    final String name) {
+    return file.symbols().intern(parent != null ? parent.symbol() : file.packageSymbol(), name);
+  }
+
+  /**
+   * Sibling descriptors sorted by name, for merge joins in {@link DescriptorSet#compare}.
+   * Siblings have the same parent, so their names are unique.
+   */
+  static <T extends GenericDescriptor> ImmutableList<T> sortedByName(final List<T> descriptors) {
+    return ImmutableList.sortedCopyOf(BY_NAME, descriptors);
+  }
+
+  /**
+   * Binary search for the descriptor with the given name in a list sorted by
+   * {@link #sortedByName(List)}.
+   */
+  @Nullable
+  static <T extends GenericDescriptor> T findByName(final List<T> sortedByName,
+                                                    final String name) {
+    int low = 0;
+    int high = sortedByName.size() - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int comparison = sortedByName.get(mid).name().compareTo(name);
+      if (comparison < 0) {
+        low = mid + 1;
+      } else if (comparison > 0) {
+        high = mid - 1;
+      } else {
+        return sortedByName.get(mid);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Binary search for the first descriptor with a number equal to or greater than the given
+   * number, in a list sorted by number. Returns the size of the list if there is none.
+   */
+  static <T> int lowerBound(final List<T> sortedByNumber,
+                            final ToIntFunction<? super T> numberFunction,
+                            final int number) {
+    int low = 0;
+    int high = sortedByNumber.size();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (numberFunction.applyAsInt(sortedByNumber.get(mid)) < number) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
     }
+    return low;
   }
 }
@@ -0,0 +1,112 @@
+/*-
+ * -\-\-
+ * protoman-descriptor-model
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.descriptor;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.spotify.hamcrest.optional.OptionalMatchers;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class DescriptorLookupTest {
+
+  private static final Path PATH = Paths.get("foo/foo.proto");
+
+  private static final String CONTENT =
+      "syntax = 'proto3'; package foo;"
+      + " message Foo { string c = 3; string a = 1; message Inner {} enum InnerEnum { X = 0; } }"
+      + " enum Kind { option allow_alias = true; UNKNOWN = 0; ONE = 1; UNO = 1; MAX = 2147483647; }"
+      + " service FooService { rpc Get (Foo) returns (Foo); }";
+
+  @Test
+  public void testLookups() throws Exception {
+    final DescriptorSet descriptorSet = build();
+    final FileDescriptor file = descriptorSet.findFileByPath(PATH).get();
+    assertThat(descriptorSet.findFileByPath(Paths.get("bar/bar.proto")),
+               OptionalMatchers.emptyOptional());
+
+    final MessageDescriptor foo = file.findMessageByName("Foo");
+    assertThat(foo.fullName(), equalTo("foo.Foo"));
+    assertThat(file.findServiceByName("FooService").fullName(), equalTo("foo.FooService"));
+    assertThat(file.findMessageByName("Kind"), nullValue());
+
+    assertThat(foo.findFieldByNumber(3), sameInstance(foo.findFieldByName("c")));
+    assertThat(foo.findFieldByNumber(1).name(), equalTo("a"));
+    assertThat(foo.findFieldByNumber(2), nullValue());
+    assertThat(foo.findFieldByName("b"), nullValue());
+    assertThat(foo.findMessageByName("Inner").fullName(), equalTo("foo.Foo.Inner"));
+    assertThat(foo.findEnumByName("InnerEnum").fullName(), equalTo("foo.Foo.InnerEnum"));
+
+    final EnumDescriptor kind = file.findEnumByName("Kind");
+    assertThat(kind.findValueByName("UNO").number(), equalTo(1));
+    assertThat(kind.findValuesByNumber(1).map(EnumValueDescriptor::name).collect(toList()),
+               contains("ONE", "UNO"));
+    assertThat(kind.findValuesByNumber(Integer.MAX_VALUE)
+                   .map(EnumValueDescriptor::name)
+                   .collect(toList()),
+               contains("MAX"));
+    assertThat(kind.findValuesByNumber(3).collect(toList()), empty());
+  }
+
+  @Test
+  public void testSourceCodeInfo() throws Exception {
+    final FileDescriptor file = build(
+        "syntax = 'proto3';\n"
+        + "package foo;\n"
+        + "// A foo\n"
+        + "message Foo {\n"
+        + "  message Inner {\n"
+        + "    string a = 1; // An a\n"
+        + "  }\n"
+        + "}\n")
+        .findFileByPath(PATH).get();
+    final MessageDescriptor foo = file.findMessageByName("Foo");
+    final FieldDescriptor a = foo.findMessageByName("Inner").findFieldByName("a");
+
+    assertThat(file.sourceCodeInfo().get().start().line(), equalTo(1));
+    assertThat(foo.sourceCodeInfo().get().start().line(), equalTo(4));
+    assertThat(foo.sourceCodeInfo().get().leadingComments(), equalTo(" A foo\n"));
+    assertThat(a.sourceCodeInfo().get().start().line(), equalTo(6));
+    assertThat(a.sourceCodeInfo().get().filePath(), equalTo(PATH));
+    assertThat(a.sourceCodeInfo().get().trailingComments(), equalTo(" An a\n"));
+  }
+
+  private static DescriptorSet build() throws Exception {
+    return build(CONTENT);
+  }
+
+  private static DescriptorSet build(final String content) throws Exception {
+    try (final DescriptorBuilder builder =
+             ProtocDescriptorBuilder.factoryBuilder().build().newDescriptorBuilder()) {
+      builder.setProtoFile(PATH, content);
+      final DescriptorBuilder.Result result = builder.buildDescriptor(Stream.of(PATH));
+      return DescriptorSet.create(result.fileDescriptorSet(), PATH::equals);
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*-
+ * -\-\-
+ * protoman-descriptor-model
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.descriptor;
+
+import static java.util.stream.Collectors.toMap;
+
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.protobuf.DescriptorProtos;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Builds and compares schemas with a large message and a large enum, visiting every descriptor.
+ * {@link #mapGrouping} groups the same children the way comparisons did before children were
+ * merge-joined, as a baseline. Run {@link #main} to see allocations per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DescriptorSetBenchmark {
+
+  private static final Path PATH = Paths.get("foo/foo.proto");
+  private static final int SIZE = 500;
+
+  private DescriptorProtos.FileDescriptorSet fileDescriptorSet;
+  private DescriptorSet current;
+  private DescriptorSet candidate;
+
+  @Setup
+  public void setup() throws Exception {
+    final StringBuilder message = new StringBuilder();
+    final StringBuilder enumValues = new StringBuilder();
+    for (int i = 1; i <= SIZE; i++) {
+      message.append(" int32 field_").append(i).append(" = ").append(i).append(';');
+      enumValues.append(" VALUE_").append(i).append(" = ").append(i).append(';');
+    }
+    final String content = "syntax = 'proto3'; package foo;"
+                           + " message Large {" + message + " }"
+                           + " enum LargeEnum { UNKNOWN = 0;" + enumValues + " }";
+    fileDescriptorSet = compile(content);
+    current = DescriptorSet.create(fileDescriptorSet, PATH::equals);
+    candidate = DescriptorSet.create(
+        compile(content.replace("int32 field_1 =", "int64 field_1 =")), PATH::equals);
+  }
+
+  @Benchmark
+  public DescriptorSet create() {
+    return DescriptorSet.create(fileDescriptorSet, PATH::equals);
+  }
+
+  @Benchmark
+  public HashCode createLazyAndHash() {
+    return DescriptorSet.builder(fileDescriptorSet, PATH::equals)
+        .lazy(true)
+        .build()
+        .fileDescriptors().get(0)
+        .sourceHash();
+  }
+
+  @Benchmark
+  public void compare(final Blackhole blackhole) {
+    DescriptorSet.compare(new BlackholeVisitor(blackhole), current, candidate);
+  }
+
+  @Benchmark
+  public void mapGrouping(final Blackhole blackhole) {
+    final MessageDescriptor a = current.fileDescriptors().get(0).findMessageByName("Large");
+    final MessageDescriptor b = candidate.fileDescriptors().get(0).findMessageByName("Large");
+    group(a.fields(), b.fields(), FieldDescriptor::number, blackhole);
+    group(a.oneofs(), b.oneofs(), OneofDescriptor::name, blackhole);
+    group(a.enumTypes(), b.enumTypes(), EnumDescriptor::name, blackhole);
+    group(a.nestedTypes(), b.nestedTypes(), MessageDescriptor::name, blackhole);
+
+    final EnumDescriptor x = current.fileDescriptors().get(0).findEnumByName("LargeEnum");
+    final EnumDescriptor y = candidate.fileDescriptors().get(0).findEnumByName("LargeEnum");
+    group(x.values(), y.values(), EnumValueDescriptor::number, blackhole);
+  }
+
+  private static <T, K> void group(final List<T> a, final List<T> b,
+                                   final Function<T, K> keyMapper, final Blackhole blackhole) {
+    final Map<K, T> aMap = a.stream().collect(toMap(keyMapper, d -> d));
+    final Map<K, T> bMap = b.stream().collect(toMap(keyMapper, d -> d));
+    Sets.union(aMap.keySet(), bMap.keySet())
+        .stream()
+        .map(key -> new SimpleImmutableEntry<>(aMap.get(key), bMap.get(key)))
+        .forEach(blackhole::consume);
+  }
+
+  private static DescriptorProtos.FileDescriptorSet compile(final String content)
+      throws Exception {
+    try (final DescriptorBuilder builder =
+             ProtocDescriptorBuilder.factoryBuilder().build().newDescriptorBuilder()) {
+      builder.setProtoFile(PATH, content);
+      return builder.buildDescriptor(Stream.of(PATH)).fileDescriptorSet();
+    }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+        .include(DescriptorSetBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build())
+        .run();
+  }
+
+  private static class BlackholeVisitor implements DescriptorSet.ComparingVisitor {
+
+    private final Blackhole blackhole;
+
+    private BlackholeVisitor(final Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public boolean visitUnchanged() {
+      return true;
+    }
+
+    @Override
+    public void visit(@Nullable final FieldDescriptor a, @Nullable final FieldDescriptor b,
+                      @Nullable final MessageDescriptor aMessage,
+                      @Nullable final MessageDescriptor bMessage) {
+      blackhole.consume(a);
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void visit(@Nullable final MessageDescriptor a, @Nullable final MessageDescriptor b) {
+      blackhole.consume(a);
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void visit(@Nullable final EnumDescriptor a, @Nullable final EnumDescriptor b) {
+      blackhole.consume(a);
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void visit(@Nullable final EnumValueDescriptor a, @Nullable final EnumValueDescriptor b,
+                      @Nullable final EnumDescriptor aEnum, @Nullable final EnumDescriptor bEnum) {
+      blackhole.consume(a);
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void visit(@Nullable final ServiceDescriptor a, @Nullable final ServiceDescriptor b) {
+      blackhole.consume(a);
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void visit(@Nullable final MethodDescriptor a, @Nullable final MethodDescriptor b) {
+      blackhole.consume(a);
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void visit(@Nullable final OneofDescriptor a, @Nullable final OneofDescriptor b) {
+      blackhole.consume(a);
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void visit(@Nullable final FileDescriptor a, @Nullable final FileDescriptor b) {
+      blackhole.consume(a);
+      blackhole.consume(b);
+    }
+  }
+}
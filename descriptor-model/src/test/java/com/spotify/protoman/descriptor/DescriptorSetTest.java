@@ -0,0 +1,283 @@
+/*-
+ * -\-\-
+ * protoman-descriptor-model
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.descriptor;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.DescriptorProtos;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.junit.Test;
+
+public class DescriptorSetTest {
+
+  private static final Path FOO = Paths.get("foo/foo.proto");
+  private static final Path BAR = Paths.get("bar/bar.proto");
+
+  private static final String FOO_CONTENT =
+      "syntax = 'proto3'; package foo;"
+      + " message Foo { string name = 1; message Nested { int32 x = 1; } }"
+      + " enum Kind { UNKNOWN = 0; }";
+  private static final String BAR_CONTENT =
+      "syntax = 'proto3'; package bar;"
+      + " message Bar { int32 id = 1; string name = 2; }"
+      + " service BarService { rpc Get (Bar) returns (Bar); }";
+
+  @Test
+  public void testCompareSkipsUnchangedSubtrees() throws Exception {
+    final DescriptorSet current = build(FOO_CONTENT, BAR_CONTENT);
+    final DescriptorSet candidate = build(
+        // Only comments change in foo
+        "// Foo\n" + FOO_CONTENT,
+        BAR_CONTENT.replace("string name = 2;", "string name = 2; int64 added = 3;"));
+
+    final RecordingVisitor visitor = new RecordingVisitor(false);
+    DescriptorSet.compare(visitor, current, candidate);
+
+    assertThat(visitor.visited, containsInAnyOrder(
+        "bar/bar.proto", "bar.Bar", "bar.Bar.added"));
+  }
+
+  @Test
+  public void testCompareVisitsEverythingOnRequest() throws Exception {
+    final DescriptorSet current = build(FOO_CONTENT, BAR_CONTENT);
+    final DescriptorSet candidate = build(FOO_CONTENT, BAR_CONTENT);
+
+    final RecordingVisitor visitor = new RecordingVisitor(true);
+    DescriptorSet.compare(visitor, current, candidate);
+
+    assertThat(visitor.visited, hasItems(
+        "foo/foo.proto", "foo.Foo", "foo.Foo.name", "foo.Foo.Nested", "foo.Foo.Nested.x",
+        "foo.Kind", "foo.Kind.UNKNOWN", "bar.Bar.id", "bar.BarService", "bar.BarService.Get"));
+  }
+
+  @Test
+  public void testParallelCompareMatchesSequential() throws Exception {
+    final StringBuilder foo = new StringBuilder("syntax = 'proto3'; package foo;");
+    for (int i = 0; i < 100; i++) {
+      foo.append(" message M").append(i).append(" { int32 x = 1; }");
+    }
+    final DescriptorSet current = build(foo.toString(), BAR_CONTENT);
+    final DescriptorSet candidate = build(
+        foo.toString().replace("int32 x = 1;", "int64 x = 1;"), FOO_CONTENT.replace("foo", "bar"));
+
+    final RecordingVisitor sequential = new RecordingVisitor(false);
+    DescriptorSet.compare(sequential, current, candidate);
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    final ImmutableList<RecordingVisitor> parallel = DescriptorSet.compareInParallel(
+        () -> new RecordingVisitor(false), current, candidate, pool);
+    pool.shutdown();
+
+    assertThat(parallel.size(), greaterThan(1));
+    assertThat(
+        parallel.stream().flatMap(visitor -> visitor.visited.stream()).collect(toList()),
+        equalTo(sequential.visited));
+  }
+
+  @Test
+  public void testLazyDescriptorSet() throws Exception {
+    final String bar = "syntax = 'proto3'; package bar; import 'foo/foo.proto';"
+                       + " message Bar { foo.Foo.Nested nested = 1; foo.Kind kind = 2; }";
+    final DescriptorSet eager = build(FOO_CONTENT, bar, false);
+    final DescriptorSet lazy = build(FOO_CONTENT, bar, true);
+
+    final MessageDescriptor barMessage =
+        lazy.findFileByPath(BAR).get().findMessageByName("Bar");
+    assertThat(barMessage.findFieldByNumber(1).messageType().fullName(),
+               equalTo("foo.Foo.Nested"));
+    assertThat(barMessage.findFieldByNumber(2).enumType(),
+               sameInstance(lazy.findFileByPath(FOO).get().findEnumByName("Kind")));
+    assertThat(lazy.findFileByPath(BAR).get().structuralHash(),
+               equalTo(eager.findFileByPath(BAR).get().structuralHash()));
+    assertThat(barMessage.structuralHash(),
+               equalTo(eager.findFileByPath(BAR).get().findMessageByName("Bar").structuralHash()));
+
+    final RecordingVisitor eagerVisitor = new RecordingVisitor(true);
+    DescriptorSet.compare(eagerVisitor, eager, build(FOO_CONTENT, BAR_CONTENT, false));
+    final RecordingVisitor lazyVisitor = new RecordingVisitor(true);
+    DescriptorSet.compare(lazyVisitor, lazy, build(FOO_CONTENT, BAR_CONTENT, true));
+    assertThat(lazyVisitor.visited, equalTo(eagerVisitor.visited));
+  }
+
+  @Test
+  public void testReuseUnchangedFiles() throws Exception {
+    final String bar = "syntax = 'proto3'; package bar; import 'foo/foo.proto';"
+                       + " message Bar { foo.Foo foo = 1; }";
+    final DescriptorSet base = build(FOO_CONTENT, bar, false);
+
+    final DescriptorSet barChanged = DescriptorSet.builder(
+        compile(FOO_CONTENT, bar.replace("foo = 1;", "foo = 1; int32 added = 2;")), path -> true)
+        .reuse(base)
+        .build();
+    assertThat(barChanged.findFileByPath(FOO).get(),
+               sameInstance(base.findFileByPath(FOO).get()));
+    assertThat(barChanged.findFileByPath(BAR).get(),
+               not(sameInstance(base.findFileByPath(BAR).get())));
+    assertThat(barChanged.findFileByPath(BAR).get()
+                   .findMessageByName("Bar").findFieldByNumber(1).messageType(),
+               sameInstance(base.findFileByPath(FOO).get().findMessageByName("Foo")));
+
+    // Bar is unchanged, but depends on a file that is not
+    final DescriptorSet fooChanged = DescriptorSet.builder(
+        compile("// Foo\n" + FOO_CONTENT, bar), path -> true)
+        .lazy(true)
+        .reuse(base)
+        .build();
+    assertThat(fooChanged.findFileByPath(FOO).get(),
+               not(sameInstance(base.findFileByPath(FOO).get())));
+    assertThat(fooChanged.findFileByPath(BAR).get(),
+               not(sameInstance(base.findFileByPath(BAR).get())));
+    assertThat(fooChanged.findFileByPath(BAR).get()
+                   .findMessageByName("Bar").findFieldByNumber(1).messageType(),
+               sameInstance(fooChanged.findFileByPath(FOO).get().findMessageByName("Foo")));
+  }
+
+  @Test
+  public void testParallelBuild() throws Exception {
+    // A tree of files, each importing its parent
+    final DescriptorProtos.FileDescriptorSet fds;
+    try (final DescriptorBuilder builder =
+             ProtocDescriptorBuilder.factoryBuilder().build().newDescriptorBuilder()) {
+      final List<Path> paths = new ArrayList<>();
+      for (int i = 0; i < 30; i++) {
+        final Path path = Paths.get("tree/file" + i + ".proto");
+        final String parent = i == 0 ? "" : "import 'tree/file" + (i - 1) / 2 + ".proto';";
+        final String field = i == 0 ? "" : "M" + (i - 1) / 2 + " parent = 1;";
+        builder.setProtoFile(path, "syntax = 'proto3'; package tree; " + parent
+                                   + " message M" + i + " { " + field + " }");
+        paths.add(path);
+      }
+      fds = builder.buildDescriptor(paths.stream()).fileDescriptorSet();
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    final DescriptorSet parallel = DescriptorSet.builder(fds, path -> true).parallel(pool).build();
+    pool.shutdown();
+    final DescriptorSet sequential = DescriptorSet.create(fds, path -> true);
+
+    assertThat(parallel.fileDescriptors().size(), equalTo(30));
+    for (int i = 1; i < 30; i++) {
+      final FileDescriptor file =
+          parallel.findFileByPath(Paths.get("tree/file" + i + ".proto")).get();
+      final FileDescriptor parent = file.dependencies().get(0);
+      assertThat(file.findMessageByName("M" + i).findFieldByNumber(1).messageType(),
+                 sameInstance(parent.findMessageByName("M" + (i - 1) / 2)));
+    }
+    final RecordingVisitor visitor = new RecordingVisitor(false);
+    DescriptorSet.compare(visitor, sequential, parallel);
+    assertThat(visitor.visited, empty());
+  }
+
+  private static DescriptorSet build(final String foo, final String bar) throws Exception {
+    return build(foo, bar, false);
+  }
+
+  private static DescriptorSet build(final String foo, final String bar, final boolean lazy)
+      throws Exception {
+    return DescriptorSet.builder(compile(foo, bar), path -> true).lazy(lazy).build();
+  }
+
+  private static DescriptorProtos.FileDescriptorSet compile(final String foo, final String bar)
+      throws Exception {
+    try (final DescriptorBuilder builder =
+             ProtocDescriptorBuilder.factoryBuilder().build().newDescriptorBuilder()) {
+      builder.setProtoFile(FOO, foo);
+      builder.setProtoFile(BAR, bar);
+      return builder.buildDescriptor(Stream.of(FOO, BAR)).fileDescriptorSet();
+    }
+  }
+
+  private static class RecordingVisitor implements DescriptorSet.ComparingVisitor {
+
+    private final boolean visitUnchanged;
+    private final List<String> visited = new ArrayList<>();
+
+    private RecordingVisitor(final boolean visitUnchanged) {
+      this.visitUnchanged = visitUnchanged;
+    }
+
+    @Override
+    public boolean visitUnchanged() {
+      return visitUnchanged;
+    }
+
+    private void record(@Nullable final GenericDescriptor a, @Nullable final GenericDescriptor b) {
+      visited.add((a != null ? a : b).fullName());
+    }
+
+    @Override
+    public void visit(@Nullable final FieldDescriptor a, @Nullable final FieldDescriptor b,
+                      @Nullable final MessageDescriptor aMessage,
+                      @Nullable final MessageDescriptor bMessage) {
+      record(a, b);
+    }
+
+    @Override
+    public void visit(@Nullable final MessageDescriptor a, @Nullable final MessageDescriptor b) {
+      record(a, b);
+    }
+
+    @Override
+    public void visit(@Nullable final EnumDescriptor a, @Nullable final EnumDescriptor b) {
+      record(a, b);
+    }
+
+    @Override
+    public void visit(@Nullable final EnumValueDescriptor a, @Nullable final EnumValueDescriptor b,
+                      @Nullable final EnumDescriptor aEnum, @Nullable final EnumDescriptor bEnum) {
+      record(a, b);
+    }
+
+    @Override
+    public void visit(@Nullable final ServiceDescriptor a, @Nullable final ServiceDescriptor b) {
+      record(a, b);
+    }
+
+    @Override
+    public void visit(@Nullable final MethodDescriptor a, @Nullable final MethodDescriptor b) {
+      record(a, b);
+    }
+
+    @Override
+    public void visit(@Nullable final OneofDescriptor a, @Nullable final OneofDescriptor b) {
+      record(a, b);
+    }
+
+    @Override
+    public void visit(@Nullable final FileDescriptor a, @Nullable final FileDescriptor b) {
+      record(a, b);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*-
+ * -\-\-
+ * protoman-descriptor-model
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.descriptor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class StructuralHashesTest {
+
+  private static final Path PATH = Paths.get("foo/foo.proto");
+
+  private static final String ORIGINAL =
+      "syntax = 'proto3';\n"
+      + "package foo;\n"
+      + "message Foo {\n"
+      + "  string name = 1;\n"
+      + "  Bar bar = 2;\n"
+      + "}\n"
+      + "message Bar {\n"
+      + "  int32 id = 1;\n"
+      + "}\n";
+
+  @Test
+  public void testCommentsOnlyChangeSourceHash() throws Exception {
+    final FileDescriptor original = build(ORIGINAL);
+    final FileDescriptor commented = build(
+        ORIGINAL.replace("message Foo {", "// A foo\nmessage Foo {"));
+
+    assertThat(commented.structuralHash(), equalTo(original.structuralHash()));
+    assertThat(commented.sourceHash(), not(equalTo(original.sourceHash())));
+    assertThat(commented.findMessageByName("Foo").structuralHash(),
+               equalTo(original.findMessageByName("Foo").structuralHash()));
+    assertThat(commented.findMessageByName("Foo").sourceHash(),
+               not(equalTo(original.findMessageByName("Foo").sourceHash())));
+  }
+
+  @Test
+  public void testChangesPropagateToParents() throws Exception {
+    final FileDescriptor original = build(ORIGINAL);
+    final FileDescriptor changed = build(ORIGINAL.replace("int32 id = 1;", "int64 id = 1;"));
+
+    assertThat(changed.structuralHash(), not(equalTo(original.structuralHash())));
+    assertThat(changed.findMessageByName("Bar").structuralHash(),
+               not(equalTo(original.findMessageByName("Bar").structuralHash())));
+    assertThat(changed.findMessageByName("Foo").structuralHash(),
+               equalTo(original.findMessageByName("Foo").structuralHash()));
+    assertThat(changed.findMessageByName("Foo").findFieldByNumber(2).structuralHash(),
+               equalTo(original.findMessageByName("Foo").findFieldByNumber(2).structuralHash()));
+  }
+
+  @Test
+  public void testMovingFieldsBetweenMessagesChangesHash() throws Exception {
+    final FileDescriptor original = build(
+        "syntax = 'proto3'; package foo;"
+        + " message A { message B { int32 x = 1; } } message C {}");
+    final FileDescriptor moved = build(
+        "syntax = 'proto3'; package foo;"
+        + " message A { message B {} int32 x = 1; } message C {}");
+
+    assertThat(moved.findMessageByName("A").structuralHash(),
+               not(equalTo(original.findMessageByName("A").structuralHash())));
+  }
+
+  private static FileDescriptor build(final String content) throws Exception {
+    try (final DescriptorBuilder builder =
+             ProtocDescriptorBuilder.factoryBuilder().build().newDescriptorBuilder()) {
+      builder.setProtoFile(PATH, content);
+      final DescriptorBuilder.Result result = builder.buildDescriptor(Stream.of(PATH));
+      return DescriptorSet.create(result.fileDescriptorSet(), PATH::equals)
+          .findFileByPath(PATH)
+          .get();
+    }
+  }
+}
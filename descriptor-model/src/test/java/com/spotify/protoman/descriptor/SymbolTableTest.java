@@ -0,0 +1,100 @@
+/*-
+ * -\-\-
+ * protoman-descriptor-model
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.descriptor;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class SymbolTableTest {
+
+  @Test
+  public void testInternAndLookup() {
+    final SymbolTable symbols = SymbolTable.create();
+    final int foo = symbols.internAll(SymbolTable.ROOT, "foo.bar");
+    final int message = symbols.intern(foo, "Foo");
+
+    assertThat(symbols.intern(foo, "Foo"), equalTo(message));
+    assertThat(symbols.internAll(SymbolTable.ROOT, "foo.bar"), equalTo(foo));
+    assertThat(symbols.lookup(SymbolTable.ROOT, "foo.bar.Foo"), equalTo(message));
+    assertThat(symbols.lookup(foo, "Foo"), equalTo(message));
+    assertThat(symbols.lookup(SymbolTable.ROOT, "foo.Foo"), equalTo(SymbolTable.NOT_FOUND));
+    assertThat(symbols.lookup(SymbolTable.ROOT, "bar"), equalTo(SymbolTable.NOT_FOUND));
+    assertThat(symbols.fullName(message), equalTo("foo.bar.Foo"));
+    assertThat(symbols.fullName(symbols.parent(message)), equalTo("foo.bar"));
+    assertThat(symbols.name(message), equalTo("Foo"));
+  }
+
+  @Test
+  public void testGrow() {
+    final SymbolTable symbols = SymbolTable.create();
+    int symbol = SymbolTable.ROOT;
+    for (int i = 0; i < 5000; i++) {
+      symbol = symbols.intern(symbol, "a");
+    }
+    assertThat(symbols.lookup(SymbolTable.ROOT, "a.a.a"),
+               equalTo(symbols.intern(symbols.intern(symbols.intern(SymbolTable.ROOT, "a"), "a"),
+                                      "a")));
+    assertThat(symbols.fullName(symbol).length(), equalTo(5000 * 2 - 1));
+  }
+
+  @Test
+  public void testPrefixesAreDistinct() {
+    final SymbolTable symbols = SymbolTable.create();
+    final int foo = symbols.intern(SymbolTable.ROOT, "foo");
+
+    assertThat(symbols.lookup(SymbolTable.ROOT, "fo"), equalTo(SymbolTable.NOT_FOUND));
+    assertThat(symbols.lookup(SymbolTable.ROOT, "fooo"), equalTo(SymbolTable.NOT_FOUND));
+    assertThat(symbols.internAll(SymbolTable.ROOT, "fo.foo"),
+               not(equalTo(symbols.intern(foo, "foo"))));
+  }
+
+  @Test
+  public void testConcurrentIntern() throws Exception {
+    final SymbolTable symbols = SymbolTable.create();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<List<Integer>>> results = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        results.add(executor.submit(() -> IntStream.range(0, 10000)
+            .mapToObj(i -> symbols.internAll(SymbolTable.ROOT, "pkg" + i % 100 + ".Type" + i))
+            .collect(toList())));
+      }
+      final List<Integer> first = results.get(0).get();
+      for (final Future<List<Integer>> result : results) {
+        assertThat(result.get(), equalTo(first));
+      }
+      assertThat(symbols.fullName(first.get(1234)), equalTo("pkg34.Type1234"));
+      assertThat(symbols.lookup(SymbolTable.ROOT, "pkg34.Type1234"), equalTo(first.get(1234)));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
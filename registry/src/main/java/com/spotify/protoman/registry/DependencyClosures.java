@@ -0,0 +1,172 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadOnlyTransaction;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Transitive import closures of the packages in a snapshot.
+ *
+ * Every path in the snapshot is given a dense integer id and imports are stored as arrays of ids.
+ * The closure of a package is computed once, on first use, as a {@link BitSet} of ids, so
+ * resolving the dependencies of any number of packages after that is a handful of bitwise ORs.
+ * Only the closures of packages with files in the snapshot are kept.
+ */
+final class DependencyClosures {
+
+  private final long snapshotVersion;
+  private final ImmutableList<Path> paths;
+  private final ImmutableMap<Path, Integer> ids;
+  // Ids of the direct imports of every path, indexed by path id
+  private final int[][] dependencies;
+  // Directories of the stored files, the only packages a closure is kept for
+  private final ImmutableSet<Path> packagePaths;
+  private final Map<Path, BitSet> packageClosures = new ConcurrentHashMap<>();
+
+  private DependencyClosures(final long snapshotVersion,
+                             final ImmutableList<Path> paths,
+                             final ImmutableMap<Path, Integer> ids,
+                             final int[][] dependencies,
+                             final ImmutableSet<Path> packagePaths) {
+    this.snapshotVersion = snapshotVersion;
+    this.paths = paths;
+    this.ids = ids;
+    this.dependencies = dependencies;
+    this.packagePaths = packagePaths;
+  }
+
+  /**
+   * Index the imports of all files in the snapshot the transaction was opened at.
+   */
+  static DependencyClosures create(final long snapshotVersion, final ReadOnlyTransaction tx) {
+    // Imports may point outside of the stored files, give those ids too
+    final Map<Path, ImmutableSet<Path>> dependencies = new HashMap<>();
+    final TreeSet<Path> allPaths = new TreeSet<>(tx.contentHashes().keySet());
+    for (final Path path : tx.contentHashes().keySet()) {
+      final ImmutableSet<Path> deps = tx.getDependencies(path).collect(toImmutableSet());
+      dependencies.put(path, deps);
+      allPaths.addAll(deps);
+    }
+
+    final ImmutableList<Path> paths = ImmutableList.copyOf(allPaths);
+    final ImmutableMap.Builder<Path, Integer> ids = ImmutableMap.builder();
+    for (int id = 0; id < paths.size(); id++) {
+      ids.put(paths.get(id), id);
+    }
+    final ImmutableMap<Path, Integer> pathIds = ids.build();
+
+    final int[][] dependencyIds = new int[paths.size()][];
+    for (int id = 0; id < paths.size(); id++) {
+      dependencyIds[id] = dependencies.getOrDefault(paths.get(id), ImmutableSet.of()).stream()
+          .mapToInt(pathIds::get)
+          .toArray();
+    }
+    final ImmutableSet<Path> packagePaths = tx.contentHashes().keySet().stream()
+        .map(Path::getParent)
+        .filter(Objects::nonNull)
+        .collect(toImmutableSet());
+    return new DependencyClosures(snapshotVersion, paths, pathIds, dependencyIds, packagePaths);
+  }
+
+  long snapshotVersion() {
+    return snapshotVersion;
+  }
+
+  /**
+   * Paths of the files in the given packages and all files they transitively import.
+   *
+   * @param protosForPackage Paths of the files in a package, only called once per package.
+   */
+  ImmutableList<Path> resolve(
+      final Collection<String> packages,
+      final Function<String, ? extends Collection<Path>> protosForPackage) {
+    final BitSet resolved = new BitSet(paths.size());
+    for (final String pkg : packages) {
+      final Path packagePath = Paths.get(pkg.replaceAll("\\.", "/"));
+      if (packagePaths.contains(packagePath)) {
+        resolved.or(packageClosures.computeIfAbsent(
+            packagePath, p -> closure(protosForPackage.apply(pkg))));
+      }
+    }
+    return resolved.stream()
+        .mapToObj(paths::get)
+        .collect(toImmutableList());
+  }
+
+  private BitSet closure(final Collection<Path> roots) {
+    final BitSet closure = new BitSet(paths.size());
+    final IntStack stack = new IntStack();
+    for (final Path root : roots) {
+      final Integer id = ids.get(root);
+      if (id != null && !closure.get(id)) {
+        closure.set(id);
+        stack.push(id);
+      }
+    }
+    while (!stack.isEmpty()) {
+      for (final int dependency : dependencies[stack.pop()]) {
+        if (!closure.get(dependency)) {
+          closure.set(dependency);
+          stack.push(dependency);
+        }
+      }
+    }
+    return closure;
+  }
+
+  private static final class IntStack {
+
+    private int[] elements = new int[16];
+    private int size;
+
+    void push(final int element) {
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, size * 2);
+      }
+      elements[size++] = element;
+    }
+
+    int pop() {
+      return elements[--size];
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+  }
+}
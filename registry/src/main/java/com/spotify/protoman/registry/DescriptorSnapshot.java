@@ -0,0 +1,118 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableSortedMap.toImmutableSortedMap;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Ordering;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Compiled descriptors of all files in a snapshot, indexed by file name and package.
+ */
+@AutoValue
+public abstract class DescriptorSnapshot {
+
+  public abstract long snapshotVersion();
+
+  public abstract DescriptorProtos.FileDescriptorSet fileDescriptorSet();
+
+  /**
+   * All files ordered by name.
+   */
+  public abstract ImmutableSortedMap<String, FileDescriptorProto> filesByName();
+
+  abstract ImmutableListMultimap<String, String> fileNamesByPackage();
+
+  public static DescriptorSnapshot create(
+      final long snapshotVersion,
+      final DescriptorProtos.FileDescriptorSet fileDescriptorSet) {
+    return new AutoValue_DescriptorSnapshot(
+        snapshotVersion,
+        fileDescriptorSet,
+        fileDescriptorSet.getFileList().stream()
+            .collect(toImmutableSortedMap(
+                Ordering.natural(), FileDescriptorProto::getName, Function.identity())),
+        fileDescriptorSet.getFileList().stream()
+            .collect(toImmutableListMultimap(
+                FileDescriptorProto::getPackage, FileDescriptorProto::getName))
+    );
+  }
+
+  /**
+   * Descriptors of the files in the given packages and everything they transitively import, in
+   * the same dependency order as {@link #fileDescriptorSet()}. Empty if any of the packages is not
+   * declared by any file.
+   */
+  public Optional<DescriptorProtos.FileDescriptorSet> packageDescriptors(
+      final Collection<String> pkgs) {
+    final Set<String> closure = new HashSet<>();
+    final Queue<String> q = new ArrayDeque<>();
+    for (final String pkg : pkgs) {
+      final ImmutableList<String> packageFiles = fileNamesByPackage().get(pkg);
+      if (packageFiles.isEmpty()) {
+        return Optional.empty();
+      }
+      q.addAll(packageFiles);
+    }
+
+    while (!q.isEmpty()) {
+      final String name = q.poll();
+      final FileDescriptorProto file = filesByName().get(name);
+      if (file != null && closure.add(name)) {
+        q.addAll(file.getDependencyList());
+      }
+    }
+
+    return Optional.of(DescriptorProtos.FileDescriptorSet.newBuilder()
+        .addAllFile(fileDescriptorSet().getFileList().stream()
+            .filter(file -> closure.contains(file.getName()))
+            .collect(toImmutableList()))
+        .build());
+  }
+
+  /**
+   * Up to {@code limit} files ordered by name, starting after the file named {@code after}, or
+   * from the first file if null.
+   */
+  public ImmutableList<FileDescriptorProto> page(@Nullable final String after, final int limit) {
+    final ImmutableSortedMap<String, FileDescriptorProto> files =
+        after == null ? filesByName() : filesByName().tailMap(after, false);
+    return files.values().stream()
+        .limit(limit)
+        .collect(toImmutableList());
+  }
+}
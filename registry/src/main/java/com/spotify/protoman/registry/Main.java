@@ -27,13 +27,18 @@ import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
+import com.spotify.protoman.SchemaRegistryGrpc;
 import com.spotify.protoman.descriptor.ProtocDescriptorBuilder;
 import com.spotify.protoman.registry.http.CORSFilter;
+import com.spotify.protoman.registry.http.ProtobufBinaryCodec;
 import com.spotify.protoman.registry.http.ProtobufJsonCodec;
 import com.spotify.protoman.registry.http.SchemaResource;
+import com.spotify.protoman.registry.storage.FollowerSchemaStorage;
 import com.spotify.protoman.registry.storage.GcsSchemaStorage;
+import com.spotify.protoman.registry.storage.MvStoreSchemaStorage;
 import com.spotify.protoman.registry.storage.SchemaStorage;
 import com.spotify.protoman.validation.DefaultSchemaValidator;
+import io.grpc.ManagedChannelBuilder;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
 import java.io.IOException;
@@ -41,6 +46,7 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.ws.rs.core.UriBuilder;
@@ -63,14 +69,30 @@ public class Main {
   private static final int HTTP_PORT = 8080;
   private static final String BUCKET_NAME = firstNonNull(
       System.getenv("PROTOMAN_BUCKET"), "protoman");
+  // When set, schemata are stored in a local embedded database instead of GCS
+  private static final String LOCAL_STORAGE_PATH = System.getenv("PROTOMAN_LOCAL_STORAGE");
+  // When set, the registry runs as a read-only follower of the storage
+  private static final boolean FOLLOWER =
+      Boolean.parseBoolean(System.getenv("PROTOMAN_FOLLOWER"));
+  // Address (host:port) of the writer that followers forward publish requests to. Publish
+  // requests are rejected by followers if not set.
+  private static final String WRITER_ADDRESS = System.getenv("PROTOMAN_WRITER_ADDRESS");
+  private static final Duration FOLLOWER_POLL_INTERVAL = Duration.ofSeconds(5);
+  // Local commits are noticed immediately, this picks up commits made by other instances
+  private static final Duration WATCH_POLL_INTERVAL = Duration.ofSeconds(1);
 
   public static void main(final String... args) throws IOException {
-    final SchemaRegistry schemaRegistry = createSchemaRegistry();
-
-    final SchemaRegistryService registryService = SchemaRegistryService.create(
-        schemaRegistry,
-        schemaRegistry
-    );
+    final SchemaStorage schemaStorage = createSchemaStorage();
+    final SchemaRegistry schemaRegistry = createSchemaRegistry(schemaStorage);
+    final SchemaWatcher schemaWatcher = SchemaWatcher.create(schemaStorage, WATCH_POLL_INTERVAL);
+    schemaRegistry.addCommitListener(snapshotVersion -> schemaWatcher.poll());
+    final SchemaDiffer schemaDiffer = SchemaDiffer.create(
+        schemaStorage, ProtocDescriptorBuilder.factoryBuilder().build());
+
+    final SchemaRegistryService registryService = FOLLOWER
+        ? SchemaRegistryService.createFollower(
+            schemaRegistry, schemaWatcher, schemaDiffer, writerStub())
+        : SchemaRegistryService.create(schemaRegistry, schemaRegistry, schemaWatcher, schemaDiffer);
     final SchemaProtodocService protodocService = SchemaProtodocService.create(
         schemaRegistry
     );
@@ -79,6 +101,7 @@ public class Main {
         .forPort(GRPC_PORT)
         .addService(registryService)
         .addService(protodocService)
+        .addService(SchemaReflectionService.create(schemaRegistry))
         .intercept(new LoggingServerInterceptor())
         .build();
 
@@ -88,7 +111,7 @@ public class Main {
     SLF4JBridgeHandler.removeHandlersForRootLogger();
     SLF4JBridgeHandler.install();
 
-    final ResourceConfig rc = resourceConfig(schemaRegistry);
+    final ResourceConfig rc = resourceConfig(schemaRegistry, schemaWatcher, schemaDiffer);
     // static files
     final Path staticFilePath = staticFilesPathFromEnv();
     logger.info("Loading static files from " + staticFilePath);
@@ -108,12 +131,7 @@ public class Main {
     }
   }
 
-  private static SchemaRegistry createSchemaRegistry() {
-
-    final Storage gcsStorage = StorageOptions.getDefaultInstance().getService();
-
-    final SchemaStorage schemaStorage = GcsSchemaStorage.create(gcsStorage, BUCKET_NAME);
-
+  private static SchemaRegistry createSchemaRegistry(final SchemaStorage schemaStorage) {
     return SchemaRegistry.create(
         schemaStorage,
         DefaultSchemaValidator.withDefaultRules(),
@@ -123,6 +141,34 @@ public class Main {
   }
 
 
+  private static SchemaStorage createSchemaStorage() {
+    if (FOLLOWER) {
+      logger.info("Running as follower");
+      return FollowerSchemaStorage.create(createUpstreamSchemaStorage(), FOLLOWER_POLL_INTERVAL);
+    }
+    return createUpstreamSchemaStorage();
+  }
+
+  private static SchemaStorage createUpstreamSchemaStorage() {
+    if (!Strings.isNullOrEmpty(LOCAL_STORAGE_PATH)) {
+      logger.info("Using local schema storage " + LOCAL_STORAGE_PATH);
+      return MvStoreSchemaStorage.create(Paths.get(LOCAL_STORAGE_PATH));
+    }
+
+    final Storage gcsStorage = StorageOptions.getDefaultInstance().getService();
+    return GcsSchemaStorage.create(gcsStorage, BUCKET_NAME);
+  }
+
+  private static SchemaRegistryGrpc.SchemaRegistryStub writerStub() {
+    if (Strings.isNullOrEmpty(WRITER_ADDRESS)) {
+      logger.info("No writer configured, rejecting publish requests");
+      return null;
+    }
+    logger.info("Forwarding publish requests to " + WRITER_ADDRESS);
+    return SchemaRegistryGrpc.newStub(
+        ManagedChannelBuilder.forTarget(WRITER_ADDRESS).usePlaintext(true).build());
+  }
+
   static class IndexFallbackStaticHttpHandler extends StaticHttpHandler {
 
     private IndexFallbackStaticHttpHandler(final String... docRoots) {
@@ -182,12 +228,15 @@ public class Main {
     httpServer.start();
   }
 
-  private static ResourceConfig resourceConfig(SchemaRegistry schemaRegistry) {
+  private static ResourceConfig resourceConfig(SchemaRegistry schemaRegistry,
+                                               SchemaWatcher schemaWatcher,
+                                               SchemaDiffer schemaDiffer) {
     return new ResourceConfig()
         .setApplicationName("protoman")
         .register(ProtobufJsonCodec.class)
+        .register(ProtobufBinaryCodec.class)
         .register(CORSFilter.class)
-        .register(SchemaResource.create(schemaRegistry));
+        .register(SchemaResource.create(schemaRegistry, schemaWatcher, schemaDiffer));
   }
 
   private static Path staticFilesPathFromEnv() {
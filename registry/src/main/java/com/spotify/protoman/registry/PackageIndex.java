@@ -0,0 +1,120 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Sorted package names of a snapshot, answering prefix queries with binary search.
+ */
+public final class PackageIndex {
+
+  private final long snapshotVersion;
+  private final String[] packageNames;
+
+  private PackageIndex(final long snapshotVersion, final String[] packageNames) {
+    this.snapshotVersion = snapshotVersion;
+    this.packageNames = packageNames;
+  }
+
+  public static PackageIndex create(final long snapshotVersion,
+                                    final Collection<String> packageNames) {
+    final String[] sorted = packageNames.stream().distinct().toArray(String[]::new);
+    Arrays.sort(sorted);
+    return new PackageIndex(snapshotVersion, sorted);
+  }
+
+  public long snapshotVersion() {
+    return snapshotVersion;
+  }
+
+  /**
+   * The remainder of every package name starting with {@code prefix}, in order. The prefix is
+   * matched as a string, "foo" matches both "foo.bar" and "foobar".
+   */
+  public ImmutableList<String> subPackages(final String prefix) {
+    final ImmutableList.Builder<String> subPackages = ImmutableList.builder();
+    for (int i = lowerBound(prefix); i < packageNames.length; i++) {
+      if (!packageNames[i].startsWith(prefix)) {
+        break;
+      }
+      subPackages.add(packageNames[i].substring(prefix.length()));
+    }
+    return subPackages.build();
+  }
+
+  /**
+   * The immediate children of a package in the package hierarchy. The package itself need not
+   * exist, and the children of the empty package are the top-level names.
+   * E.g. the children of "foo" given the packages "foo.bar", "foo.bar.baz" and "foo.qux.quux" are
+   * "bar", with two packages, and "qux", with one.
+   *
+   * Runs in time proportional to the number of children, not the number of packages below them.
+   */
+  public ImmutableList<Child> children(final String pkg) {
+    final String prefix = pkg.isEmpty() ? "" : pkg + ".";
+    final ImmutableList.Builder<Child> children = ImmutableList.builder();
+    int i = lowerBound(prefix);
+    while (i < packageNames.length && packageNames[i].startsWith(prefix)) {
+      final int end = packageNames[i].indexOf('.', prefix.length());
+      final String child = prefix + (end < 0
+                                     ? packageNames[i].substring(prefix.length())
+                                     : packageNames[i].substring(prefix.length(), end));
+      // Packages below the child are a contiguous range, '/' is the character after '.'. Other
+      // children, e.g. "<child>-x", may sort between the child itself and that range.
+      final int belowFrom = lowerBound(child + ".");
+      final int belowTo = lowerBound(child + "/");
+      final boolean exists = packageNames[i].equals(child);
+      if (exists || Arrays.binarySearch(packageNames, child) < 0) {
+        children.add(Child.create(
+            child.substring(prefix.length()), (exists ? 1 : 0) + belowTo - belowFrom));
+      }
+      i = exists ? i + 1 : belowTo;
+    }
+    return children.build();
+  }
+
+  /**
+   * Index of the first package name not less than {@code key}.
+   */
+  private int lowerBound(final String key) {
+    final int index = Arrays.binarySearch(packageNames, key);
+    return index >= 0 ? index : -index - 1;
+  }
+
+  @AutoValue
+  public abstract static class Child {
+
+    public abstract String name();
+
+    /**
+     * Number of packages that are the child or below it.
+     */
+    public abstract int packageCount();
+
+    static Child create(final String name, final int packageCount) {
+      return new AutoValue_PackageIndex_Child(name, packageCount);
+    }
+  }
+}
@@ -0,0 +1,345 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.protobuf.Message;
+import com.spotify.protoman.ChangeType;
+import com.spotify.protoman.DescriptorChange;
+import com.spotify.protoman.PackageChange;
+import com.spotify.protoman.PathChange;
+import com.spotify.protoman.SchemaDiff;
+import com.spotify.protoman.descriptor.DescriptorBuilder;
+import com.spotify.protoman.descriptor.DescriptorBuilderException;
+import com.spotify.protoman.descriptor.DescriptorSet;
+import com.spotify.protoman.descriptor.EnumDescriptor;
+import com.spotify.protoman.descriptor.EnumValueDescriptor;
+import com.spotify.protoman.descriptor.FieldDescriptor;
+import com.spotify.protoman.descriptor.FileDescriptor;
+import com.spotify.protoman.descriptor.GenericDescriptor;
+import com.spotify.protoman.descriptor.MessageDescriptor;
+import com.spotify.protoman.descriptor.MethodDescriptor;
+import com.spotify.protoman.descriptor.OneofDescriptor;
+import com.spotify.protoman.descriptor.ServiceDescriptor;
+import com.spotify.protoman.registry.storage.SchemaStorage;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadOnlyTransaction;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Differences between two snapshots of a {@link SchemaStorage}.
+ *
+ * Paths and package versions are diffed on the indexes of the snapshots alone, content hashes
+ * telling which files changed. Only the changed files, and what they import, are fetched and
+ * compiled to diff descriptors. Snapshots never change, so diffs are memoized by generation pair.
+ */
+public class SchemaDiffer {
+
+  private final SchemaStorage schemaStorage;
+  private final DescriptorBuilder.Factory descriptorBuilderFactory;
+  // Concurrent requests for the same pair wait for a single computation
+  private final Cache<String, SchemaDiff> diffs = CacheBuilder.newBuilder()
+      .maximumSize(256)
+      .build();
+
+  private SchemaDiffer(final SchemaStorage schemaStorage,
+                       final DescriptorBuilder.Factory descriptorBuilderFactory) {
+    this.schemaStorage = Objects.requireNonNull(schemaStorage);
+    this.descriptorBuilderFactory = Objects.requireNonNull(descriptorBuilderFactory);
+  }
+
+  public static SchemaDiffer create(final SchemaStorage schemaStorage,
+                                    final DescriptorBuilder.Factory descriptorBuilderFactory) {
+    return new SchemaDiffer(schemaStorage, descriptorBuilderFactory);
+  }
+
+  /**
+   * Differences between two snapshots. A from generation of 0 or less denotes the empty
+   * snapshot, a to generation of 0 or less the latest snapshot.
+   *
+   * @throws IllegalArgumentException if the from generation is after the to generation.
+   * @throws NoSuchElementException if either generation is not a snapshot.
+   */
+  public SchemaDiff diff(final long fromGeneration, final long toGeneration) {
+    final long from = Math.max(fromGeneration, 0);
+    final long to = toGeneration(toGeneration);
+    if (from > to) {
+      throw new IllegalArgumentException(
+          "from generation " + from + " is after to generation " + to);
+    }
+    for (final long generation : new long[]{from, to}) {
+      if (!hasGeneration(generation)) {
+        throw new NoSuchElementException("Unknown generation: " + generation);
+      }
+    }
+    try {
+      return diffs.get(from + ":" + to, () -> computeDiff(from, to));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * The generation a to generation of a diff denotes: itself, or the latest snapshot if it is 0
+   * or less.
+   */
+  public long toGeneration(final long toGeneration) {
+    return toGeneration > 0 ? toGeneration : schemaStorage.getLatestSnapshotVersion();
+  }
+
+  /**
+   * True if a diff can start or end at the generation, i.e. it is a snapshot or the empty
+   * snapshot.
+   */
+  public boolean hasGeneration(final long generation) {
+    return generation <= 0 || schemaStorage.hasSnapshotVersion(generation);
+  }
+
+  private SchemaDiff computeDiff(final long from, final long to) {
+    try (final ReadOnlyTransaction fromTx = from > 0 ? schemaStorage.open(from) : null;
+         final ReadOnlyTransaction toTx = schemaStorage.open(to)) {
+      final SchemaDiff.Builder diff = SchemaDiff.newBuilder()
+          .setGeneration(to)
+          .setPreviousGeneration(from);
+
+      final ImmutableMap<Path, HashCode> fromHashes =
+          fromTx != null ? fromTx.contentHashes() : ImmutableMap.of();
+      final ImmutableMap<Path, HashCode> toHashes = toTx.contentHashes();
+      final ImmutableSet<Path> changedPaths = changes(fromHashes, toHashes, (path, type) ->
+          diff.addPathChange(PathChange.newBuilder()
+              .setPath(path.toString())
+              .setType(type)));
+
+      final ImmutableMap<String, SchemaVersion> fromVersions =
+          fromTx != null ? fromTx.allPackageVersions() : ImmutableMap.of();
+      final ImmutableMap<String, SchemaVersion> toVersions = toTx.allPackageVersions();
+      changes(fromVersions, toVersions, (pkg, type) -> {
+        final PackageChange.Builder change = PackageChange.newBuilder()
+            .setPackage(pkg)
+            .setType(type);
+        if (fromVersions.containsKey(pkg)) {
+          change.setPreviousVersion(schemaVersionToProto(fromVersions.get(pkg)));
+        }
+        if (toVersions.containsKey(pkg)) {
+          change.setVersion(schemaVersionToProto(toVersions.get(pkg)));
+        }
+        diff.addPackageChange(change);
+      });
+
+      if (!changedPaths.isEmpty()) {
+        // Large diffs, e.g. from the empty snapshot, span the whole registry
+        DescriptorSet.compareInParallel(
+            CollectingVisitor::new,
+            compileChanged(fromTx, fromHashes, changedPaths),
+            compileChanged(toTx, toHashes, changedPaths),
+            ForkJoinPool.commonPool()
+        ).forEach(visitor -> diff.addAllDescriptorChange(visitor.changes.build()));
+      }
+      return diff.build();
+    }
+  }
+
+  /**
+   * Keys whose value differs between the maps, in order. The callback is called for each.
+   */
+  private static <K extends Comparable<K>, V> ImmutableSet<K> changes(
+      final ImmutableMap<K, V> from,
+      final ImmutableMap<K, V> to,
+      final ChangeCallback<K> callback) {
+    final ImmutableSortedSet<K> changed = Sets.union(from.keySet(), to.keySet()).stream()
+        .filter(key -> !Objects.equals(from.get(key), to.get(key)))
+        .collect(ImmutableSortedSet.toImmutableSortedSet(Comparator.naturalOrder()));
+    changed.forEach(key -> callback.accept(
+        key,
+        !from.containsKey(key) ? ChangeType.ADDED
+        : !to.containsKey(key) ? ChangeType.REMOVED
+        : ChangeType.MODIFIED));
+    return changed;
+  }
+
+  /**
+   * Descriptors of the changed files present in the snapshot. Only those files and their
+   * transitive imports are fetched.
+   */
+  private DescriptorSet compileChanged(@Nullable final ReadOnlyTransaction tx,
+                                       final ImmutableMap<Path, HashCode> contentHashes,
+                                       final ImmutableSet<Path> changedPaths) {
+    final ImmutableSet<Path> roots = changedPaths.stream()
+        .filter(contentHashes::containsKey)
+        .collect(toImmutableSet());
+    if (tx == null || roots.isEmpty()) {
+      return DescriptorSet.empty();
+    }
+
+    final Set<Path> closure = new HashSet<>(roots);
+    final Deque<Path> queue = new ArrayDeque<>(roots);
+    while (!queue.isEmpty()) {
+      tx.getDependencies(queue.remove()).forEach(dependency -> {
+        // Imports outside of the stored files, e.g. of well-known types, are provided by protoc
+        if (contentHashes.containsKey(dependency) && closure.add(dependency)) {
+          queue.add(dependency);
+        }
+      });
+    }
+
+    try (final DescriptorBuilder descriptorBuilder =
+             descriptorBuilderFactory.newDescriptorBuilder()) {
+      for (final Path path : closure) {
+        descriptorBuilder.setProtoFile(path, tx.schemaFile(path).content());
+      }
+      final DescriptorBuilder.Result result = descriptorBuilder.buildDescriptor(roots.stream());
+      if (result.compilationError() != null) {
+        throw new IllegalStateException(
+            "Failed to compile stored schemata: " + result.compilationError());
+      }
+      // Dependencies and unchanged parts of changed files are never looked at
+      return DescriptorSet.builder(result.fileDescriptorSet(), roots::contains)
+          .lazy(true)
+          .build();
+    } catch (DescriptorBuilderException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static com.spotify.protoman.SchemaVersion schemaVersionToProto(final SchemaVersion v) {
+    return com.spotify.protoman.SchemaVersion.newBuilder()
+        .setMajor(v.major())
+        .setMinor(v.minor())
+        .setPatch(v.patch())
+        .build();
+  }
+
+  private interface ChangeCallback<K> {
+
+    void accept(K key, ChangeType type);
+  }
+
+  /**
+   * Collects a change for every descriptor added, removed or modified. Descriptors with children
+   * are compared without them, a changed field does not also report its message as modified.
+   */
+  private static final class CollectingVisitor implements DescriptorSet.ComparingVisitor {
+
+    private final ImmutableList.Builder<DescriptorChange> changes = ImmutableList.builder();
+
+    @Override
+    public void visit(@Nullable final FieldDescriptor a, @Nullable final FieldDescriptor b,
+                      @Nullable final MessageDescriptor aMessage,
+                      @Nullable final MessageDescriptor bMessage) {
+      collect(a, b, DescriptorChange.Kind.FIELD, FieldDescriptor::toProto);
+    }
+
+    @Override
+    public void visit(@Nullable final MessageDescriptor a, @Nullable final MessageDescriptor b) {
+      collect(a, b, DescriptorChange.Kind.MESSAGE, d -> d.toProto().toBuilder()
+          .clearField()
+          .clearNestedType()
+          .clearEnumType()
+          .clearOneofDecl()
+          .build());
+    }
+
+    @Override
+    public void visit(@Nullable final EnumDescriptor a, @Nullable final EnumDescriptor b) {
+      collect(a, b, DescriptorChange.Kind.ENUM_TYPE,
+          d -> d.toProto().toBuilder().clearValue().build());
+    }
+
+    @Override
+    public void visit(@Nullable final EnumValueDescriptor a, @Nullable final EnumValueDescriptor b,
+                      @Nullable final EnumDescriptor aEnum, @Nullable final EnumDescriptor bEnum) {
+      collect(a, b, DescriptorChange.Kind.ENUM_VALUE, EnumValueDescriptor::toProto);
+    }
+
+    @Override
+    public void visit(@Nullable final ServiceDescriptor a, @Nullable final ServiceDescriptor b) {
+      collect(a, b, DescriptorChange.Kind.SERVICE,
+          d -> d.toProto().toBuilder().clearMethod().build());
+    }
+
+    @Override
+    public void visit(@Nullable final MethodDescriptor a, @Nullable final MethodDescriptor b) {
+      collect(a, b, DescriptorChange.Kind.METHOD, MethodDescriptor::toProto);
+    }
+
+    @Override
+    public void visit(@Nullable final OneofDescriptor a, @Nullable final OneofDescriptor b) {
+      collect(a, b, DescriptorChange.Kind.ONEOF, OneofDescriptor::toProto);
+    }
+
+    @Override
+    public void visit(@Nullable final FileDescriptor a, @Nullable final FileDescriptor b) {
+      // Comments are in the source code info, changes to them show as path changes only
+      collect(a, b, DescriptorChange.Kind.FILE, d -> d.toProto().toBuilder()
+          .clearMessageType()
+          .clearEnumType()
+          .clearService()
+          .clearSourceCodeInfo()
+          .build());
+    }
+
+    private <T extends GenericDescriptor> void collect(
+        @Nullable final T a,
+        @Nullable final T b,
+        final DescriptorChange.Kind kind,
+        final Function<T, Message> withoutChildren) {
+      final ChangeType type;
+      if (a == null) {
+        type = ChangeType.ADDED;
+      } else if (b == null) {
+        type = ChangeType.REMOVED;
+      } else if (!withoutChildren.apply(a).equals(withoutChildren.apply(b))) {
+        type = ChangeType.MODIFIED;
+      } else {
+        return;
+      }
+      final GenericDescriptor descriptor = b != null ? b : a;
+      changes.add(DescriptorChange.newBuilder()
+          .setFullName(descriptor.fullName())
+          .setKind(kind)
+          .setType(type)
+          .setPath(descriptor.file().name())
+          .build());
+    }
+  }
+}
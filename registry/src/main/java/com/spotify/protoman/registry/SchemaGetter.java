@@ -20,7 +20,10 @@
 
 package com.spotify.protoman.registry;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 import com.google.common.collect.ImmutableList;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 public interface SchemaGetter {
@@ -28,5 +31,36 @@ public interface SchemaGetter {
   // TODO(staffan): Should allow getting packages at specific versions
   Stream<SchemaFile> getSchemataForPackages(ImmutableList<String> protoPackages);
 
+  default CompletableFuture<ImmutableList<SchemaFile>> getSchemataForPackagesAsync(
+      final ImmutableList<String> protoPackages) {
+    try {
+      return CompletableFuture.completedFuture(
+          getSchemataForPackages(protoPackages).collect(toImmutableList()));
+    } catch (RuntimeException e) {
+      final CompletableFuture<ImmutableList<SchemaFile>> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+  }
+
   Stream<String> getPackageNames();
+
+  /**
+   * Names of all packages in the latest snapshot, indexed for prefix queries.
+   */
+  default PackageIndex getPackageIndex() {
+    return PackageIndex.create(0, getPackageNames().collect(toImmutableList()));
+  }
+
+  /**
+   * Symbols and comments of the latest snapshot, indexed for search.
+   */
+  default SearchIndex getSearchIndex() {
+    return SearchIndex.create(descriptorSnapshot());
+  }
+
+  /**
+   * Compiled descriptors of the latest snapshot.
+   */
+  DescriptorSnapshot descriptorSnapshot();
 }
@@ -23,17 +23,22 @@ package com.spotify.protoman.registry;
 import com.spotify.protoman.SchemaProtodocGrpc;
 import com.spotify.protoman.GetSubPackagesRequest;
 import com.spotify.protoman.GetSubPackagesResponse;
+import com.spotify.protoman.SearchRequest;
+import com.spotify.protoman.SearchResponse;
+import com.spotify.protoman.SubPackage;
 
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 public class SchemaProtodocService extends SchemaProtodocGrpc.SchemaProtodocImplBase {
   private static final Logger logger = LoggerFactory.getLogger(SchemaProtodocService.class);
 
+  static final int DEFAULT_SEARCH_LIMIT = 20;
+  // Same as the limit of GET /api/search
+  static final int MAX_SEARCH_LIMIT = 1000;
+
   private final SchemaGetter schemaGetter;
 
   private SchemaProtodocService(final SchemaGetter schemaGetter) {
@@ -50,14 +55,16 @@ public class SchemaProtodocService extends SchemaProtodocGrpc.SchemaProtodocImpl
     try {
       final GetSubPackagesResponse.Builder responseBuilder = GetSubPackagesResponse.newBuilder();
       final String requestPackageName = request.getPackageName();
+      final PackageIndex packageIndex = schemaGetter.getPackageIndex();
 
-      final List<String> subPackageNames = schemaGetter
-          .getPackageNames()
-          .filter(name -> name.startsWith(requestPackageName))
-          .map(name -> name.substring(requestPackageName.length()))
-          .collect(Collectors.toList());
-
-      responseBuilder.addAllSubPackageName(subPackageNames);
+      if (request.getChildrenOnly()) {
+        packageIndex.children(requestPackageName).forEach(child ->
+            responseBuilder.addChild(SubPackage.newBuilder()
+                .setName(child.name())
+                .setPackageCount(child.packageCount())));
+      } else {
+        responseBuilder.addAllSubPackageName(packageIndex.subPackages(requestPackageName));
+      }
       responseObserver.onNext(responseBuilder.build());
       responseObserver.onCompleted();
     } catch (final Exception e) {
@@ -65,4 +72,28 @@ public class SchemaProtodocService extends SchemaProtodocGrpc.SchemaProtodocImpl
       responseObserver.onError(e);
     }
   }
+
+  @Override
+  public void search(final SearchRequest request,
+                     final StreamObserver<SearchResponse> responseObserver) {
+    if (request.getLimit() > MAX_SEARCH_LIMIT) {
+      responseObserver.onError(Status.INVALID_ARGUMENT
+          .withDescription("limit must not be greater than " + MAX_SEARCH_LIMIT)
+          .asRuntimeException());
+      return;
+    }
+    try {
+      final SearchIndex searchIndex = schemaGetter.getSearchIndex();
+      final int limit = request.getLimit() > 0 ? request.getLimit() : DEFAULT_SEARCH_LIMIT;
+
+      responseObserver.onNext(SearchResponse.newBuilder()
+          .addAllResult(searchIndex.search(request.getQuery(), limit))
+          .setGeneration(searchIndex.snapshotVersion())
+          .build());
+      responseObserver.onCompleted();
+    } catch (final Exception e) {
+      logger.error("Failed to search: {}", e.toString(), e);
+      responseObserver.onError(e);
+    }
+  }
 }
@@ -0,0 +1,298 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableTable;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.MethodDescriptorProto;
+import com.google.protobuf.DescriptorProtos.OneofDescriptorProto;
+import com.google.protobuf.DescriptorProtos.ServiceDescriptorProto;
+import io.grpc.Status;
+import io.grpc.reflection.v1alpha.ErrorResponse;
+import io.grpc.reflection.v1alpha.ExtensionNumberResponse;
+import io.grpc.reflection.v1alpha.ExtensionRequest;
+import io.grpc.reflection.v1alpha.FileDescriptorResponse;
+import io.grpc.reflection.v1alpha.ListServiceResponse;
+import io.grpc.reflection.v1alpha.ServerReflectionGrpc;
+import io.grpc.reflection.v1alpha.ServerReflectionRequest;
+import io.grpc.reflection.v1alpha.ServerReflectionResponse;
+import io.grpc.reflection.v1alpha.ServiceResponse;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves the schemata in the registry, rather than the services of the registry itself, through
+ * the gRPC server reflection protocol.
+ *
+ * Lookups are answered from a symbol index built once per snapshot. A file is returned together
+ * with the files it transitively imports.
+ */
+public class SchemaReflectionService extends ServerReflectionGrpc.ServerReflectionImplBase {
+
+  private static final Logger logger = LoggerFactory.getLogger(SchemaReflectionService.class);
+
+  private final SchemaGetter schemaGetter;
+  private final AtomicReference<SymbolIndex> symbolIndex = new AtomicReference<>();
+  private final SingleFlight singleFlight = SingleFlight.create();
+
+  private SchemaReflectionService(final SchemaGetter schemaGetter) {
+    this.schemaGetter = Objects.requireNonNull(schemaGetter);
+  }
+
+  public static SchemaReflectionService create(final SchemaGetter schemaGetter) {
+    return new SchemaReflectionService(schemaGetter);
+  }
+
+  @Override
+  public StreamObserver<ServerReflectionRequest> serverReflectionInfo(
+      final StreamObserver<ServerReflectionResponse> responseObserver) {
+    return new StreamObserver<ServerReflectionRequest>() {
+      @Override
+      public void onNext(final ServerReflectionRequest request) {
+        final ServerReflectionResponse response;
+        try {
+          response = respond(request);
+        } catch (Exception e) {
+          logger.error("serverReflectionInfo: {}", e.toString(), e);
+          responseObserver.onError(e);
+          return;
+        }
+        responseObserver.onNext(response);
+      }
+
+      @Override
+      public void onError(final Throwable t) {
+        logger.debug("serverReflectionInfo: {}", t.toString());
+      }
+
+      @Override
+      public void onCompleted() {
+        responseObserver.onCompleted();
+      }
+    };
+  }
+
+  private ServerReflectionResponse respond(final ServerReflectionRequest request) {
+    final SymbolIndex index = symbolIndex();
+    final ServerReflectionResponse.Builder response = ServerReflectionResponse.newBuilder()
+        .setValidHost(request.getHost())
+        .setOriginalRequest(request);
+
+    switch (request.getMessageRequestCase()) {
+      case FILE_BY_FILENAME:
+        return fileResponse(response, index, request.getFileByFilename());
+      case FILE_CONTAINING_SYMBOL:
+        return fileResponse(response, index,
+            index.symbolFiles.get(request.getFileContainingSymbol()));
+      case FILE_CONTAINING_EXTENSION: {
+        final ExtensionRequest extension = request.getFileContainingExtension();
+        return fileResponse(response, index, index.extensionFiles.get(
+            extension.getContainingType(), extension.getExtensionNumber()));
+      }
+      case ALL_EXTENSION_NUMBERS_OF_TYPE: {
+        final String type = request.getAllExtensionNumbersOfType();
+        if (!index.symbolFiles.containsKey(type)) {
+          return errorResponse(response, Status.NOT_FOUND, "Type not found: " + type);
+        }
+        return response.setAllExtensionNumbersResponse(ExtensionNumberResponse.newBuilder()
+            .setBaseTypeName(type)
+            .addAllExtensionNumber(index.extensionFiles.row(type).keySet()))
+            .build();
+      }
+      case LIST_SERVICES: {
+        final ListServiceResponse.Builder services = ListServiceResponse.newBuilder();
+        index.services.forEach(
+            service -> services.addService(ServiceResponse.newBuilder().setName(service)));
+        return response.setListServicesResponse(services).build();
+      }
+      default:
+        return errorResponse(response, Status.UNIMPLEMENTED,
+            "Unsupported request: " + request.getMessageRequestCase());
+    }
+  }
+
+  private static ServerReflectionResponse fileResponse(
+      final ServerReflectionResponse.Builder response,
+      final SymbolIndex index,
+      final String fileName) {
+    if (fileName == null || !index.files.containsKey(fileName)) {
+      return errorResponse(response, Status.NOT_FOUND, "File not found");
+    }
+
+    final FileDescriptorResponse.Builder files = FileDescriptorResponse.newBuilder();
+    final Set<String> seen = new LinkedHashSet<>();
+    final Queue<String> q = new ArrayDeque<>();
+    q.add(fileName);
+    while (!q.isEmpty()) {
+      final String name = q.poll();
+      final FileDescriptorProto file = index.files.get(name);
+      if (file != null && seen.add(name)) {
+        files.addFileDescriptorProto(index.serialized(file));
+        q.addAll(file.getDependencyList());
+      }
+    }
+    return response.setFileDescriptorResponse(files).build();
+  }
+
+  private static ServerReflectionResponse errorResponse(
+      final ServerReflectionResponse.Builder response,
+      final Status status,
+      final String message) {
+    return response.setErrorResponse(ErrorResponse.newBuilder()
+        .setErrorCode(status.getCode().value())
+        .setErrorMessage(message))
+        .build();
+  }
+
+  private SymbolIndex symbolIndex() {
+    final DescriptorSnapshot snapshot = schemaGetter.descriptorSnapshot();
+    final SymbolIndex cached = symbolIndex.get();
+    if (cached != null && cached.snapshotVersion == snapshot.snapshotVersion()) {
+      return cached;
+    }
+    final SymbolIndex index = singleFlight.get(
+        ImmutableList.of("symbolIndex", snapshot.snapshotVersion()),
+        () -> new SymbolIndex(snapshot));
+    // Never replace the index of a newer snapshot
+    symbolIndex.accumulateAndGet(
+        index,
+        (current, update) -> current == null || current.snapshotVersion < update.snapshotVersion
+                             ? update
+                             : current);
+    return index;
+  }
+
+  private static final class SymbolIndex {
+
+    private final long snapshotVersion;
+    private final ImmutableMap<String, FileDescriptorProto> files;
+    // Fully qualified name of every service, method, message, oneof, enum, enum value and field
+    // -> file name
+    private final ImmutableMap<String, String> symbolFiles;
+    // Extended type, extension field number -> file name
+    private final ImmutableTable<String, Integer, String> extensionFiles;
+    private final ImmutableList<String> services;
+    private final Map<String, ByteString> serialized = new ConcurrentHashMap<>();
+
+    private SymbolIndex(final DescriptorSnapshot snapshot) {
+      snapshotVersion = snapshot.snapshotVersion();
+      files = snapshot.filesByName();
+
+      final Map<String, String> symbolFiles = new HashMap<>();
+      final ImmutableTable.Builder<String, Integer, String> extensionFiles =
+          ImmutableTable.builder();
+      final ImmutableList.Builder<String> services = ImmutableList.builder();
+      for (final FileDescriptorProto file : files.values()) {
+        final String name = file.getName();
+        final String prefix = file.getPackage().isEmpty() ? "" : file.getPackage() + ".";
+        for (final ServiceDescriptorProto service : file.getServiceList()) {
+          final String serviceName = prefix + service.getName();
+          services.add(serviceName);
+          symbolFiles.put(serviceName, name);
+          for (final MethodDescriptorProto method : service.getMethodList()) {
+            symbolFiles.put(serviceName + "." + method.getName(), name);
+          }
+        }
+        indexMessages(name, prefix, file.getMessageTypeList(), symbolFiles, extensionFiles);
+        indexEnums(name, prefix, file.getEnumTypeList(), symbolFiles);
+        indexFields(name, prefix, file.getExtensionList(), symbolFiles, extensionFiles);
+      }
+      this.symbolFiles = ImmutableMap.copyOf(symbolFiles);
+      this.extensionFiles = extensionFiles.build();
+      this.services = services.build();
+    }
+
+    private ByteString serialized(final FileDescriptorProto file) {
+      return serialized.computeIfAbsent(file.getName(), name -> file.toByteString());
+    }
+
+    private static void indexMessages(
+        final String fileName,
+        final String prefix,
+        final List<DescriptorProto> messages,
+        final Map<String, String> symbolFiles,
+        final ImmutableTable.Builder<String, Integer, String> extensionFiles) {
+      for (final DescriptorProto message : messages) {
+        final String messageName = prefix + message.getName();
+        symbolFiles.put(messageName, fileName);
+        final String nestedPrefix = messageName + ".";
+        for (final OneofDescriptorProto oneof : message.getOneofDeclList()) {
+          symbolFiles.put(nestedPrefix + oneof.getName(), fileName);
+        }
+        indexFields(fileName, nestedPrefix, message.getFieldList(), symbolFiles, extensionFiles);
+        indexFields(
+            fileName, nestedPrefix, message.getExtensionList(), symbolFiles, extensionFiles);
+        indexEnums(fileName, nestedPrefix, message.getEnumTypeList(), symbolFiles);
+        indexMessages(
+            fileName, nestedPrefix, message.getNestedTypeList(), symbolFiles, extensionFiles);
+      }
+    }
+
+    private static void indexEnums(final String fileName,
+                                   final String prefix,
+                                   final List<EnumDescriptorProto> enums,
+                                   final Map<String, String> symbolFiles) {
+      for (final EnumDescriptorProto enumType : enums) {
+        final String enumName = prefix + enumType.getName();
+        symbolFiles.put(enumName, fileName);
+        for (final EnumValueDescriptorProto value : enumType.getValueList()) {
+          // protoc scopes enum values as siblings of their enum, the Java runtime within it
+          symbolFiles.put(prefix + value.getName(), fileName);
+          symbolFiles.put(enumName + "." + value.getName(), fileName);
+        }
+      }
+    }
+
+    private static void indexFields(
+        final String fileName,
+        final String prefix,
+        final List<FieldDescriptorProto> fields,
+        final Map<String, String> symbolFiles,
+        final ImmutableTable.Builder<String, Integer, String> extensionFiles) {
+      for (final FieldDescriptorProto field : fields) {
+        symbolFiles.put(prefix + field.getName(), fileName);
+        if (field.hasExtendee()) {
+          // Type names in compiled descriptors are fully qualified with a leading dot
+          extensionFiles.put(
+              field.getExtendee().replaceFirst("^\\.", ""), field.getNumber(), fileName);
+        }
+      }
+    }
+  }
+}
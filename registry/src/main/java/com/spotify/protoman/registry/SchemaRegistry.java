@@ -28,8 +28,8 @@ import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import com.google.protobuf.DescriptorProtos;
 import com.spotify.protoman.descriptor.DescriptorBuilder;
 import com.spotify.protoman.descriptor.DescriptorBuilderException;
@@ -41,15 +41,16 @@ import com.spotify.protoman.registry.storage.SchemaStorage.ReadOnlyTransaction;
 import com.spotify.protoman.validation.SchemaValidator;
 import com.spotify.protoman.validation.ValidationViolation;
 import java.nio.file.Path;
-import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -64,6 +65,14 @@ public class SchemaRegistry implements SchemaPublisher, SchemaGetter {
   private final SchemaValidator schemaValidator;
   private final SchemaVersioner schemaVersioner;
   private final DescriptorBuilder.Factory descriptorBuilderFactory;
+  private final AtomicReference<DescriptorSnapshot> descriptorSnapshot = new AtomicReference<>();
+  private final AtomicReference<DependencyClosures> dependencyClosures = new AtomicReference<>();
+  private final AtomicReference<PackageIndex> packageIndex = new AtomicReference<>();
+  private final AtomicReference<SearchIndex> searchIndex = new AtomicReference<>();
+  // Concurrent identical requests, e.g. from every client right after a publish, share one
+  // protoc run or dependency resolution
+  private final SingleFlight singleFlight = SingleFlight.create();
+  private final List<LongConsumer> commitListeners = new CopyOnWriteArrayList<>();
 
   private SchemaRegistry(final SchemaStorage schemaStorage,
                          final SchemaValidator schemaValidator,
@@ -129,7 +138,8 @@ public class SchemaRegistry implements SchemaPublisher, SchemaGetter {
           updatePackageVersions(tx, currentDs, candidateDs);
 
       if (!dryRun) {
-        tx.commit();
+        final long snapshotVersion = tx.commit();
+        commitListeners.forEach(listener -> listener.accept(snapshotVersion));
       }
 
       return PublishResult.create(violations, publishedPackages);
@@ -138,25 +148,42 @@ public class SchemaRegistry implements SchemaPublisher, SchemaGetter {
     }
   }
 
-  private ImmutableSet<Path> resolveDependencies(final ReadOnlyTransaction tx,
-                                                 final ImmutableSet<Path> paths) {
-
-    final Set<Path> resultPaths = Sets.newHashSet();
-    final Set<Path> resolvedPaths = Sets.newHashSet();
-    final Queue<Path> q = new ArrayDeque<>();
-    q.addAll(paths);
-
-    while (!q.isEmpty()) {
-      final Path path = q.poll();
-      if (resolvedPaths.add(path)) {
-        resultPaths.add(path);
-        final ImmutableSet<Path> deps = tx.getDependencies(path)
-            .collect(toImmutableSet());
-        q.addAll(deps);
-        logger.debug("deps path={} deps={}", path, deps);
-      }
+  /**
+   * Register a listener called with the new snapshot version after every publish commit.
+   */
+  public void addCommitListener(final LongConsumer listener) {
+    commitListeners.add(Objects.requireNonNull(listener));
+  }
+
+  /**
+   * Import closures of the snapshot the transaction was opened at. Built at most once per
+   * snapshot version.
+   */
+  private DependencyClosures dependencyClosures(final long snapshotVersion,
+                                                final ReadOnlyTransaction tx) {
+    final DependencyClosures cached = dependencyClosures.get();
+    if (cached != null && cached.snapshotVersion() == snapshotVersion) {
+      return cached;
     }
-    return ImmutableSet.copyOf(resultPaths);
+    return singleFlight.get(ImmutableList.of("closures", snapshotVersion), () -> {
+      final DependencyClosures closures = DependencyClosures.create(snapshotVersion, tx);
+      // Never replace the closures of a newer snapshot computed concurrently
+      dependencyClosures.accumulateAndGet(closures, (current, update) ->
+          current == null || update.snapshotVersion() > current.snapshotVersion()
+          ? update
+          : current);
+      return closures;
+    });
+  }
+
+  private ImmutableList<Path> resolveDependencies(final long snapshotVersion,
+                                                  final ReadOnlyTransaction tx,
+                                                  final ImmutableList<String> protoPackages) {
+    final ImmutableList<Path> dependencies = dependencyClosures(snapshotVersion, tx).resolve(
+        protoPackages,
+        protoPackage -> tx.protosForPackage(protoPackage).collect(toImmutableList()));
+    logger.debug("deps pkgs={}, dependencies={}", protoPackages, dependencies);
+    return dependencies;
   }
 
   private BuildDescriptorsResult buildDescriptorSets(final ReadOnlyTransaction tx,
@@ -213,7 +240,8 @@ public class SchemaRegistry implements SchemaPublisher, SchemaGetter {
 
       @Nullable final DescriptorSet currentDs = createFilteredDescriptorSet(
           currentResult.fileDescriptorSet(),
-          updatedPaths
+          updatedPaths,
+          DescriptorSet.empty()
       );
 
       // Build DescriptorSet for the updated files
@@ -230,7 +258,8 @@ public class SchemaRegistry implements SchemaPublisher, SchemaGetter {
       );
       @Nullable final DescriptorSet candidateDs = createFilteredDescriptorSet(
           candidateResult.fileDescriptorSet(),
-          updatedPaths
+          updatedPaths,
+          currentDs != null ? currentDs : DescriptorSet.empty()
       );
 
       return BuildDescriptorsResult.create(
@@ -247,13 +276,20 @@ public class SchemaRegistry implements SchemaPublisher, SchemaGetter {
    * E.g. if given file descriptor set contains descriptors for a.proto, b.proto but {@code
    * includedPaths} only contains a.proto then the resulting {@link DescriptorSet} will only
    * contain a.proto.
+   *
+   * Files that are unchanged from {@code base}, dependencies included, are shared with it.
    */
   private static @Nullable
   DescriptorSet createFilteredDescriptorSet(
       @Nullable final DescriptorProtos.FileDescriptorSet fileDescriptorSet,
-      final ImmutableSet<Path> includedPaths) {
+      final ImmutableSet<Path> includedPaths,
+      final DescriptorSet base) {
+    // Lazy, since validation, versioning and storing only look inside files that changed
     return fileDescriptorSet != null
-           ? DescriptorSet.create(fileDescriptorSet, includedPaths::contains)
+           ? DescriptorSet.builder(fileDescriptorSet, includedPaths::contains)
+               .lazy(true)
+               .reuse(base)
+               .build()
            : null;
   }
 
@@ -310,44 +346,145 @@ public class SchemaRegistry implements SchemaPublisher, SchemaGetter {
       final Optional<FileDescriptor> candidateFd =
           candidate.findFileByPath(schemaFile.path());
 
-      return !Objects.equals(
-          currentFd.get().toProto(),
-          candidateFd.map(FileDescriptor::toProto).orElse(null)
-      );
+      return !candidateFd.isPresent()
+             || !currentFd.get().sourceHash().equals(candidateFd.get().sourceHash());
     });
   }
 
   @Override
   public Stream<SchemaFile> getSchemataForPackages(final ImmutableList<String> protoPackages) {
-    final ImmutableList<SchemaFile> schemaFiles;
-    try (final ReadOnlyTransaction tx = schemaStorage.open()) {
+    final long snapshotVersion = schemaStorage.getLatestSnapshotVersion();
+    final ImmutableList<SchemaFile> schemaFiles = singleFlight.get(
+        schemaKey(snapshotVersion, protoPackages), () -> {
+          try (final ReadOnlyTransaction tx = schemaStorage.open(snapshotVersion)) {
+            return resolveDependencies(snapshotVersion, tx, protoPackages).stream()
+                .map(path -> tx.schemaFile(path))
+                .collect(toImmutableList());
+          }
+        });
+    return schemaFiles.stream();
+  }
 
-      final ImmutableSet<Path> protoPaths = protoPackages.stream()
-          .flatMap(protoPackage -> tx.protosForPackage(protoPackage))
-          .collect(toImmutableSet());
+  @Override
+  public CompletableFuture<ImmutableList<SchemaFile>> getSchemataForPackagesAsync(
+      final ImmutableList<String> protoPackages) {
+    return schemaStorage.getLatestSnapshotVersionAsync().thenCompose(
+        snapshotVersion -> singleFlight.getAsync(
+            schemaKey(snapshotVersion, protoPackages),
+            () -> schemataForPackagesAsync(snapshotVersion, protoPackages)));
+  }
 
-      logger.debug("deps pkgs={}, initial={}", protoPackages, protoPaths);
-      final ImmutableSet<Path> dependencies = resolveDependencies(tx, protoPaths);
-      logger.debug("dependencies={}", dependencies);
+  private CompletableFuture<ImmutableList<SchemaFile>> schemataForPackagesAsync(
+      final long snapshotVersion,
+      final ImmutableList<String> protoPackages) {
+    return schemaStorage.openAsync(snapshotVersion).thenCompose(tx -> {
+      final CompletableFuture<ImmutableList<SchemaFile>> schemaFiles;
+      try {
+        final ImmutableList<CompletableFuture<SchemaFile>> files =
+            resolveDependencies(snapshotVersion, tx, protoPackages).stream()
+                .map(tx::schemaFileAsync)
+                .collect(toImmutableList());
+        schemaFiles = CompletableFuture.allOf(files.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> files.stream()
+                .map(CompletableFuture::join)
+                .collect(toImmutableList()));
+      } catch (RuntimeException e) {
+        tx.close();
+        throw e;
+      }
+      return schemaFiles.whenComplete((files, throwable) -> tx.close());
+    });
+  }
 
-      schemaFiles = dependencies.stream()
-          .map(path -> tx.schemaFile(path))
-          .collect(toImmutableList());
-    }
-    return schemaFiles.stream();
+  private static Object schemaKey(final long snapshotVersion,
+                                  final ImmutableList<String> protoPackages) {
+    // The result does not depend on the order of the packages
+    return ImmutableList.of("schema", snapshotVersion, ImmutableSortedSet.copyOf(protoPackages));
   }
 
   @Override
   public Stream<String> getPackageNames() {
-    final ReadOnlyTransaction tx = schemaStorage.open();
-    return tx.allPackageVersions().keySet().stream();
+    try (final ReadOnlyTransaction tx = schemaStorage.open()) {
+      return tx.allPackageVersions().keySet().stream();
+    }
+  }
+
+  /**
+   * Package names of the latest snapshot. Indexed at most once per snapshot version.
+   */
+  @Override
+  public PackageIndex getPackageIndex() {
+    final long snapshotVersion = schemaStorage.getLatestSnapshotVersion();
+    final PackageIndex cached = packageIndex.get();
+    if (cached != null && cached.snapshotVersion() == snapshotVersion) {
+      return cached;
+    }
+
+    return singleFlight.get(ImmutableList.of("packages", snapshotVersion), () -> {
+      final PackageIndex index;
+      try (final ReadOnlyTransaction tx = schemaStorage.open(snapshotVersion)) {
+        index = PackageIndex.create(snapshotVersion, tx.allPackageVersions().keySet());
+      }
+      packageIndex.accumulateAndGet(index, (current, update) ->
+          current == null || update.snapshotVersion() > current.snapshotVersion()
+          ? update
+          : current);
+      return index;
+    });
+  }
+
+  /**
+   * Search index of the latest snapshot. Built at most once per snapshot version.
+   */
+  @Override
+  public SearchIndex getSearchIndex() {
+    final DescriptorSnapshot snapshot = descriptorSnapshot();
+    final SearchIndex cached = searchIndex.get();
+    if (cached != null && cached.snapshotVersion() == snapshot.snapshotVersion()) {
+      return cached;
+    }
+
+    return singleFlight.get(ImmutableList.of("search", snapshot.snapshotVersion()), () -> {
+      final SearchIndex index = SearchIndex.create(snapshot);
+      searchIndex.accumulateAndGet(index, (current, update) ->
+          current == null || update.snapshotVersion() > current.snapshotVersion()
+          ? update
+          : current);
+      return index;
+    });
   }
 
   public DescriptorProtos.FileDescriptorSet allDescriptors() {
-    // Paths of all updated files
-    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+    return descriptorSnapshot().fileDescriptorSet();
+  }
+
+  /**
+   * Compiled descriptors of all files in the latest snapshot. Compilation happens at most once per
+   * snapshot version.
+   */
+  @Override
+  public DescriptorSnapshot descriptorSnapshot() {
+    final long snapshotVersion = schemaStorage.getLatestSnapshotVersion();
+    final DescriptorSnapshot cached = descriptorSnapshot.get();
+    if (cached != null && cached.snapshotVersion() == snapshotVersion) {
+      return cached;
+    }
+
+    return singleFlight.get(ImmutableList.of("descriptors", snapshotVersion), () -> {
+      final DescriptorSnapshot snapshot = compileDescriptors(snapshotVersion);
+      // Never replace the descriptors of a newer snapshot compiled concurrently
+      descriptorSnapshot.accumulateAndGet(snapshot, (current, update) ->
+          current == null || update.snapshotVersion() > current.snapshotVersion()
+          ? update
+          : current);
+      return snapshot;
+    });
+  }
+
+  private DescriptorSnapshot compileDescriptors(final long snapshotVersion) {
+    try (final ReadOnlyTransaction tx = schemaStorage.open(snapshotVersion)) {
 
-      final Stream<SchemaFile> allFiles = tx.fetchAllFiles();
+      final Stream<SchemaFile> allFiles = tx.fetchAllFilesAsync().join().stream();
 
       final List<Path> paths = Lists.newArrayList();
 
@@ -360,7 +497,7 @@ public class SchemaRegistry implements SchemaPublisher, SchemaGetter {
         }
 
         final DescriptorBuilder.Result result = descriptorBuilder.buildDescriptor(paths.stream());
-        return result.fileDescriptorSet();
+        return DescriptorSnapshot.create(snapshotVersion, result.fileDescriptorSet());
       }
     } catch (DescriptorBuilderException e) {
       throw new RuntimeException(e);
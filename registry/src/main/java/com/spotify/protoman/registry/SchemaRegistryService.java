@@ -22,21 +22,38 @@ package com.spotify.protoman.registry;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.spotify.protoman.DiffSchemaRequest;
 import com.spotify.protoman.Error;
 import com.spotify.protoman.FilePosition;
+import com.spotify.protoman.GetDescriptorSetRequest;
+import com.spotify.protoman.GetDescriptorSetResponse;
 import com.spotify.protoman.GetSchemaRequest;
 import com.spotify.protoman.GetSchemaResponse;
 import com.spotify.protoman.ProtoFile;
 import com.spotify.protoman.PublishSchemaRequest;
 import com.spotify.protoman.PublishSchemaResponse;
 import com.spotify.protoman.PublishedPackage;
+import com.spotify.protoman.SchemaChange;
+import com.spotify.protoman.SchemaDiff;
 import com.spotify.protoman.SchemaRegistryGrpc;
+import com.spotify.protoman.WatchSchemaRequest;
 import com.spotify.protoman.descriptor.GenericDescriptor;
 import com.spotify.protoman.descriptor.SourceCodeInfo;
 import com.spotify.protoman.validation.ValidationViolation;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,23 +62,62 @@ public class SchemaRegistryService extends SchemaRegistryGrpc.SchemaRegistryImpl
 
   private static final Logger logger = LoggerFactory.getLogger(SchemaRegistryService.class);
 
-  private final SchemaPublisher schemaPublisher;
+  @Nullable private final SchemaPublisher schemaPublisher;
   private final SchemaGetter schemaGetter;
+  private final SchemaWatcher schemaWatcher;
+  private final SchemaDiffer schemaDiffer;
+  @Nullable private final SchemaRegistryGrpc.SchemaRegistryStub writer;
+  // Responses keyed by snapshot version and request. Entries of older snapshots are never hit
+  // again and age out.
+  private final Cache<String, GetDescriptorSetResponse> descriptorSets = CacheBuilder.newBuilder()
+      .maximumSize(256)
+      .build();
 
-  private SchemaRegistryService(final SchemaPublisher schemaPublisher,
-                                final SchemaGetter schemaGetter) {
+  private SchemaRegistryService(@Nullable final SchemaPublisher schemaPublisher,
+                                final SchemaGetter schemaGetter,
+                                final SchemaWatcher schemaWatcher,
+                                final SchemaDiffer schemaDiffer,
+                                @Nullable final SchemaRegistryGrpc.SchemaRegistryStub writer) {
     this.schemaPublisher = schemaPublisher;
     this.schemaGetter = schemaGetter;
+    this.schemaWatcher = schemaWatcher;
+    this.schemaDiffer = schemaDiffer;
+    this.writer = writer;
   }
 
   public static SchemaRegistryService create(final SchemaPublisher schemaPublisher,
-                                             final SchemaGetter schemaGetter) {
-    return new SchemaRegistryService(schemaPublisher, schemaGetter);
+                                             final SchemaGetter schemaGetter,
+                                             final SchemaWatcher schemaWatcher,
+                                             final SchemaDiffer schemaDiffer) {
+    return new SchemaRegistryService(
+        schemaPublisher, schemaGetter, schemaWatcher, schemaDiffer, null);
+  }
+
+  /**
+   * Create a service for a read replica. Publish requests are forwarded to the writer, or
+   * rejected if no writer is given.
+   */
+  public static SchemaRegistryService createFollower(
+      final SchemaGetter schemaGetter,
+      final SchemaWatcher schemaWatcher,
+      final SchemaDiffer schemaDiffer,
+      @Nullable final SchemaRegistryGrpc.SchemaRegistryStub writer) {
+    return new SchemaRegistryService(null, schemaGetter, schemaWatcher, schemaDiffer, writer);
   }
 
   @Override
   public void publishSchema(final PublishSchemaRequest request,
                             final StreamObserver<PublishSchemaResponse> responseObserver) {
+    if (writer != null) {
+      writer.publishSchema(request, responseObserver);
+      return;
+    }
+    if (schemaPublisher == null) {
+      responseObserver.onError(Status.FAILED_PRECONDITION
+          .withDescription("This registry instance is a read-only follower")
+          .asRuntimeException());
+      return;
+    }
     try {
       final PublishSchemaResponse.Builder responseBuilder = PublishSchemaResponse.newBuilder();
 
@@ -115,27 +171,122 @@ public class SchemaRegistryService extends SchemaRegistryGrpc.SchemaRegistryImpl
   @Override
   public void getSchema(final GetSchemaRequest request,
                         final StreamObserver<GetSchemaResponse> responseObserver) {
-    try {
-      // TODO(staffan): Have some to handle expected errors. E.g. if the request package does not
-      // exist
+    // TODO(staffan): Have some to handle expected errors. E.g. if the request package does not
+    // exist
+    schemaGetter.getSchemataForPackagesAsync(request.getRequestList().stream()
+        .map(GetSchemaRequest.RequestedPackage::getPackage)
+        .collect(toImmutableList())
+    ).whenComplete((schemaFiles, throwable) -> {
+      if (throwable != null) {
+        final Throwable cause = throwable instanceof CompletionException
+                                && throwable.getCause() != null
+                                ? throwable.getCause()
+                                : throwable;
+        logger.error("getSchema: {}", cause.toString(), cause);
+        // TODO(staffan): Return errors in some sane way?
+        // We encountered an unexpected error. E.g. we couldn't run protoc at all because we're out
+        // of disk.
+        responseObserver.onError(cause);
+        return;
+      }
       final GetSchemaResponse.Builder responseBuilder = GetSchemaResponse.newBuilder();
-      schemaGetter.getSchemataForPackages(request.getRequestList().stream()
-          .map(GetSchemaRequest.RequestedPackage::getPackage)
-          .collect(toImmutableList())
-      ).map(SchemaRegistryService::schemaFileToProto)
+      schemaFiles.stream()
+          .map(SchemaRegistryService::schemaFileToProto)
           .forEach(responseBuilder::addProtoFile);
       responseObserver.onNext(responseBuilder.build());
       responseObserver.onCompleted();
+    });
+  }
+
+  @Override
+  public void getDescriptorSet(final GetDescriptorSetRequest request,
+                               final StreamObserver<GetDescriptorSetResponse> responseObserver) {
+    final GetDescriptorSetResponse response;
+    try {
+      final DescriptorSnapshot snapshot = schemaGetter.descriptorSnapshot();
+      final ImmutableSortedSet<String> packages =
+          ImmutableSortedSet.copyOf(request.getPackageList());
+      final boolean excludeSourceCodeInfo = request.getExcludeSourceCodeInfo();
+      final String key = snapshot.snapshotVersion() + " " + excludeSourceCodeInfo + " "
+                         + String.join(",", packages);
+      response = descriptorSets.get(key, () -> GetDescriptorSetResponse.newBuilder()
+          .setFileDescriptorSet(descriptorSet(snapshot, packages, excludeSourceCodeInfo))
+          .setGeneration(snapshot.snapshotVersion())
+          .build());
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (!(cause instanceof StatusRuntimeException)) {
+        logger.error("getDescriptorSet: {}", cause.toString(), cause);
+      }
+      responseObserver.onError(cause);
+      return;
     } catch (Exception e) {
-      logger.error("getSchema: {}", e.toString(), e);
-      // TODO(staffan): Return errors in some sane way?
-      // We encountered an unexpected error. E.g. we couldn't run protoc at all because we're out
-      // of disk.
+      logger.error("getDescriptorSet: {}", e.toString(), e);
       responseObserver.onError(e);
+      return;
     }
+    responseObserver.onNext(response);
+    responseObserver.onCompleted();
   }
 
+  private static FileDescriptorSet descriptorSet(final DescriptorSnapshot snapshot,
+                                                 final ImmutableSortedSet<String> packages,
+                                                 final boolean excludeSourceCodeInfo) {
+    final FileDescriptorSet fileDescriptorSet = snapshot.packageDescriptors(packages)
+        .orElseThrow(() -> Status.NOT_FOUND
+            .withDescription("Unknown package in " + packages)
+            .asRuntimeException());
+    if (!excludeSourceCodeInfo) {
+      return fileDescriptorSet;
+    }
+    final FileDescriptorSet.Builder builder = fileDescriptorSet.toBuilder();
+    builder.getFileBuilderList().forEach(FileDescriptorProto.Builder::clearSourceCodeInfo);
+    return builder.build();
+  }
+
+  @Override
+  public void watchSchema(final WatchSchemaRequest request,
+                          final StreamObserver<SchemaChange> responseObserver) {
+    final SchemaWatcher.Watch watch = schemaWatcher.watch(
+        request.getFromGeneration(), responseObserver);
+    if (responseObserver instanceof ServerCallStreamObserver) {
+      ((ServerCallStreamObserver<SchemaChange>) responseObserver).setOnCancelHandler(watch::cancel);
+    }
+  }
 
+  @Override
+  public void diffSchema(final DiffSchemaRequest request,
+                         final StreamObserver<SchemaDiff> responseObserver) {
+    final SchemaDiff diff;
+    try {
+      final long from = Math.max(request.getFromGeneration(), 0);
+      final long to = schemaDiffer.toGeneration(request.getToGeneration());
+      if (from > to) {
+        responseObserver.onError(Status.INVALID_ARGUMENT
+            .withDescription("from_generation " + from + " is after to_generation " + to)
+            .asRuntimeException());
+        return;
+      }
+      for (final long generation : new long[]{from, to}) {
+        if (!schemaDiffer.hasGeneration(generation)) {
+          responseObserver.onError(Status.NOT_FOUND
+              .withDescription("Unknown generation: " + generation)
+              .asRuntimeException());
+          return;
+        }
+      }
+      diff = schemaDiffer.diff(from, to);
+    } catch (Exception e) {
+      logger.error("diffSchema: {}", e.toString(), e);
+      responseObserver.onError(Status.INTERNAL
+          .withDescription("Failed to diff schema")
+          .withCause(e)
+          .asRuntimeException());
+      return;
+    }
+    responseObserver.onNext(diff);
+    responseObserver.onCompleted();
+  }
 
   private static com.spotify.protoman.FilePosition sourceCodeInfoToFilePositionProto(
       final SourceCodeInfo sourceCodeInfo) {
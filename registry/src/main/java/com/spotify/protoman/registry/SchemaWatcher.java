@@ -0,0 +1,287 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.spotify.protoman.SchemaChange;
+import com.spotify.protoman.registry.storage.SchemaStorage;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadOnlyTransaction;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Notifies watchers about new snapshots of a {@link SchemaStorage}.
+ *
+ * New snapshots are detected by {@link #poll()}, which is called after local commits and
+ * periodically to pick up commits made elsewhere. Every watcher gets one {@link SchemaChange} per
+ * new snapshot, relative to the last snapshot it was notified about. All watcher state is
+ * confined to a single thread.
+ */
+public class SchemaWatcher implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SchemaWatcher.class);
+
+  private final SchemaStorage schemaStorage;
+  private final ScheduledExecutorService executor;
+  private final Set<Watch> watches = Sets.newHashSet();
+  private long latestGeneration;
+
+  private SchemaWatcher(final SchemaStorage schemaStorage,
+                        final ScheduledExecutorService executor) {
+    this.schemaStorage = Objects.requireNonNull(schemaStorage);
+    this.executor = Objects.requireNonNull(executor);
+    latestGeneration = schemaStorage.getLatestSnapshotVersion();
+  }
+
+  /**
+   * @param pollInterval How often to check for snapshots committed by other registry instances.
+   */
+  public static SchemaWatcher create(final SchemaStorage schemaStorage,
+                                     final Duration pollInterval) {
+    final SchemaWatcher watcher = new SchemaWatcher(
+        schemaStorage,
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("schema-watcher-%d").setDaemon(true).build())
+    );
+    watcher.executor.scheduleWithFixedDelay(
+        watcher::dispatch, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    return watcher;
+  }
+
+  /**
+   * Check for a new snapshot and notify watchers if there is one.
+   */
+  public void poll() {
+    executor.execute(this::dispatch);
+  }
+
+  /**
+   * Watch for changes after {@code fromGeneration}. If the latest snapshot is newer than {@code
+   * fromGeneration} the changes since then are sent immediately. The observer is never completed,
+   * only failed if the changes cannot be determined: with {@code OUT_OF_RANGE} if {@code
+   * fromGeneration} is not a snapshot of the storage.
+   */
+  public Watch watch(final long fromGeneration, final StreamObserver<SchemaChange> observer) {
+    final Watch watch = new Watch(fromGeneration, observer, false);
+    executor.execute(() -> register(watch));
+    return watch;
+  }
+
+  /**
+   * The first change after {@code fromGeneration}. Completes immediately if the latest snapshot is
+   * newer than {@code fromGeneration}. Cancelling the future stops watching.
+   */
+  public CompletableFuture<SchemaChange> nextChange(final long fromGeneration) {
+    final CompletableFuture<SchemaChange> future = new CompletableFuture<>();
+    final Watch watch = new Watch(fromGeneration, new StreamObserver<SchemaChange>() {
+      @Override
+      public void onNext(final SchemaChange change) {
+        future.complete(change);
+      }
+
+      @Override
+      public void onError(final Throwable t) {
+        future.completeExceptionally(t);
+      }
+
+      @Override
+      public void onCompleted() {
+      }
+    }, true);
+    future.whenComplete((change, throwable) -> {
+      if (future.isCancelled()) {
+        watch.cancel();
+      }
+    });
+    executor.execute(() -> register(watch));
+    return future;
+  }
+
+  /**
+   * Changes between two snapshots. A generation of 0 or less denotes the empty snapshot.
+   */
+  public SchemaChange changes(final long fromGeneration, final long toGeneration) {
+    final Snapshot from = snapshot(fromGeneration);
+    final Snapshot to = snapshot(toGeneration);
+
+    final Set<String> changedPaths = new TreeSet<>();
+    Sets.union(from.contentHashes.keySet(), to.contentHashes.keySet()).forEach(path -> {
+      if (!Objects.equals(from.contentHashes.get(path), to.contentHashes.get(path))) {
+        changedPaths.add(path.toString());
+      }
+    });
+
+    final Set<String> changedPackages = new TreeSet<>();
+    Sets.union(from.packageVersions.keySet(), to.packageVersions.keySet()).forEach(pkg -> {
+      if (!Objects.equals(from.packageVersions.get(pkg), to.packageVersions.get(pkg))) {
+        changedPackages.add(pkg);
+      }
+    });
+
+    return SchemaChange.newBuilder()
+        .setGeneration(toGeneration)
+        .setPreviousGeneration(Math.max(fromGeneration, 0))
+        .addAllChangedPackage(changedPackages)
+        .addAllChangedPath(changedPaths)
+        .build();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private Snapshot snapshot(final long generation) {
+    if (generation <= 0) {
+      return new Snapshot(ImmutableMap.of(), ImmutableMap.of());
+    }
+    try (final ReadOnlyTransaction tx = schemaStorage.open(generation)) {
+      return new Snapshot(tx.contentHashes(), tx.allPackageVersions());
+    }
+  }
+
+  private void register(final Watch watch) {
+    if (watch.cancelled) {
+      return;
+    }
+    watches.add(watch);
+    // Generations only grow. A watch ahead of this instance, e.g. a client resuming on a lagging
+    // follower, waits until this instance catches up.
+    if (watch.generation < latestGeneration) {
+      notify(watch, changes(watch, new HashMap<>()));
+    }
+  }
+
+  private void dispatch() {
+    try {
+      final long generation = schemaStorage.getLatestSnapshotVersion();
+      if (generation <= latestGeneration) {
+        return;
+      }
+      latestGeneration = generation;
+      logger.debug("New snapshot. generation={} watches={}", generation, watches.size());
+
+      // Watchers are usually at the same generation, compute each change once
+      final Map<Long, Optional<SchemaChange>> changes = new HashMap<>();
+      for (final Watch watch : watches.toArray(new Watch[0])) {
+        if (watch.generation < generation) {
+          notify(watch, changes(watch, changes));
+        }
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to dispatch schema changes: {}", e.toString(), e);
+    }
+  }
+
+  private Optional<SchemaChange> changes(final Watch watch,
+                                         final Map<Long, Optional<SchemaChange>> changes) {
+    return changes.computeIfAbsent(watch.generation, from -> {
+      try {
+        return Optional.of(changes(from, latestGeneration));
+      } catch (Exception e) {
+        logger.warn("Failed to determine changes. from={} to={}", from, latestGeneration, e);
+        return Optional.empty();
+      }
+    });
+  }
+
+  private void notify(final Watch watch, final Optional<SchemaChange> change) {
+    if (watch.cancelled) {
+      watches.remove(watch);
+      return;
+    }
+    try {
+      if (!change.isPresent()) {
+        watches.remove(watch);
+        watch.observer.onError(changesUnavailable(watch.generation).asRuntimeException());
+        return;
+      }
+      watch.observer.onNext(change.get());
+      watch.generation = change.get().getGeneration();
+      if (watch.once) {
+        watches.remove(watch);
+      }
+    } catch (RuntimeException e) {
+      // The observer is gone, e.g. the call was cancelled
+      logger.debug("Dropping watch: {}", e.toString());
+      watches.remove(watch);
+    }
+  }
+
+  private Status changesUnavailable(final long generation) {
+    if (generation > 0 && !schemaStorage.hasSnapshotVersion(generation)) {
+      return Status.OUT_OF_RANGE
+          .withDescription("Unknown or expired generation " + generation);
+    }
+    return Status.INTERNAL
+        .withDescription("Cannot determine changes since generation " + generation);
+  }
+
+  public final class Watch {
+
+    private final StreamObserver<SchemaChange> observer;
+    private final boolean once;
+    private long generation;
+    private volatile boolean cancelled;
+
+    private Watch(final long generation,
+                  final StreamObserver<SchemaChange> observer,
+                  final boolean once) {
+      this.generation = generation;
+      this.observer = Objects.requireNonNull(observer);
+      this.once = once;
+    }
+
+    public void cancel() {
+      cancelled = true;
+      executor.execute(() -> watches.remove(this));
+    }
+  }
+
+  private static final class Snapshot {
+
+    private final ImmutableMap<Path, HashCode> contentHashes;
+    private final ImmutableMap<String, SchemaVersion> packageVersions;
+
+    private Snapshot(final ImmutableMap<Path, HashCode> contentHashes,
+                     final ImmutableMap<String, SchemaVersion> packageVersions) {
+      this.contentHashes = contentHashes;
+      this.packageVersions = packageVersions;
+    }
+  }
+}
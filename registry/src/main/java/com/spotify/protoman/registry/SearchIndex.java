@@ -0,0 +1,293 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.MethodDescriptorProto;
+import com.google.protobuf.DescriptorProtos.ServiceDescriptorProto;
+import com.google.protobuf.DescriptorProtos.SourceCodeInfo.Location;
+import com.spotify.protoman.SearchResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over the symbols of a snapshot: messages, fields, enums, enum values, services
+ * and methods, and their leading and trailing comments.
+ *
+ * Names are split into words at dots, underscores and camel case boundaries. Every word of a query
+ * is matched as a prefix, so partially typed queries find results.
+ */
+public final class SearchIndex {
+
+  private static final Pattern NAME_WORD_BOUNDARY =
+      Pattern.compile("[._]+|(?<=[a-z0-9])(?=[A-Z])|(?<=[A-Z])(?=[A-Z][a-z])");
+  private static final Pattern COMMENT_WORD_BOUNDARY = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  // Field numbers of the repeated fields of descriptor protos, used in SourceCodeInfo paths
+  private static final int FILE_MESSAGE_TYPE = 4;
+  private static final int FILE_ENUM_TYPE = 5;
+  private static final int FILE_SERVICE = 6;
+  private static final int MESSAGE_FIELD = 2;
+  private static final int MESSAGE_NESTED_TYPE = 3;
+  private static final int MESSAGE_ENUM_TYPE = 4;
+  private static final int ENUM_VALUE = 2;
+  private static final int SERVICE_METHOD = 2;
+
+  private final long snapshotVersion;
+  private final ImmutableList<Symbol> symbols;
+  // Sorted words and, at the same index, the ids of the symbols they occur in
+  private final String[] nameWords;
+  private final int[][] namePostings;
+  private final String[] commentWords;
+  private final int[][] commentPostings;
+
+  private SearchIndex(final long snapshotVersion,
+                      final ImmutableList<Symbol> symbols,
+                      final Map<String, List<Integer>> namePostings,
+                      final Map<String, List<Integer>> commentPostings) {
+    this.snapshotVersion = snapshotVersion;
+    this.symbols = symbols;
+    this.nameWords = namePostings.keySet().toArray(new String[0]);
+    this.namePostings = namePostings.values().stream().map(Ints::toArray).toArray(int[][]::new);
+    this.commentWords = commentPostings.keySet().toArray(new String[0]);
+    this.commentPostings =
+        commentPostings.values().stream().map(Ints::toArray).toArray(int[][]::new);
+  }
+
+  public static SearchIndex create(final DescriptorSnapshot snapshot) {
+    final Builder builder = new Builder();
+    snapshot.fileDescriptorSet().getFileList().forEach(builder::addFile);
+    return new SearchIndex(
+        snapshot.snapshotVersion(),
+        ImmutableList.copyOf(builder.symbols),
+        builder.namePostings,
+        builder.commentPostings);
+  }
+
+  public long snapshotVersion() {
+    return snapshotVersion;
+  }
+
+  /**
+   * Symbols where every word of the query is a prefix of a word in the name or the comments.
+   * Name matches rank above comment matches, and exact matches of the symbol name rank first.
+   */
+  public ImmutableList<SearchResult> search(final String query, final int limit) {
+    final String[] words = words(query, COMMENT_WORD_BOUNDARY);
+    if (words.length == 0 || limit <= 0) {
+      return ImmutableList.of();
+    }
+
+    BitSet matches = null;
+    final int[] scores = new int[symbols.size()];
+    for (final String word : words) {
+      final BitSet nameMatches = prefixMatches(nameWords, namePostings, word);
+      final BitSet wordMatches = prefixMatches(commentWords, commentPostings, word);
+      nameMatches.stream().forEach(id -> scores[id] += 2);
+      wordMatches.or(nameMatches);
+      wordMatches.stream().forEach(id -> scores[id] += 1);
+      if (matches == null) {
+        matches = wordMatches;
+      } else {
+        matches.and(wordMatches);
+      }
+    }
+
+    final String normalizedQuery = query.trim().toLowerCase(Locale.ROOT);
+    return matches.stream()
+        .boxed()
+        .sorted(Comparator
+            .comparingInt((Integer id) -> -score(symbols.get(id), normalizedQuery, scores[id]))
+            .thenComparingInt(id -> symbols.get(id).result().getName().length())
+            .thenComparing(id -> symbols.get(id).result().getName()))
+        .limit(limit)
+        .map(id -> symbols.get(id).result())
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  private static int score(final Symbol symbol, final String query, final int wordScore) {
+    if (symbol.simpleName().equals(query)) {
+      return wordScore + 100;
+    }
+    if (symbol.simpleName().startsWith(query)) {
+      return wordScore + 50;
+    }
+    return wordScore;
+  }
+
+  private static BitSet prefixMatches(final String[] words,
+                                      final int[][] postings,
+                                      final String prefix) {
+    final BitSet matches = new BitSet();
+    final int index = Arrays.binarySearch(words, prefix);
+    for (int i = index >= 0 ? index : -index - 1;
+         i < words.length && words[i].startsWith(prefix); i++) {
+      for (final int id : postings[i]) {
+        matches.set(id);
+      }
+    }
+    return matches;
+  }
+
+  private static String[] words(final String text, final Pattern boundary) {
+    return boundary.splitAsStream(text)
+        .filter(word -> !word.isEmpty())
+        .map(word -> word.toLowerCase(Locale.ROOT))
+        .distinct()
+        .toArray(String[]::new);
+  }
+
+  @AutoValue
+  abstract static class Symbol {
+
+    abstract SearchResult result();
+
+    // Lower case last component of the name
+    abstract String simpleName();
+
+    static Symbol create(final SearchResult result, final String simpleName) {
+      return new AutoValue_SearchIndex_Symbol(result, simpleName.toLowerCase(Locale.ROOT));
+    }
+  }
+
+  private static final class Builder {
+
+    private final List<Symbol> symbols = new ArrayList<>();
+    private final Map<String, List<Integer>> namePostings = new TreeMap<>();
+    private final Map<String, List<Integer>> commentPostings = new TreeMap<>();
+
+    private String fileName;
+    private Map<List<Integer>, Location> locations;
+
+    private void addFile(final FileDescriptorProto file) {
+      fileName = file.getName();
+      locations = new HashMap<>();
+      file.getSourceCodeInfo().getLocationList()
+          .forEach(location -> locations.put(location.getPathList(), location));
+
+      final String prefix = file.getPackage().isEmpty() ? "" : file.getPackage() + ".";
+      for (int i = 0; i < file.getMessageTypeCount(); i++) {
+        addMessage(prefix, file.getMessageType(i), path(FILE_MESSAGE_TYPE, i));
+      }
+      for (int i = 0; i < file.getEnumTypeCount(); i++) {
+        addEnum(prefix, file.getEnumType(i), path(FILE_ENUM_TYPE, i));
+      }
+      for (int i = 0; i < file.getServiceCount(); i++) {
+        final ServiceDescriptorProto service = file.getService(i);
+        final List<Integer> servicePath = path(FILE_SERVICE, i);
+        final String serviceName = prefix + service.getName();
+        add(serviceName, service.getName(), SearchResult.Kind.SERVICE, servicePath);
+        for (int j = 0; j < service.getMethodCount(); j++) {
+          final MethodDescriptorProto method = service.getMethod(j);
+          add(serviceName + "." + method.getName(), method.getName(), SearchResult.Kind.METHOD,
+              path(servicePath, SERVICE_METHOD, j));
+        }
+      }
+    }
+
+    private void addMessage(final String prefix,
+                            final DescriptorProto message,
+                            final List<Integer> path) {
+      final String messageName = prefix + message.getName();
+      add(messageName, message.getName(), SearchResult.Kind.MESSAGE, path);
+      for (int i = 0; i < message.getFieldCount(); i++) {
+        final FieldDescriptorProto field = message.getField(i);
+        add(messageName + "." + field.getName(), field.getName(), SearchResult.Kind.FIELD,
+            path(path, MESSAGE_FIELD, i));
+      }
+      for (int i = 0; i < message.getNestedTypeCount(); i++) {
+        addMessage(
+            messageName + ".", message.getNestedType(i), path(path, MESSAGE_NESTED_TYPE, i));
+      }
+      for (int i = 0; i < message.getEnumTypeCount(); i++) {
+        addEnum(messageName + ".", message.getEnumType(i), path(path, MESSAGE_ENUM_TYPE, i));
+      }
+    }
+
+    private void addEnum(final String prefix,
+                         final EnumDescriptorProto enumType,
+                         final List<Integer> path) {
+      final String enumName = prefix + enumType.getName();
+      add(enumName, enumType.getName(), SearchResult.Kind.ENUM_TYPE, path);
+      for (int i = 0; i < enumType.getValueCount(); i++) {
+        final EnumValueDescriptorProto value = enumType.getValue(i);
+        add(enumName + "." + value.getName(), value.getName(), SearchResult.Kind.ENUM_VALUE,
+            path(path, ENUM_VALUE, i));
+      }
+    }
+
+    private void add(final String name,
+                     final String simpleName,
+                     final SearchResult.Kind kind,
+                     final List<Integer> path) {
+      final Location location = locations.get(path);
+      final String comment = location == null ? "" : Joiner.on('\n').skipNulls().join(
+          Strings.emptyToNull(location.getLeadingComments().trim()),
+          Strings.emptyToNull(location.getTrailingComments().trim()));
+
+      final int id = symbols.size();
+      symbols.add(Symbol.create(SearchResult.newBuilder()
+          .setName(name)
+          .setKind(kind)
+          .setFile(fileName)
+          .setComment(comment)
+          .build(), simpleName));
+      // The whole simple name is a word too, so "FooBar" finds FooBar as well as "foo bar"
+      final Set<String> nameWords = new HashSet<>(Arrays.asList(words(name, NAME_WORD_BOUNDARY)));
+      nameWords.add(simpleName.toLowerCase(Locale.ROOT));
+      for (final String word : nameWords) {
+        namePostings.computeIfAbsent(word, w -> new ArrayList<>()).add(id);
+      }
+      for (final String word : words(comment, COMMENT_WORD_BOUNDARY)) {
+        commentPostings.computeIfAbsent(word, w -> new ArrayList<>()).add(id);
+      }
+    }
+
+    private static List<Integer> path(final int... elements) {
+      return Ints.asList(elements);
+    }
+
+    private static List<Integer> path(final List<Integer> parent, final int... elements) {
+      final List<Integer> path = new ArrayList<>(parent);
+      path.addAll(Ints.asList(elements));
+      return path;
+    }
+  }
+}
@@ -25,7 +25,6 @@ import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
-import com.google.protobuf.DescriptorProtos;
 import com.spotify.protoman.descriptor.DescriptorSet;
 import com.spotify.protoman.descriptor.FileDescriptor;
 import java.util.Objects;
@@ -134,16 +133,7 @@ public class SemverSchemaVersioner implements SchemaVersioner {
 
           assert currentFd != null && candidateFd != null;
 
-          final DescriptorProtos.FileDescriptorProto currentFdProto = currentFd.toProto()
-              .toBuilder()
-              .clearSourceCodeInfo()
-              .build();
-          final DescriptorProtos.FileDescriptorProto candidateFdProto = candidateFd.toProto()
-              .toBuilder()
-              .clearSourceCodeInfo()
-              .build();
-
-          return !Objects.equals(currentFdProto, candidateFdProto);
+          return !currentFd.structuralHash().equals(candidateFd.structuralHash());
         });
   }
 
@@ -168,7 +158,7 @@ public class SemverSchemaVersioner implements SchemaVersioner {
           final FileDescriptor currentFd = currentFileDescriptors.get(key);
           final FileDescriptor candidateFd = candidateFileDescriptors.get(key);
           assert currentFd != null && candidateFd != null;
-          return !Objects.equals(currentFd.toProto(), candidateFd.toProto());
+          return !currentFd.sourceHash().equals(candidateFd.sourceHash());
         });
   }
 }
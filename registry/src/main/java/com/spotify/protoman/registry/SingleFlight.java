@@ -0,0 +1,111 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import com.google.common.base.Throwables;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical computations. While a computation for a key is in flight, other
+ * callers with an equal key wait for and share its result instead of starting their own. Nothing
+ * is cached once the computation completes.
+ *
+ * Keys should identify the operation, the snapshot version and the arguments, e.g. {@code
+ * ImmutableList.of("descriptors", snapshotVersion)}. A computation for an older snapshot can
+ * finish after one for a newer snapshot, so callers that memoize the result should only replace
+ * it with the result for a newer snapshot, e.g. with {@code AtomicReference.accumulateAndGet}.
+ */
+public final class SingleFlight {
+
+  private final ConcurrentMap<Object, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+  private SingleFlight() {
+  }
+
+  public static SingleFlight create() {
+    return new SingleFlight();
+  }
+
+  /**
+   * Compute a value on the calling thread, or wait for the computation already in flight for the
+   * key.
+   */
+  @SuppressWarnings("unchecked")
+  public <V> V get(final Object key, final Supplier<V> computation) {
+    final CompletableFuture<V> flight = new CompletableFuture<>();
+    final CompletableFuture<?> existing = inFlight.putIfAbsent(key, flight);
+    if (existing != null) {
+      try {
+        return (V) existing.join();
+      } catch (CompletionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw e;
+      }
+    }
+
+    try {
+      final V value = computation.get();
+      flight.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  /**
+   * Start an asynchronous computation, or join the computation already in flight for the key.
+   * Cancelling the returned future does not affect other callers.
+   */
+  @SuppressWarnings("unchecked")
+  public <V> CompletableFuture<V> getAsync(final Object key,
+                                           final Supplier<CompletableFuture<V>> computation) {
+    final CompletableFuture<V> flight = new CompletableFuture<>();
+    final CompletableFuture<?> existing = inFlight.putIfAbsent(key, flight);
+    if (existing != null) {
+      return ((CompletableFuture<V>) existing).thenApply(Function.identity());
+    }
+
+    CompletableFuture<V> result;
+    try {
+      result = computation.get();
+    } catch (RuntimeException e) {
+      result = new CompletableFuture<>();
+      result.completeExceptionally(e);
+    }
+    result.whenComplete((value, throwable) -> {
+      inFlight.remove(key, flight);
+      if (throwable != null) {
+        flight.completeExceptionally(throwable);
+      } else {
+        flight.complete(value);
+      }
+    });
+    return flight.thenApply(Function.identity());
+  }
+}
@@ -0,0 +1,167 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry.http;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+/**
+ * An immutable response entity, serialized once and compressed at most once per content coding.
+ *
+ * Responses carry a strong ETag per representation derived from the entity version, so a
+ * conditional request for an unchanged entity is answered with 304 Not Modified and clients
+ * revalidate on every use.
+ */
+final class EncodedEntity {
+
+  private static final String GZIP = "gzip";
+  private static final String DEFLATE = "deflate";
+
+  private static final CacheControl CACHE_CONTROL = new CacheControl();
+
+  static {
+    CACHE_CONTROL.setMaxAge(0);
+    CACHE_CONTROL.setMustRevalidate(true);
+  }
+
+  private final String version;
+  private final MediaType mediaType;
+  private final byte[] identity;
+  private final Supplier<byte[]> gzip;
+  private final Supplier<byte[]> deflate;
+
+  private EncodedEntity(final String version, final MediaType mediaType, final byte[] identity) {
+    this.version = Objects.requireNonNull(version);
+    this.mediaType = Objects.requireNonNull(mediaType);
+    this.identity = Objects.requireNonNull(identity);
+    gzip = Suppliers.memoize(() -> compress(identity, GZIPOutputStream::new));
+    deflate = Suppliers.memoize(() -> compress(identity, DeflaterOutputStream::new));
+  }
+
+  static EncodedEntity create(final String version,
+                              final MediaType mediaType,
+                              final byte[] identity) {
+    return new EncodedEntity(version, mediaType, identity);
+  }
+
+  String version() {
+    return version;
+  }
+
+  /**
+   * Size of the uncompressed entity in bytes.
+   */
+  int size() {
+    return identity.length;
+  }
+
+  /**
+   * Build a response for the request, choosing the content coding from the Accept-Encoding
+   * header.
+   */
+  Response response(final Request request, final HttpHeaders headers) {
+    final String encoding = contentEncoding(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+    final EntityTag entityTag = new EntityTag(
+        encoding == null ? version : version + "-" + encoding);
+
+    final Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+    if (notModified != null) {
+      return notModified
+          .cacheControl(CACHE_CONTROL)
+          .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+          .build();
+    }
+
+    final byte[] bytes;
+    if (GZIP.equals(encoding)) {
+      bytes = gzip.get();
+    } else if (DEFLATE.equals(encoding)) {
+      bytes = deflate.get();
+    } else {
+      bytes = identity;
+    }
+
+    final Response.ResponseBuilder response = Response.ok(bytes, mediaType)
+        .tag(entityTag)
+        .cacheControl(CACHE_CONTROL)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .header(HttpHeaders.CONTENT_LENGTH, bytes.length);
+    if (encoding != null) {
+      response.header(HttpHeaders.CONTENT_ENCODING, encoding);
+    }
+    return response.build();
+  }
+
+  /**
+   * The preferred supported content coding, or null for identity. Only explicit refusals
+   * ({@code q=0}) are honoured, otherwise gzip is preferred over deflate.
+   */
+  static String contentEncoding(final String acceptEncoding) {
+    if (Strings.isNullOrEmpty(acceptEncoding)) {
+      return null;
+    }
+    boolean gzip = false;
+    boolean deflate = false;
+    for (final String coding : Splitter.on(',').trimResults().omitEmptyStrings()
+        .split(acceptEncoding.toLowerCase(Locale.ROOT))) {
+      final int paramsStart = coding.indexOf(';');
+      final String name = (paramsStart < 0 ? coding : coding.substring(0, paramsStart)).trim();
+      if (paramsStart >= 0 && coding.substring(paramsStart).replace(" ", "").matches(
+          ";q=0(\\.0*)?")) {
+        continue;
+      }
+      gzip |= name.equals(GZIP) || name.equals("*");
+      deflate |= name.equals(DEFLATE);
+    }
+    return gzip ? GZIP : deflate ? DEFLATE : null;
+  }
+
+  private static byte[] compress(final byte[] bytes, final CompressorFactory compressorFactory) {
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+    try (OutputStream output = compressorFactory.create(compressed)) {
+      output.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return compressed.toByteArray();
+  }
+
+  private interface CompressorFactory {
+
+    OutputStream create(OutputStream outputStream) throws IOException;
+  }
+}
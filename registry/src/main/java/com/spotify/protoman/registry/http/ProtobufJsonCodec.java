@@ -20,11 +20,17 @@
 
 package com.spotify.protoman.registry.http;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import com.google.protobuf.Message;
 import com.google.protobuf.util.JsonFormat;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import javax.ws.rs.Produces;
@@ -60,9 +66,23 @@ public final class ProtobufJsonCodec implements MessageBodyWriter<Message> {
       final MultivaluedMap<String, Object> multivaluedMap,
       final OutputStream outputStream)
       throws IOException, WebApplicationException {
-    try (OutputStreamWriter output = new OutputStreamWriter(outputStream)) {
+    try (Writer output = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8))) {
+      PRINTER.appendTo(message, output);
+    }
+  }
+
+  /**
+   * Serialize a message to UTF-8 encoded JSON, as this codec writes it. The encoded document is
+   * buffered in full.
+   */
+  static byte[] toJson(final Message message) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (Writer output = new BufferedWriter(new OutputStreamWriter(bytes, UTF_8))) {
       PRINTER.appendTo(message, output);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
+    return bytes.toByteArray();
   }
 
   @Override
@@ -72,7 +92,7 @@ public final class ProtobufJsonCodec implements MessageBodyWriter<Message> {
       final Type type,
       final Annotation[] annotations,
       final MediaType mediaType) {
-    // Deprecated
-    return 0;
+    // Deprecated, and the size is not known without serializing
+    return -1;
   }
 }
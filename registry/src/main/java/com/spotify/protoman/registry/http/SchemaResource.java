@@ -20,32 +20,302 @@
 
 package com.spotify.protoman.registry.http;
 
-import com.google.protobuf.DescriptorProtos;
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.spotify.protoman.SchemaChange;
+import com.spotify.protoman.SchemaDiff;
+import com.spotify.protoman.SearchResponse;
+import com.spotify.protoman.registry.DescriptorSnapshot;
+import com.spotify.protoman.registry.SchemaDiffer;
 import com.spotify.protoman.registry.SchemaRegistry;
+import com.spotify.protoman.registry.SchemaWatcher;
+import com.spotify.protoman.registry.SearchIndex;
+import com.spotify.protoman.registry.SingleFlight;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
 
 @Path("")
 public final class SchemaResource {
 
+  private static final long CHANGES_TIMEOUT_SECONDS = 30;
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final long MAX_CACHED_BYTES = 64 << 20;
+
   private SchemaRegistry schemaRegistry;
+  private SchemaWatcher schemaWatcher;
+  private SchemaDiffer schemaDiffer;
+  // The full descriptor set of the newest snapshot seen, per encoding. Kept apart from the cache
+  // below so that requests for other selections can never evict it.
+  private final AtomicReference<SnapshotEntity> allJson = new AtomicReference<>();
+  private final AtomicReference<SnapshotEntity> allBinary = new AtomicReference<>();
+  private final SingleFlight singleFlight = SingleFlight.create();
+  // Encoded pages and packages of the latest snapshot, keyed by encoding and selection, weighed by
+  // their encoded size. Cleared when a newer snapshot is seen.
+  private final Cache<String, EncodedEntity> descriptors = CacheBuilder.newBuilder()
+      .maximumWeight(MAX_CACHED_BYTES)
+      .weigher((String selection, EncodedEntity entity) -> entity.size())
+      .build();
+  private final AtomicLong cachedSnapshotVersion = new AtomicLong();
 
-  private SchemaResource(final SchemaRegistry schemaRegistry) {
+  private SchemaResource(final SchemaRegistry schemaRegistry,
+                         final SchemaWatcher schemaWatcher,
+                         final SchemaDiffer schemaDiffer) {
     this.schemaRegistry = schemaRegistry;
+    this.schemaWatcher = schemaWatcher;
+    this.schemaDiffer = schemaDiffer;
   }
 
-  public static SchemaResource create(final SchemaRegistry schemaRegistry) {
-    return new SchemaResource(schemaRegistry);
+  public static SchemaResource create(final SchemaRegistry schemaRegistry,
+                                      final SchemaWatcher schemaWatcher,
+                                      final SchemaDiffer schemaDiffer) {
+    return new SchemaResource(schemaRegistry, schemaWatcher, schemaDiffer);
   }
 
+  /**
+   * Descriptors of all files in the latest snapshot, as JSON or, if preferred by the client, as a
+   * serialized {@code FileDescriptorSet}.
+   *
+   * If {@code cursor} or {@code limit} is given only one page of files, ordered by name, is
+   * returned. The next page, if any, is linked with {@code rel="next"}.
+   */
   @Path("/descriptors")
   @GET
+  @Produces({MediaType.APPLICATION_JSON, ProtobufBinaryCodec.APPLICATION_PROTOBUF})
+  public Response fetchAllDescriptors(@QueryParam("cursor") final String cursor,
+                                      @QueryParam("limit") final Integer limit,
+                                      @Context final UriInfo uriInfo,
+                                      @Context final Request request,
+                                      @Context final HttpHeaders headers) {
+    final DescriptorSnapshot snapshot = schemaRegistry.descriptorSnapshot();
+    if (cursor == null && limit == null) {
+      return encodedAll(snapshot, headers).response(request, headers);
+    }
+
+    final int pageSize = limit == null ? MAX_PAGE_SIZE : limit;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    // Fetch one extra file to know whether there is a next page
+    final ImmutableList<FileDescriptorProto> files = snapshot.page(cursor, pageSize + 1);
+    final ImmutableList<FileDescriptorProto> page =
+        files.subList(0, Math.min(pageSize, files.size()));
+
+    final Response response = encoded(
+        snapshot, "page " + pageSize + " " + Strings.nullToEmpty(cursor), headers,
+        () -> FileDescriptorSet.newBuilder().addAllFile(page).build()
+    ).response(request, headers);
+    if (files.size() <= pageSize) {
+      return response;
+    }
+    return Response.fromResponse(response)
+        .link(uriInfo.getRequestUriBuilder()
+                  .replaceQueryParam("cursor", page.get(page.size() - 1).getName())
+                  .replaceQueryParam("limit", pageSize)
+                  .build(),
+              "next")
+        .build();
+  }
+
+  /**
+   * Descriptors of the files in a package and everything they transitively import.
+   */
+  @Path("/packages/{pkg}/descriptors")
+  @GET
+  @Produces({MediaType.APPLICATION_JSON, ProtobufBinaryCodec.APPLICATION_PROTOBUF})
+  public Response fetchPackageDescriptors(@PathParam("pkg") final String pkg,
+                                          @Context final Request request,
+                                          @Context final HttpHeaders headers) {
+    final DescriptorSnapshot snapshot = schemaRegistry.descriptorSnapshot();
+    return encoded(snapshot, "package " + pkg, headers,
+        () -> snapshot.packageDescriptors(ImmutableList.of(pkg))
+            .orElseThrow(() -> new NotFoundException("No such package: " + pkg))
+    ).response(request, headers);
+  }
+
+  /**
+   * Search the symbols and comments of the latest snapshot. Every word of {@code q} is matched as
+   * a prefix, for typeahead.
+   */
+  @Path("/search")
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public SearchResponse search(
+      @QueryParam("q") @DefaultValue("") final String query,
+      @QueryParam("limit") @DefaultValue("20") final int limit) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    final SearchIndex searchIndex = schemaRegistry.getSearchIndex();
+    return SearchResponse.newBuilder()
+        .addAllResult(searchIndex.search(query, limit))
+        .setGeneration(searchIndex.snapshotVersion())
+        .build();
+  }
+
+  /**
+   * Long-poll for the next schema change after {@code from_generation}. Responds immediately if
+   * there already is a newer snapshot, otherwise when one is published or with 204 No Content
+   * after a timeout.
+   */
+  @Path("/changes")
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public void awaitChange(
+      @QueryParam("from_generation") @DefaultValue("0") final long fromGeneration,
+      @Suspended final AsyncResponse asyncResponse) {
+
+    final CompletableFuture<SchemaChange> change = schemaWatcher.nextChange(fromGeneration);
+    asyncResponse.setTimeout(CHANGES_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    asyncResponse.setTimeoutHandler(response -> {
+      change.cancel(false);
+      response.resume(Response.noContent().build());
+    });
+    change.whenComplete((schemaChange, throwable) -> {
+      if (throwable == null) {
+        asyncResponse.resume(schemaChange);
+      } else if (!change.isCancelled()) {
+        final Throwable cause = throwable instanceof CompletionException
+                                ? throwable.getCause()
+                                : throwable;
+        asyncResponse.resume(new BadRequestException(cause.getMessage(), cause));
+      }
+    });
+  }
+
+  /**
+   * Differences between two snapshots. {@code from} defaults to the empty snapshot and {@code to}
+   * to the latest snapshot.
+   */
+  @Path("/diff")
+  @GET
   @Produces(MediaType.APPLICATION_JSON)
-  public DescriptorProtos.FileDescriptorSet fetchAllDescriptors() {
+  public SchemaDiff diff(@QueryParam("from") @DefaultValue("0") final long fromGeneration,
+                         @QueryParam("to") @DefaultValue("0") final long toGeneration) {
+    final long from = Math.max(fromGeneration, 0);
+    final long to = schemaDiffer.toGeneration(toGeneration);
+    if (from > to) {
+      throw new BadRequestException("from generation " + from + " is after to generation " + to);
+    }
+    for (final long generation : new long[]{from, to}) {
+      if (!schemaDiffer.hasGeneration(generation)) {
+        throw new NotFoundException("Unknown generation: " + generation);
+      }
+    }
+    return schemaDiffer.diff(from, to);
+  }
+
+  /**
+   * The encoding of all descriptors of a snapshot preferred by the client, kept until a newer
+   * snapshot is requested. Concurrent requests for an encoding that is not cached share one
+   * encoder.
+   */
+  private EncodedEntity encodedAll(final DescriptorSnapshot snapshot, final HttpHeaders headers) {
+    final boolean binary = prefersBinary(headers);
+    final AtomicReference<SnapshotEntity> slot = binary ? allBinary : allJson;
+    final long snapshotVersion = snapshot.snapshotVersion();
+    final SnapshotEntity cached = slot.get();
+    if (cached != null && cached.snapshotVersion == snapshotVersion) {
+      return cached.entity;
+    }
+    final String version = entityVersion(snapshot, binary);
+    final EncodedEntity entity = singleFlight.get(
+        ImmutableList.of("descriptors", version),
+        () -> encode(version, binary, snapshot.fileDescriptorSet()));
+    // A request that read an older snapshot must not replace the entity of a newer one
+    slot.accumulateAndGet(
+        new SnapshotEntity(snapshotVersion, entity),
+        (current, update) -> current == null || current.snapshotVersion < update.snapshotVersion
+                             ? update
+                             : current);
+    return entity;
+  }
+
+  /**
+   * The encoding of a selection of descriptors preferred by the client, cached for the latest
+   * snapshot.
+   */
+  private EncodedEntity encoded(final DescriptorSnapshot snapshot,
+                                final String selection,
+                                final HttpHeaders headers,
+                                final Supplier<FileDescriptorSet> fileDescriptorSet) {
+    final long snapshotVersion = snapshot.snapshotVersion();
+    final long cachedVersion = cachedSnapshotVersion.get();
+    if (snapshotVersion > cachedVersion
+        && cachedSnapshotVersion.compareAndSet(cachedVersion, snapshotVersion)) {
+      descriptors.invalidateAll();
+    }
+
+    final boolean binary = prefersBinary(headers);
+    final String version = entityVersion(snapshot, binary);
+    try {
+      return descriptors.get(version + " " + selection,
+                             () -> encode(version, binary, fileDescriptorSet.get()));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
 
-    return schemaRegistry.allDescriptors();
+  private static String entityVersion(final DescriptorSnapshot snapshot, final boolean binary) {
+    // The ETag only has to distinguish representations of the same URL
+    return binary
+           ? snapshot.snapshotVersion() + "-pb"
+           : Long.toString(snapshot.snapshotVersion());
+  }
+
+  private static EncodedEntity encode(final String version,
+                                      final boolean binary,
+                                      final FileDescriptorSet fileDescriptorSet) {
+    return binary
+           ? EncodedEntity.create(version, ProtobufBinaryCodec.APPLICATION_PROTOBUF_TYPE,
+                                  fileDescriptorSet.toByteArray())
+           : EncodedEntity.create(version, MediaType.APPLICATION_JSON_TYPE,
+                                  ProtobufJsonCodec.toJson(fileDescriptorSet));
+  }
+
+  /**
+   * True if the client prefers the binary protobuf encoding over JSON. JSON is used for wildcard
+   * accept headers.
+   */
+  private static boolean prefersBinary(final HttpHeaders headers) {
+    for (final MediaType mediaType : headers.getAcceptableMediaTypes()) {
+      if (mediaType.getType().equals(ProtobufBinaryCodec.APPLICATION_PROTOBUF_TYPE.getType())
+          && mediaType.getSubtype().equals(
+          ProtobufBinaryCodec.APPLICATION_PROTOBUF_TYPE.getSubtype())) {
+        return true;
+      }
+      if (mediaType.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+        return false;
+      }
+    }
+    return false;
   }
 
 //  @Path("/events")
@@ -61,4 +331,15 @@ public final class SchemaResource {
 //
 //    return builder.build();
 //  }
+
+  private static final class SnapshotEntity {
+
+    private final long snapshotVersion;
+    private final EncodedEntity entity;
+
+    private SnapshotEntity(final long snapshotVersion, final EncodedEntity entity) {
+      this.snapshotVersion = snapshotVersion;
+      this.entity = entity;
+    }
+  }
 }
@@ -27,6 +27,7 @@ import com.google.common.hash.HashCode;
 import java.io.IOException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 // TODO: replace guava cache with local disk caching
 public class CachingContentAddressedBlobStorage implements ContentAddressedBlobStorage {
@@ -66,4 +67,21 @@ public class CachingContentAddressedBlobStorage implements ContentAddressedBlobS
       throw new RuntimeException(e.getCause());
     }
   }
+
+  @Override
+  public CompletableFuture<HashCode> putAsync(final byte[] bytes) {
+    return delegate.putAsync(bytes);
+  }
+
+  @Override
+  public CompletableFuture<Optional<byte[]>> getAsync(final HashCode contentHash) {
+    final byte[] cached = cache.getIfPresent(contentHash);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(Optional.of(cached));
+    }
+    return delegate.getAsync(contentHash).thenApply(bytes -> {
+      bytes.ifPresent(b -> cache.put(contentHash, b));
+      return bytes;
+    });
+  }
 }
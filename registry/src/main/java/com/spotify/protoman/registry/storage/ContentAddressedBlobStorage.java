@@ -21,11 +21,29 @@
 package com.spotify.protoman.registry.storage;
 
 import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface ContentAddressedBlobStorage {
 
   HashCode put(byte[] bytes);
 
   Optional<byte[]> get(HashCode contentHash);
+
+  /**
+   * Asynchronous variant of {@link #put(byte[])}. The default implementation calls {@link
+   * #put(byte[])} on the calling thread.
+   */
+  default CompletableFuture<HashCode> putAsync(final byte[] bytes) {
+    return CompletableFuture.supplyAsync(() -> put(bytes), MoreExecutors.directExecutor());
+  }
+
+  /**
+   * Asynchronous variant of {@link #get(HashCode)}. The default implementation calls {@link
+   * #get(HashCode)} on the calling thread.
+   */
+  default CompletableFuture<Optional<byte[]>> getAsync(final HashCode contentHash) {
+    return CompletableFuture.supplyAsync(() -> get(contentHash), MoreExecutors.directExecutor());
+  }
 }
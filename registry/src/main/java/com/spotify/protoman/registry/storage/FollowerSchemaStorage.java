@@ -0,0 +1,309 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry.storage;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.spotify.protoman.registry.SchemaFile;
+import com.spotify.protoman.registry.SchemaVersion;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-only replica of another {@link SchemaStorage}.
+ *
+ * The latest snapshot is held in memory and served without touching the upstream storage. The
+ * upstream snapshot version is polled periodically and when it moves the new snapshot is loaded,
+ * fetching only the files, and dependencies of files, whose content hash changed since the
+ * previous snapshot. Older snapshots are read from the upstream storage.
+ */
+public class FollowerSchemaStorage implements SchemaStorage, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(FollowerSchemaStorage.class);
+
+  private final SchemaStorage upstream;
+  private final ScheduledExecutorService scheduler;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+  private enum TxState {OPEN, CLOSED}
+
+  private FollowerSchemaStorage(final SchemaStorage upstream,
+                                final ScheduledExecutorService scheduler) {
+    this.upstream = Objects.requireNonNull(upstream);
+    this.scheduler = Objects.requireNonNull(scheduler);
+  }
+
+  /**
+   * Create a follower and load the latest upstream snapshot.
+   *
+   * @param pollInterval How often to check the upstream storage for a new snapshot.
+   */
+  public static FollowerSchemaStorage create(final SchemaStorage upstream,
+                                             final Duration pollInterval) {
+    final FollowerSchemaStorage follower = new FollowerSchemaStorage(
+        upstream,
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("follower-%d").setDaemon(true).build())
+    );
+    follower.refresh();
+    follower.scheduler.scheduleWithFixedDelay(
+        follower::refreshQuietly,
+        pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    return follower;
+  }
+
+  /**
+   * Load the latest upstream snapshot if it differs from the one being served.
+   *
+   * @return the snapshot version being served
+   */
+  public synchronized long refresh() {
+    final long latest = upstream.getLatestSnapshotVersion();
+    final Snapshot current = snapshot.get();
+    if (current != null && current.version == latest) {
+      return latest;
+    }
+
+    try (final ReadOnlyTransaction tx = upstream.open(latest)) {
+      final ImmutableMap<Path, HashCode> contentHashes = tx.contentHashes();
+
+      final ImmutableMap<Path, CompletableFuture<SchemaFile>> changedFiles =
+          contentHashes.entrySet().stream()
+              .filter(e -> current == null
+                           || !e.getValue().equals(current.contentHashes.get(e.getKey())))
+              .collect(toImmutableMap(Map.Entry::getKey, e -> tx.schemaFileAsync(e.getKey())));
+
+      final ImmutableMap.Builder<Path, SchemaFile> files = ImmutableMap.builder();
+      contentHashes.keySet().forEach(path -> {
+        final CompletableFuture<SchemaFile> changed = changedFiles.get(path);
+        files.put(path, changed != null ? changed.join() : current.files.get(path));
+      });
+
+      // Dependencies follow from the imports of a file, so only changed files can have new ones
+      final ImmutableMap<Path, CompletableFuture<ImmutableSet<Path>>> changedDependencies =
+          changedFiles.keySet().stream()
+              .collect(toImmutableMap(path -> path, tx::getDependenciesAsync));
+
+      final ImmutableMap.Builder<Path, ImmutableSet<Path>> dependencies = ImmutableMap.builder();
+      contentHashes.keySet().forEach(path -> {
+        final CompletableFuture<ImmutableSet<Path>> changed = changedDependencies.get(path);
+        dependencies.put(path, changed != null ? changed.join() : current.dependencies.get(path));
+      });
+
+      snapshot.set(new Snapshot(
+          latest,
+          contentHashes,
+          files.build(),
+          tx.allPackageVersions(),
+          dependencies.build()
+      ));
+      logger.info("Following snapshot. snapshotVersion={} changedFiles={}",
+          latest, changedFiles.size());
+    }
+    return latest;
+  }
+
+  @Override
+  public ReadAndWriteTransaction open() {
+    return new SnapshotTx(snapshot.get());
+  }
+
+  @Override
+  public ReadOnlyTransaction open(final long snapshotVersion) {
+    final Snapshot current = snapshot.get();
+    if (current.version == snapshotVersion) {
+      return new SnapshotTx(current);
+    }
+    return upstream.open(snapshotVersion);
+  }
+
+  @Override
+  public long getLatestSnapshotVersion() {
+    return snapshot.get().version;
+  }
+
+  @Override
+  public boolean hasSnapshotVersion(final long snapshotVersion) {
+    return snapshot.get().version == snapshotVersion
+           || upstream.hasSnapshotVersion(snapshotVersion);
+  }
+
+  @Override
+  public Stream<Long> getSnapshotVersions() {
+    return upstream.getSnapshotVersions();
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (Exception e) {
+      logger.warn("Failed to follow upstream storage: {}", e.toString(), e);
+    }
+  }
+
+  private static final class Snapshot {
+
+    private final long version;
+    private final ImmutableMap<Path, HashCode> contentHashes;
+    private final ImmutableMap<Path, SchemaFile> files;
+    private final ImmutableMap<String, SchemaVersion> packageVersions;
+    private final ImmutableMap<Path, ImmutableSet<Path>> dependencies;
+
+    private Snapshot(final long version,
+                     final ImmutableMap<Path, HashCode> contentHashes,
+                     final ImmutableMap<Path, SchemaFile> files,
+                     final ImmutableMap<String, SchemaVersion> packageVersions,
+                     final ImmutableMap<Path, ImmutableSet<Path>> dependencies) {
+      this.version = version;
+      this.contentHashes = contentHashes;
+      this.files = files;
+      this.packageVersions = packageVersions;
+      this.dependencies = dependencies;
+    }
+  }
+
+  /**
+   * Transaction over an in-memory snapshot. Write operations are rejected, publishing has to go
+   * through the writer.
+   */
+  private static class SnapshotTx implements ReadAndWriteTransaction {
+
+    private final AtomicReference<TxState> state = new AtomicReference<>(TxState.OPEN);
+    private final Snapshot snapshot;
+
+    private SnapshotTx(final Snapshot snapshot) {
+      this.snapshot = Objects.requireNonNull(snapshot);
+    }
+
+    @Override
+    public Stream<SchemaFile> fetchAllFiles() {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      return snapshot.files.values().stream();
+    }
+
+    @Override
+    public CompletableFuture<ImmutableList<SchemaFile>> fetchAllFilesAsync() {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      return CompletableFuture.completedFuture(snapshot.files.values().asList());
+    }
+
+    @Override
+    public Optional<SchemaVersion> getPackageVersion(final String pkgName) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      return Optional.ofNullable(snapshot.packageVersions.get(pkgName));
+    }
+
+    @Override
+    public Stream<Path> getDependencies(final Path path) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final ImmutableSet<Path> dependencies = snapshot.dependencies.get(path);
+      return dependencies != null ? dependencies.stream() : Stream.empty();
+    }
+
+    @Override
+    public Stream<Path> protosForPackage(final String pkgName) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final Path pkgPath = Paths.get(pkgName.replaceAll("\\.", "/"));
+      return snapshot.files.keySet().stream()
+          .filter(path -> Objects.equals(path.getParent(), pkgPath));
+    }
+
+    @Override
+    public SchemaFile schemaFile(final Path path) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final SchemaFile file = snapshot.files.get(path);
+      if (file == null) {
+        throw new RuntimeException("Location not found: " + path);
+      }
+      return file;
+    }
+
+    @Override
+    public ImmutableMap<String, SchemaVersion> allPackageVersions() {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      return snapshot.packageVersions;
+    }
+
+    @Override
+    public ImmutableMap<Path, HashCode> contentHashes() {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      return snapshot.contentHashes;
+    }
+
+    @Override
+    public void storeFile(final SchemaFile file) {
+      throw readOnly();
+    }
+
+    @Override
+    public void storePackageVersion(final String protoPackage, final SchemaVersion version) {
+      throw readOnly();
+    }
+
+    @Override
+    public void storeProtoDependencies(final Path path, final Set<Path> paths) {
+      throw readOnly();
+    }
+
+    @Override
+    public void deleteFile(final Path path) {
+      throw readOnly();
+    }
+
+    @Override
+    public long commit() {
+      throw readOnly();
+    }
+
+    @Override
+    public void close() {
+      Preconditions.checkState(state.getAndSet(TxState.CLOSED) != TxState.CLOSED);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+      return new UnsupportedOperationException("Follower storage is read-only");
+    }
+  }
+}
@@ -28,8 +28,11 @@ import com.google.common.base.Preconditions;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class GcsContentAddressedBlobStorage implements ContentAddressedBlobStorage {
 
@@ -44,13 +47,15 @@ public class GcsContentAddressedBlobStorage implements ContentAddressedBlobStora
   private final String path;
   private final String fileSuffix;
   private final HashFunction hashFunction;
+  private final Executor executor;
 
   private GcsContentAddressedBlobStorage(final Storage storage,
                                          final String bucket,
                                          final String path,
                                          final String fileSuffix,
                                          final String contentType,
-                                         final HashFunction hashFunction) {
+                                         final HashFunction hashFunction,
+                                         final Executor executor) {
 
     this.storage = Objects.requireNonNull(storage);
     this.bucket = Objects.requireNonNull(bucket);
@@ -58,6 +63,7 @@ public class GcsContentAddressedBlobStorage implements ContentAddressedBlobStora
     this.fileSuffix = Objects.requireNonNull(fileSuffix);
     this.contentType = Objects.requireNonNull(contentType);
     this.hashFunction = Objects.requireNonNull(hashFunction);
+    this.executor = Objects.requireNonNull(executor);
   }
 
   public static GcsContentAddressedBlobStorage create(final Storage storage,
@@ -73,7 +79,8 @@ public class GcsContentAddressedBlobStorage implements ContentAddressedBlobStora
         path,
         fileSuffix,
         contentType,
-        hashFunction);
+        hashFunction,
+        MoreExecutors.directExecutor());
   }
 
   public static GcsContentAddressedBlobStorage create(final Storage storage,
@@ -81,13 +88,27 @@ public class GcsContentAddressedBlobStorage implements ContentAddressedBlobStora
                                                       final String path,
                                                       final String fileSuffix) {
 
+    return create(storage, bucket, path, fileSuffix, MoreExecutors.directExecutor());
+  }
+
+  /**
+   * @param executor Executor running the blocking GCS calls of {@link #putAsync(byte[])} and
+   *                 {@link #getAsync(HashCode)}.
+   */
+  public static GcsContentAddressedBlobStorage create(final Storage storage,
+                                                      final String bucket,
+                                                      final String path,
+                                                      final String fileSuffix,
+                                                      final Executor executor) {
+
     return new GcsContentAddressedBlobStorage(
         storage,
         bucket,
         path,
         fileSuffix,
         DEFAULT_CONTENT_TYPE,
-        DEFAULT_CONTENT_HASH_FUNCTION);
+        DEFAULT_CONTENT_HASH_FUNCTION,
+        executor);
   }
 
   @Override
@@ -110,6 +131,16 @@ public class GcsContentAddressedBlobStorage implements ContentAddressedBlobStora
     return Optional.ofNullable(blob.getContent());
   }
 
+  @Override
+  public CompletableFuture<HashCode> putAsync(final byte[] bytes) {
+    return CompletableFuture.supplyAsync(() -> put(bytes), executor);
+  }
+
+  @Override
+  public CompletableFuture<Optional<byte[]>> getAsync(final HashCode contentHash) {
+    return CompletableFuture.supplyAsync(() -> get(contentHash), executor);
+  }
+
   private String blobName(final HashCode hashCode) {
     final String hashCodeString = hashCode.toString();
     Preconditions.checkState(hashCodeString.length() > 4);
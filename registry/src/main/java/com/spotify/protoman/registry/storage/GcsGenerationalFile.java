@@ -27,7 +27,10 @@ import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageException;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -43,15 +46,18 @@ public class GcsGenerationalFile {
   private final Storage storage;
   private final String bucket;
   private final String path;
+  private final Executor executor;
   private AtomicLong generation;
 
   private GcsGenerationalFile(final Storage storage,
                               final String bucket,
-                              final String path) {
+                              final String path,
+                              final Executor executor) {
 
     this.storage = Objects.requireNonNull(storage);
     this.bucket = Objects.requireNonNull(bucket);
     this.path = Objects.requireNonNull(path);
+    this.executor = Objects.requireNonNull(executor);
 
     generation = new AtomicLong();
   }
@@ -60,7 +66,18 @@ public class GcsGenerationalFile {
                                            final String bucket,
                                            final String path) {
 
-    return new GcsGenerationalFile(storage, bucket, path);
+    return create(storage, bucket, path, MoreExecutors.directExecutor());
+  }
+
+  /**
+   * @param executor Executor running the blocking GCS calls of the {@code *Async} methods.
+   */
+  public static GcsGenerationalFile create(final Storage storage,
+                                           final String bucket,
+                                           final String path,
+                                           final Executor executor) {
+
+    return new GcsGenerationalFile(storage, bucket, path, executor);
   }
 
   /**
@@ -122,6 +139,10 @@ public class GcsGenerationalFile {
     return blob.getContent();
   }
 
+  public CompletableFuture<byte[]> loadAsync() {
+    return CompletableFuture.supplyAsync(this::load, executor);
+  }
+
   public byte[] contentForGeneration(long generation) {
     final Blob blob = storage.get(BlobId.of(bucket, path, generation));
     if (blob == null) {
@@ -130,6 +151,39 @@ public class GcsGenerationalFile {
     return blob.getContent();
   }
 
+  public CompletableFuture<byte[]> contentForGenerationAsync(long generation) {
+    return CompletableFuture.supplyAsync(() -> contentForGeneration(generation), executor);
+  }
+
+  /**
+   * Fetch the current generation of the file without downloading its content.
+   */
+  public long fetchCurrentGeneration() {
+    final Blob blob = storage.get(
+        BlobId.of(bucket, path),
+        Storage.BlobGetOption.fields(Storage.BlobField.GENERATION)
+    );
+    if (blob == null) {
+      throw new NotFoundException("File not found.");
+    }
+    generation.set(blob.getGeneration());
+    return blob.getGeneration();
+  }
+
+  /**
+   * Whether a generation of the file exists, without downloading its content.
+   */
+  public boolean hasGeneration(long generation) {
+    return storage.get(
+        BlobId.of(bucket, path, generation),
+        Storage.BlobGetOption.fields(Storage.BlobField.GENERATION)
+    ) != null;
+  }
+
+  public CompletableFuture<Long> fetchCurrentGenerationAsync() {
+    return CompletableFuture.supplyAsync(this::fetchCurrentGeneration, executor);
+  }
+
   public long currentGeneration() {
     Preconditions.checkState(generation.get() != 0L, "File is not loaded.");
 
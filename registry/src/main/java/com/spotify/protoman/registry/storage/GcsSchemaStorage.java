@@ -20,14 +20,18 @@
 
 package com.spotify.protoman.registry.storage;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.cloud.storage.Storage;
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.spotify.protoman.registry.SchemaFile;
 import com.spotify.protoman.registry.SchemaVersion;
 import java.nio.file.Path;
@@ -35,6 +39,13 @@ import java.nio.file.Paths;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
@@ -47,10 +58,15 @@ public class GcsSchemaStorage implements SchemaStorage {
   private static final String INDEX_BLOB_NAME = "index.pb";
   public static final String PROTO_PATH = "protos";
   public static final String PROTO_FILE_SUFFIX = "proto";
+  // The GCS client is blocking, so the async operations are bounded by this many in-flight
+  // requests rather than by the number of callers.
+  private static final int IO_THREADS = 64;
 
   private final ContentAddressedBlobStorage protoStorage;
   private final String bucket;
   private final Storage storage;
+  private final ExecutorService ioExecutor;
+  private final ScheduledExecutorService hedgeScheduler;
 
   private enum TxState {OPEN, COMMITTED, CLOSED}
 
@@ -58,12 +74,24 @@ public class GcsSchemaStorage implements SchemaStorage {
     this.bucket = Objects.requireNonNull(bucket);
     this.storage = Objects.requireNonNull(storage);
 
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        IO_THREADS, IO_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        new ThreadFactoryBuilder().setNameFormat("gcs-io-%d").setDaemon(true).build());
+    executor.allowCoreThreadTimeOut(true);
+    ioExecutor = executor;
+    hedgeScheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("gcs-hedge-%d").setDaemon(true).build());
+
     protoStorage = CachingContentAddressedBlobStorage.create(
-        GcsContentAddressedBlobStorage.create(
-            storage,
-            bucket,
-            PROTO_PATH,
-            PROTO_FILE_SUFFIX
+        HedgingContentAddressedBlobStorage.create(
+            GcsContentAddressedBlobStorage.create(
+                storage,
+                bucket,
+                PROTO_PATH,
+                PROTO_FILE_SUFFIX,
+                ioExecutor
+            ),
+            hedgeScheduler
         ));
 
     // Create an empty index file in the bucket if it is empty
@@ -94,10 +122,32 @@ public class GcsSchemaStorage implements SchemaStorage {
   }
 
   @Override
-  public long getLatestSnapshotVersion() {
+  public CompletableFuture<ReadAndWriteTransaction> openAsync() {
+    final GcsGenerationalFile indexFile = indexFile();
+    return indexFile.loadAsync()
+        .thenApply(bytes -> new RwTx(indexFile, ProtoIndex.parse(bytes)));
+  }
+
+  @Override
+  public CompletableFuture<ReadOnlyTransaction> openAsync(final long snapshotVersion) {
     final GcsGenerationalFile indexFile = indexFile();
-    indexFile.load();
-    return indexFile.currentGeneration();
+    return indexFile.contentForGenerationAsync(snapshotVersion)
+        .thenApply(bytes -> new RoTx(indexFile, ProtoIndex.parse(bytes)));
+  }
+
+  @Override
+  public long getLatestSnapshotVersion() {
+    return indexFile().fetchCurrentGeneration();
+  }
+
+  @Override
+  public boolean hasSnapshotVersion(final long snapshotVersion) {
+    return indexFile().hasGeneration(snapshotVersion);
+  }
+
+  @Override
+  public CompletableFuture<Long> getLatestSnapshotVersionAsync() {
+    return indexFile().fetchCurrentGenerationAsync();
   }
 
   @Override
@@ -105,11 +155,17 @@ public class GcsSchemaStorage implements SchemaStorage {
     return indexFile().listGenerations();
   }
 
+  public void close() {
+    hedgeScheduler.shutdownNow();
+    ioExecutor.shutdownNow();
+  }
+
   private GcsGenerationalFile indexFile() {
     return GcsGenerationalFile.create(
         storage,
         bucket,
-        INDEX_BLOB_NAME
+        INDEX_BLOB_NAME,
+        ioExecutor
     );
   }
 
@@ -134,6 +190,19 @@ public class GcsSchemaStorage implements SchemaStorage {
           .map(e -> schemaFile(Paths.get(e.getKey()), e.getValue()));
     }
 
+    @Override
+    public CompletableFuture<ImmutableList<SchemaFile>> fetchAllFilesAsync() {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final ImmutableList<CompletableFuture<SchemaFile>> files =
+          protoIndex.getProtoLocations().entrySet().stream()
+              .map(e -> schemaFileAsync(Paths.get(e.getKey()), e.getValue()))
+              .collect(toImmutableList());
+      return CompletableFuture.allOf(files.toArray(new CompletableFuture<?>[0]))
+          .thenApply(ignored -> files.stream()
+              .map(CompletableFuture::join)
+              .collect(toImmutableList()));
+    }
+
     @Override
     public Optional<SchemaVersion> getPackageVersion(final String protoPackage) {
       Preconditions.checkState(state.get() == TxState.OPEN);
@@ -154,7 +223,7 @@ public class GcsSchemaStorage implements SchemaStorage {
     @Override
     public Stream<Path> getDependencies(final Path path) {
       Preconditions.checkState(state.get() == TxState.OPEN);
-      return protoIndex.getProtoDependencies().get(path).stream();
+      return protoIndex.getProtoDependencies(path).stream();
     }
 
     @Override
@@ -163,12 +232,33 @@ public class GcsSchemaStorage implements SchemaStorage {
       return SchemaFile.create(path, fileContents(protoIndex, path));
     }
 
+    @Override
+    public CompletableFuture<SchemaFile> schemaFileAsync(final Path path) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final String location = protoIndex.getProtoLocations().get(path.toString());
+      if (location == null) {
+        final CompletableFuture<SchemaFile> future = new CompletableFuture<>();
+        future.completeExceptionally(new RuntimeException("Location not found: " + path));
+        return future;
+      }
+      return schemaFileAsync(path, location);
+    }
+
     @Override
     public ImmutableMap<String, SchemaVersion> allPackageVersions() {
       Preconditions.checkState(state.get() == TxState.OPEN);
       return ImmutableMap.copyOf(protoIndex.getPackageVersions());
     }
 
+    @Override
+    public ImmutableMap<Path, HashCode> contentHashes() {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      return protoIndex.getProtoLocations().entrySet().stream()
+          .collect(toImmutableMap(
+              e -> Paths.get(e.getKey()),
+              e -> HashCode.fromString(e.getValue())));
+    }
+
     @Override
     public void close() {
       Preconditions.checkState(state.getAndSet(TxState.CLOSED) != TxState.CLOSED);
@@ -200,6 +290,15 @@ public class GcsSchemaStorage implements SchemaStorage {
           new String(protoStorage.get(HashCode.fromString(hash))
               .orElseThrow(() -> new RuntimeException("Not found: " + hash)), Charsets.UTF_8));
     }
+
+    protected CompletableFuture<SchemaFile> schemaFileAsync(final Path path, final String hash) {
+      Objects.requireNonNull(path);
+      Objects.requireNonNull(hash);
+      return protoStorage.getAsync(HashCode.fromString(hash)).thenApply(bytes -> SchemaFile.create(
+          path,
+          new String(bytes.orElseThrow(() -> new RuntimeException("Not found: " + hash)),
+              Charsets.UTF_8)));
+    }
   }
 
   private class RwTx extends RoTx implements ReadAndWriteTransaction {
@@ -0,0 +1,218 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.hash.HashCode;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues a duplicate read when the first one has not completed within a percentile of recently
+ * observed read latencies, and retries failed reads. The first successful response wins. The
+ * total number of reads issued for one {@link #get(HashCode)} is capped by an attempt budget.
+ *
+ * Reads are issued through {@link ContentAddressedBlobStorage#getAsync(HashCode)} of the
+ * delegate, which has to be actually asynchronous for hedging to have any effect.
+ */
+public class HedgingContentAddressedBlobStorage implements ContentAddressedBlobStorage {
+
+  private static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+  private static final int DEFAULT_MAX_ATTEMPTS = 3;
+  private static final long DEFAULT_INITIAL_HEDGE_DELAY_MILLIS = 100;
+  private static final int LATENCY_WINDOW_SIZE = 1024;
+  private static final int MIN_LATENCY_SAMPLES = 20;
+  // The hedge delay is recomputed after this many reads rather than on every read
+  private static final int HEDGE_DELAY_UPDATE_INTERVAL = 64;
+
+  private final ContentAddressedBlobStorage delegate;
+  private final ScheduledExecutorService scheduler;
+  private final Ticker ticker;
+  private final double hedgePercentile;
+  private final int maxAttempts;
+  private final long initialHedgeDelayNanos;
+
+  // Ring buffer of the most recent read latencies
+  private final long[] latencies = new long[LATENCY_WINDOW_SIZE];
+  private int latencyCount;
+  private int latencyIndex;
+  private long recordedLatencies;
+  private volatile long hedgeDelayNanos;
+
+  private HedgingContentAddressedBlobStorage(final ContentAddressedBlobStorage delegate,
+                                             final ScheduledExecutorService scheduler,
+                                             final Ticker ticker,
+                                             final double hedgePercentile,
+                                             final int maxAttempts,
+                                             final long initialHedgeDelayMillis) {
+    Preconditions.checkArgument(hedgePercentile > 0 && hedgePercentile < 1,
+        "hedgePercentile must be in (0, 1)");
+    Preconditions.checkArgument(maxAttempts >= 1, "maxAttempts must be at least 1");
+    this.delegate = Objects.requireNonNull(delegate);
+    this.scheduler = Objects.requireNonNull(scheduler);
+    this.ticker = Objects.requireNonNull(ticker);
+    this.hedgePercentile = hedgePercentile;
+    this.maxAttempts = maxAttempts;
+    this.initialHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(initialHedgeDelayMillis);
+    this.hedgeDelayNanos = initialHedgeDelayNanos;
+  }
+
+  public static HedgingContentAddressedBlobStorage create(
+      final ContentAddressedBlobStorage delegate,
+      final ScheduledExecutorService scheduler) {
+    return create(delegate, scheduler, DEFAULT_HEDGE_PERCENTILE, DEFAULT_MAX_ATTEMPTS);
+  }
+
+  /**
+   * @param scheduler       Executor used to time hedged reads.
+   * @param hedgePercentile Percentile of recent read latencies after which a duplicate read is
+   *                        issued, e.g. 0.95.
+   * @param maxAttempts     Maximum number of reads, hedged or retried, issued per get.
+   */
+  public static HedgingContentAddressedBlobStorage create(
+      final ContentAddressedBlobStorage delegate,
+      final ScheduledExecutorService scheduler,
+      final double hedgePercentile,
+      final int maxAttempts) {
+    return create(delegate, scheduler, Ticker.systemTicker(), hedgePercentile, maxAttempts);
+  }
+
+  /**
+   * @param ticker Time source used to measure read latencies.
+   */
+  static HedgingContentAddressedBlobStorage create(
+      final ContentAddressedBlobStorage delegate,
+      final ScheduledExecutorService scheduler,
+      final Ticker ticker,
+      final double hedgePercentile,
+      final int maxAttempts) {
+    return new HedgingContentAddressedBlobStorage(
+        delegate, scheduler, ticker, hedgePercentile, maxAttempts,
+        DEFAULT_INITIAL_HEDGE_DELAY_MILLIS);
+  }
+
+  @Override
+  public HashCode put(final byte[] bytes) {
+    return delegate.put(bytes);
+  }
+
+  @Override
+  public Optional<byte[]> get(final HashCode contentHash) {
+    try {
+      return getAsync(contentHash).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableFuture<HashCode> putAsync(final byte[] bytes) {
+    return delegate.putAsync(bytes);
+  }
+
+  @Override
+  public CompletableFuture<Optional<byte[]>> getAsync(final HashCode contentHash) {
+    final HedgedRead read = new HedgedRead(contentHash);
+    read.attempt();
+    return read.result;
+  }
+
+  long hedgeDelayNanos() {
+    return hedgeDelayNanos;
+  }
+
+  private void recordLatency(final long nanos) {
+    final long[] window;
+    synchronized (latencies) {
+      latencies[latencyIndex] = nanos;
+      latencyIndex = (latencyIndex + 1) % latencies.length;
+      latencyCount = Math.min(latencyCount + 1, latencies.length);
+      recordedLatencies++;
+      if (recordedLatencies < MIN_LATENCY_SAMPLES
+          || (recordedLatencies != MIN_LATENCY_SAMPLES
+              && recordedLatencies % HEDGE_DELAY_UPDATE_INTERVAL != 0)) {
+        return;
+      }
+      window = Arrays.copyOf(latencies, latencyCount);
+    }
+    Arrays.sort(window);
+    hedgeDelayNanos =
+        window[(int) Math.min(window.length - 1, (long) (window.length * hedgePercentile))];
+  }
+
+  private class HedgedRead {
+
+    private final HashCode contentHash;
+    private final CompletableFuture<Optional<byte[]>> result = new CompletableFuture<>();
+    private int attempts;
+    private int inFlight;
+
+    private HedgedRead(final HashCode contentHash) {
+      this.contentHash = contentHash;
+    }
+
+    private synchronized void attempt() {
+      if (result.isDone() || attempts >= maxAttempts) {
+        return;
+      }
+      attempts++;
+      inFlight++;
+
+      final long start = ticker.read();
+      final CompletableFuture<Optional<byte[]>> future;
+      try {
+        future = delegate.getAsync(contentHash);
+      } catch (RuntimeException e) {
+        onFailure(e);
+        return;
+      }
+      future.whenComplete((bytes, throwable) -> {
+        recordLatency(ticker.read() - start);
+        if (throwable == null) {
+          result.complete(bytes);
+        } else {
+          onFailure(throwable);
+        }
+      });
+
+      if (!result.isDone() && attempts < maxAttempts) {
+        scheduler.schedule(this::attempt, hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+      }
+    }
+
+    private synchronized void onFailure(final Throwable throwable) {
+      inFlight--;
+      attempt();
+      if (inFlight == 0) {
+        result.completeExceptionally(throwable);
+      }
+    }
+  }
+}
@@ -0,0 +1,557 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry.storage;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.spotify.protoman.Version;
+import com.spotify.protoman.registry.SchemaFile;
+import com.spotify.protoman.registry.SchemaVersion;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link SchemaStorage} backed by an embedded, transactional key-value store (H2 MVStore) in a
+ * single local file. Intended for single-node deployments.
+ *
+ * Instead of rewriting one index file per commit every fact is stored as its own key: proto
+ * locations, package versions and dependency edges. Keys are suffixed with the generation that
+ * wrote them, which gives multi-version concurrency control on top of the store's ordered maps.
+ * Reading a snapshot is a floor lookup for the newest entry at or below the snapshot generation,
+ * so readers never block each other or an ongoing commit. A commit writes all changes of a
+ * transaction under a new generation and persists them atomically.
+ *
+ * The newest snapshot is also kept in memory, so that reading it does not depend on the length of
+ * the history.
+ */
+public class MvStoreSchemaStorage implements SchemaStorage, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(MvStoreSchemaStorage.class);
+
+  private static final HashFunction CONTENT_HASH_FUNCTION = Hashing.sha256();
+  private static final char KEY_SEPARATOR = '\0';
+  private static final String DELETED = "";
+
+  private final MVStore store;
+  // content hash -> content
+  private final MVMap<String, byte[]> blobs;
+  // path \0 generation -> content hash, or DELETED
+  private final MVMap<String, String> locations;
+  // package \0 generation -> serialized Version
+  private final MVMap<String, byte[]> packages;
+  // path \0 dependency path \0 generation -> true if the edge exists in the generation
+  private final MVMap<String, Boolean> dependencies;
+  // generation -> commit timestamp (millis)
+  private final MVMap<Long, Long> snapshots;
+
+  private final Object commitLock = new Object();
+  // Replaced under the commit lock once a commit is persisted
+  private volatile Latest latest;
+
+  private enum TxState {OPEN, COMMITTED, CLOSED}
+
+  private MvStoreSchemaStorage(final MVStore store) {
+    this.store = Objects.requireNonNull(store);
+    blobs = store.openMap("blobs");
+    locations = store.openMap("locations");
+    packages = store.openMap("packages");
+    dependencies = store.openMap("dependencies");
+    snapshots = store.openMap("snapshots");
+
+    // Create the initial, empty, snapshot if the store is empty
+    synchronized (commitLock) {
+      if (snapshots.isEmpty()) {
+        snapshots.put(1L, System.currentTimeMillis());
+        store.commit();
+      }
+      latest = loadLatest(snapshots.lastKey());
+    }
+  }
+
+  public static MvStoreSchemaStorage create(final Path file) {
+    return new MvStoreSchemaStorage(
+        new MVStore.Builder()
+            .fileName(file.toString())
+            .autoCommitDisabled()
+            .open()
+    );
+  }
+
+  public static MvStoreSchemaStorage createInMemory() {
+    return new MvStoreSchemaStorage(
+        new MVStore.Builder()
+            .autoCommitDisabled()
+            .open()
+    );
+  }
+
+  @Override
+  public ReadAndWriteTransaction open() {
+    return new RwTx(getLatestSnapshotVersion());
+  }
+
+  @Override
+  public ReadOnlyTransaction open(final long snapshotVersion) {
+    if (!snapshots.containsKey(snapshotVersion)) {
+      throw new IllegalArgumentException("Snapshot not found: " + snapshotVersion);
+    }
+    return new RoTx(snapshotVersion);
+  }
+
+  @Override
+  public long getLatestSnapshotVersion() {
+    return snapshots.lastKey();
+  }
+
+  @Override
+  public boolean hasSnapshotVersion(final long snapshotVersion) {
+    return snapshots.containsKey(snapshotVersion);
+  }
+
+  @Override
+  public Stream<Long> getSnapshotVersions() {
+    return ImmutableSet.copyOf(snapshots.keySet()).stream();
+  }
+
+  @Override
+  public void close() {
+    store.close();
+  }
+
+  private static String key(final String name, final long generation) {
+    return name + KEY_SEPARATOR + String.format("%019d", generation);
+  }
+
+  private static String keyPrefix(final String name) {
+    return name + KEY_SEPARATOR;
+  }
+
+  private static String nameOf(final String key) {
+    return key.substring(0, key.lastIndexOf(KEY_SEPARATOR));
+  }
+
+  /**
+   * Look up the newest value of {@code name} written at or before {@code generation}.
+   */
+  @Nullable
+  private static <V> V valueAt(final MVMap<String, V> map,
+                               final String name,
+                               final long generation) {
+    final String floorKey = map.floorKey(key(name, generation));
+    if (floorKey == null || !floorKey.startsWith(keyPrefix(name))
+        || floorKey.length() != keyPrefix(name).length() + 19) {
+      return null;
+    }
+    return map.get(floorKey);
+  }
+
+  /**
+   * Call {@code consumer} with the newest value, written at or before {@code generation}, of every
+   * name with a given prefix. Seeks from name to name rather than iterating over every version.
+   */
+  private static <V> void forEachAt(final MVMap<String, V> map,
+                                    final String prefix,
+                                    final long generation,
+                                    final BiConsumer<String, V> consumer) {
+    String key = map.ceilingKey(prefix);
+    while (key != null && key.startsWith(prefix)) {
+      final String name = nameOf(key);
+      final V value = valueAt(map, name, generation);
+      if (value != null) {
+        consumer.accept(name, value);
+      }
+      key = map.higherKey(key(name, Long.MAX_VALUE));
+    }
+  }
+
+  /**
+   * Read a snapshot from the history.
+   */
+  private Latest loadLatest(final long generation) {
+    final ImmutableSortedMap.Builder<String, String> locationsAt =
+        ImmutableSortedMap.naturalOrder();
+    forEachAt(locations, "", generation, (path, hash) -> {
+      if (!DELETED.equals(hash)) {
+        locationsAt.put(path, hash);
+      }
+    });
+    final ImmutableSortedMap.Builder<String, SchemaVersion> packagesAt =
+        ImmutableSortedMap.naturalOrder();
+    forEachAt(packages, "", generation,
+        (pkgName, bytes) -> packagesAt.put(pkgName, toSchemaVersion(bytes)));
+    final ImmutableSetMultimap.Builder<String, Path> dependenciesAt =
+        ImmutableSetMultimap.builder();
+    forEachAt(dependencies, "", generation, (edge, exists) -> {
+      if (exists) {
+        final int separator = edge.indexOf(KEY_SEPARATOR);
+        dependenciesAt.put(edge.substring(0, separator),
+                           Paths.get(edge.substring(separator + 1)));
+      }
+    });
+    return new Latest(
+        generation, locationsAt.build(), packagesAt.build(), dependenciesAt.build());
+  }
+
+  private static SchemaVersion toSchemaVersion(final byte[] bytes) {
+    try {
+      final Version version = Version.parseFrom(bytes);
+      return SchemaVersion.create(version.getMajor(), version.getMinor(), version.getPatch());
+    } catch (InvalidProtocolBufferException e) {
+      throw new RuntimeException("Error parsing package version: " + e);
+    }
+  }
+
+  private static byte[] toBytes(final SchemaVersion version) {
+    return Version.newBuilder()
+        .setMajor(version.major())
+        .setMinor(version.minor())
+        .setPatch(version.patch())
+        .build()
+        .toByteArray();
+  }
+
+  private class RoTx implements ReadOnlyTransaction {
+
+    protected final AtomicReference<TxState> state;
+    protected final long generation;
+    // The in-memory snapshot, if the transaction reads the newest one
+    @Nullable protected final Latest snapshot;
+
+    private RoTx(final long generation) {
+      this.generation = generation;
+      final Latest current = MvStoreSchemaStorage.this.latest;
+      this.snapshot = current.generation == generation ? current : null;
+      state = new AtomicReference<>(TxState.OPEN);
+    }
+
+    @Override
+    public Stream<SchemaFile> fetchAllFiles() {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      return protoLocations().entrySet().stream()
+          .map(e -> schemaFile(Paths.get(e.getKey()), e.getValue()));
+    }
+
+    @Override
+    public Optional<SchemaVersion> getPackageVersion(final String pkgName) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      if (snapshot != null) {
+        return Optional.ofNullable(snapshot.packages.get(pkgName));
+      }
+      return Optional.ofNullable(valueAt(packages, pkgName, generation))
+          .map(MvStoreSchemaStorage::toSchemaVersion);
+    }
+
+    @Override
+    public Stream<Path> getDependencies(final Path path) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      return storedDependencies(path).stream();
+    }
+
+    @Override
+    public Stream<Path> protosForPackage(final String pkgName) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final Path pkgPath = Paths.get(pkgName.replaceAll("\\.", "/"));
+      return protoLocations().keySet().stream()
+          .map(Paths::get)
+          .filter(path -> Objects.equals(path.getParent(), pkgPath));
+    }
+
+    @Override
+    public SchemaFile schemaFile(final Path path) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final String location = location(path.toString());
+      if (location == null) {
+        throw new RuntimeException("Location not found: " + path);
+      }
+      return schemaFile(path, location);
+    }
+
+    @Override
+    public ImmutableMap<String, SchemaVersion> allPackageVersions() {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      if (snapshot != null) {
+        return snapshot.packages;
+      }
+      final Map<String, SchemaVersion> versions = new TreeMap<>();
+      forEachAt(packages, "", generation,
+          (pkgName, bytes) -> versions.put(pkgName, toSchemaVersion(bytes)));
+      return ImmutableMap.copyOf(versions);
+    }
+
+    @Override
+    public ImmutableMap<Path, HashCode> contentHashes() {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      return protoLocations().entrySet().stream()
+          .collect(toImmutableMap(
+              e -> Paths.get(e.getKey()),
+              e -> HashCode.fromString(e.getValue())));
+    }
+
+    @Override
+    public void close() {
+      Preconditions.checkState(state.getAndSet(TxState.CLOSED) != TxState.CLOSED);
+      // nothing do to
+    }
+
+    @Nullable
+    protected String location(final String path) {
+      if (snapshot != null) {
+        return snapshot.locations.get(path);
+      }
+      final String hash = valueAt(locations, path, generation);
+      return DELETED.equals(hash) ? null : hash;
+    }
+
+    protected ImmutableSet<Path> storedDependencies(final Path path) {
+      if (snapshot != null) {
+        return snapshot.dependencies.get(path.toString());
+      }
+      final ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
+      final String prefix = keyPrefix(path.toString());
+      forEachAt(dependencies, prefix, generation, (edge, exists) -> {
+        if (exists) {
+          builder.add(Paths.get(edge.substring(prefix.length())));
+        }
+      });
+      return builder.build();
+    }
+
+    protected Map<String, String> protoLocations() {
+      if (snapshot != null) {
+        return snapshot.locations;
+      }
+      final Map<String, String> result = new TreeMap<>();
+      forEachAt(locations, "", generation, (path, hash) -> {
+        if (!DELETED.equals(hash)) {
+          result.put(path, hash);
+        }
+      });
+      return result;
+    }
+
+    protected SchemaFile schemaFile(final Path path, final String hash) {
+      final byte[] bytes = blobs.get(hash);
+      if (bytes == null) {
+        throw new IllegalStateException("Location found. Missing data: " + path);
+      }
+      return SchemaFile.create(path, new String(bytes, UTF_8));
+    }
+  }
+
+  private class RwTx extends RoTx implements ReadAndWriteTransaction {
+
+    private final Map<String, byte[]> blobWrites = new HashMap<>();
+    private final Map<String, String> locationWrites = new HashMap<>();
+    private final Map<String, SchemaVersion> packageWrites = new HashMap<>();
+    private final Map<Path, Set<Path>> dependencyWrites = new HashMap<>();
+
+    private RwTx(final long generation) {
+      super(generation);
+    }
+
+    @Override
+    public Optional<SchemaVersion> getPackageVersion(final String pkgName) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final SchemaVersion written = packageWrites.get(pkgName);
+      return written != null ? Optional.of(written) : super.getPackageVersion(pkgName);
+    }
+
+    @Override
+    public Stream<Path> getDependencies(final Path path) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final Set<Path> written = dependencyWrites.get(path);
+      return written != null ? written.stream() : super.getDependencies(path);
+    }
+
+    @Override
+    public ImmutableMap<String, SchemaVersion> allPackageVersions() {
+      final Map<String, SchemaVersion> versions = new TreeMap<>(super.allPackageVersions());
+      versions.putAll(packageWrites);
+      return ImmutableMap.copyOf(versions);
+    }
+
+    @Nullable
+    @Override
+    protected String location(final String path) {
+      final String written = locationWrites.get(path);
+      if (written == null) {
+        return super.location(path);
+      }
+      return DELETED.equals(written) ? null : written;
+    }
+
+    @Override
+    protected Map<String, String> protoLocations() {
+      final Map<String, String> result = new TreeMap<>(super.protoLocations());
+      locationWrites.forEach((path, hash) -> {
+        if (DELETED.equals(hash)) {
+          result.remove(path);
+        } else {
+          result.put(path, hash);
+        }
+      });
+      return result;
+    }
+
+    @Override
+    protected SchemaFile schemaFile(final Path path, final String hash) {
+      final byte[] bytes = blobWrites.get(hash);
+      return bytes != null
+             ? SchemaFile.create(path, new String(bytes, UTF_8))
+             : super.schemaFile(path, hash);
+    }
+
+    @Override
+    public void storeFile(final SchemaFile file) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      final byte[] bytes = file.content().getBytes(UTF_8);
+      final HashCode hash = CONTENT_HASH_FUNCTION.hashBytes(bytes);
+      blobWrites.put(hash.toString(), bytes);
+      locationWrites.put(file.path().toString(), hash.toString());
+      logger.info("Stored file. path={} content={}", file.path(), hash.toString());
+    }
+
+    @Override
+    public void storePackageVersion(final String pkgName, final SchemaVersion version) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      Objects.requireNonNull(pkgName);
+      Objects.requireNonNull(version);
+      packageWrites.put(pkgName, version);
+    }
+
+    @Override
+    public void storeProtoDependencies(final Path path, final Set<Path> paths) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      dependencyWrites.put(path, ImmutableSet.copyOf(paths));
+    }
+
+    @Override
+    public void deleteFile(final Path path) {
+      Preconditions.checkState(state.get() == TxState.OPEN);
+      if (location(path.toString()) == null) {
+        throw new RuntimeException("Not found: " + path);
+      }
+      locationWrites.put(path.toString(), DELETED);
+    }
+
+    // Called under the commit lock, where the latest snapshot is the one this transaction read
+    private ImmutableSetMultimap<String, Path> latestDependencies() {
+      final SetMultimap<String, Path> result = HashMultimap.create(latest.dependencies);
+      dependencyWrites.forEach((path, paths) -> result.replaceValues(path.toString(), paths));
+      return ImmutableSetMultimap.copyOf(result);
+    }
+
+    @Override
+    public long commit() {
+      final ImmutableSortedMap<String, String> locationsAfter =
+          ImmutableSortedMap.copyOf(protoLocations());
+      final ImmutableSortedMap<String, SchemaVersion> packagesAfter =
+          ImmutableSortedMap.copyOf(allPackageVersions());
+      Preconditions.checkState(state.compareAndSet(TxState.OPEN, TxState.COMMITTED));
+
+      synchronized (commitLock) {
+        if (getLatestSnapshotVersion() != generation) {
+          throw new ConcurrentModificationException("Schema storage has been modified.");
+        }
+        final long snapshotVersion = generation + 1;
+        // Writes go straight into the maps, so roll them back if the commit fails part way.
+        // Otherwise the next commit would persist them under the same generation.
+        final long storeVersion = store.getCurrentVersion();
+        try {
+          blobWrites.forEach(blobs::putIfAbsent);
+          locationWrites.forEach(
+              (path, hash) -> locations.put(key(path, snapshotVersion), hash));
+          packageWrites.forEach(
+              (pkgName, version) -> packages.put(key(pkgName, snapshotVersion), toBytes(version)));
+          dependencyWrites.forEach((path, paths) -> {
+            final Set<Path> previous = storedDependencies(path);
+            final String prefix = keyPrefix(path.toString());
+            previous.stream()
+                .filter(dependency -> !paths.contains(dependency))
+                .forEach(dependency -> dependencies.put(
+                    key(prefix + dependency, snapshotVersion), false));
+            paths.stream()
+                .filter(dependency -> !previous.contains(dependency))
+                .forEach(dependency -> dependencies.put(
+                    key(prefix + dependency, snapshotVersion), true));
+          });
+          snapshots.put(snapshotVersion, System.currentTimeMillis());
+          store.commit();
+        } catch (RuntimeException | Error e) {
+          store.rollbackTo(storeVersion);
+          throw e;
+        }
+        latest = new Latest(snapshotVersion, locationsAfter, packagesAfter, latestDependencies());
+
+        logger.info("Committed. snapshotVersion={}", snapshotVersion);
+        return snapshotVersion;
+      }
+    }
+  }
+
+  private static class Latest {
+
+    private final long generation;
+    // path -> content hash, of files that are not deleted
+    private final ImmutableSortedMap<String, String> locations;
+    private final ImmutableSortedMap<String, SchemaVersion> packages;
+    // path -> dependency paths
+    private final ImmutableSetMultimap<String, Path> dependencies;
+
+    private Latest(final long generation,
+                   final ImmutableSortedMap<String, String> locations,
+                   final ImmutableSortedMap<String, SchemaVersion> packages,
+                   final ImmutableSetMultimap<String, Path> dependencies) {
+      this.generation = generation;
+      this.locations = locations;
+      this.packages = packages;
+      this.dependencies = dependencies;
+    }
+  }
+}
@@ -24,6 +24,7 @@ package com.spotify.protoman.registry.storage;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -95,6 +96,10 @@ public class ProtoIndex {
     return ImmutableSetMultimap.copyOf(protoDependencies);
   }
 
+  public ImmutableSet<Path> getProtoDependencies(final Path proto) {
+    return ImmutableSet.copyOf(protoDependencies.get(proto));
+  }
+
   public boolean removeProtoLocation(final String pkg) {
     Objects.requireNonNull(pkg);
     return protoLocations.remove(pkg) != null;
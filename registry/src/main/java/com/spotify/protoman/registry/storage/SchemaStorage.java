@@ -20,15 +20,29 @@
 
 package com.spotify.protoman.registry.storage;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.spotify.protoman.registry.SchemaFile;
 import com.spotify.protoman.registry.SchemaVersion;
 import java.nio.file.Path;
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
+/**
+ * Transactional storage of schema files, package versions and dependencies.
+ *
+ * The {@code *Async} variants never block the calling thread on remote I/O in implementations
+ * that talk to a remote store. Their default implementations call the synchronous variant on
+ * the calling thread, which is appropriate for local stores.
+ */
 public interface SchemaStorage {
 
   ReadAndWriteTransaction open();
@@ -37,22 +51,58 @@ public interface SchemaStorage {
 
   long getLatestSnapshotVersion();
 
+  boolean hasSnapshotVersion(long snapshotVersion);
+
   Stream<Long> getSnapshotVersions();
 
+  default CompletableFuture<Long> getLatestSnapshotVersionAsync() {
+    return CompletableFuture.supplyAsync(
+        this::getLatestSnapshotVersion, MoreExecutors.directExecutor());
+  }
+
+  default CompletableFuture<ReadAndWriteTransaction> openAsync() {
+    return CompletableFuture.supplyAsync(this::open, MoreExecutors.directExecutor());
+  }
+
+  default CompletableFuture<ReadOnlyTransaction> openAsync(final long snapshotVersion) {
+    return CompletableFuture.supplyAsync(
+        () -> open(snapshotVersion), MoreExecutors.directExecutor());
+  }
+
   interface ReadOnlyTransaction extends AutoCloseable {
 
     Stream<SchemaFile> fetchAllFiles();
 
+    default CompletableFuture<ImmutableList<SchemaFile>> fetchAllFilesAsync() {
+      return CompletableFuture.supplyAsync(
+          () -> fetchAllFiles().collect(toImmutableList()), MoreExecutors.directExecutor());
+    }
+
     Optional<SchemaVersion> getPackageVersion(String pkgName);
 
     Stream<Path> getDependencies(Path path);
 
+    default CompletableFuture<ImmutableSet<Path>> getDependenciesAsync(final Path path) {
+      return CompletableFuture.supplyAsync(
+          () -> getDependencies(path).collect(toImmutableSet()), MoreExecutors.directExecutor());
+    }
+
     Stream<Path> protosForPackage(String pkgName);
 
     SchemaFile schemaFile(Path path);
 
+    default CompletableFuture<SchemaFile> schemaFileAsync(final Path path) {
+      return CompletableFuture.supplyAsync(() -> schemaFile(path), MoreExecutors.directExecutor());
+    }
+
     ImmutableMap<String, SchemaVersion> allPackageVersions();
 
+    /**
+     * Content hash of every proto file in the snapshot. Two snapshots holding the same hash for a
+     * path hold the same file content.
+     */
+    ImmutableMap<Path, HashCode> contentHashes();
+
     void close();
   }
 
@@ -0,0 +1,99 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.protoman.registry.storage.MvStoreSchemaStorage;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadAndWriteTransaction;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadOnlyTransaction;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DependencyClosuresTest {
+
+  private static final Path COMMON = Paths.get("common/common.proto");
+  private static final Path FOO_A = Paths.get("foo/a.proto");
+  private static final Path FOO_B = Paths.get("foo/b.proto");
+  private static final Path BAR = Paths.get("bar/bar.proto");
+  private static final Path OTHER = Paths.get("other/other.proto");
+
+  private MvStoreSchemaStorage schemaStorage;
+  private long snapshotVersion;
+
+  @Before
+  public void setup() {
+    schemaStorage = MvStoreSchemaStorage.createInMemory();
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      for (final Path path : ImmutableList.of(COMMON, FOO_A, FOO_B, BAR, OTHER)) {
+        tx.storeFile(SchemaFile.create(path, "content of " + path));
+      }
+      tx.storeProtoDependencies(FOO_A, ImmutableSet.of(FOO_B));
+      tx.storeProtoDependencies(FOO_B, ImmutableSet.of(COMMON));
+      tx.storeProtoDependencies(BAR, ImmutableSet.of(COMMON, FOO_A));
+      snapshotVersion = tx.commit();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    schemaStorage.close();
+  }
+
+  @Test
+  public void testResolve() {
+    try (final ReadOnlyTransaction tx = schemaStorage.open(snapshotVersion)) {
+      final DependencyClosures closures = DependencyClosures.create(snapshotVersion, tx);
+
+      assertThat(ImmutableSet.copyOf(resolve(closures, tx, "foo")),
+          equalTo(ImmutableSet.of(FOO_A, FOO_B, COMMON)));
+      assertThat(ImmutableSet.copyOf(resolve(closures, tx, "bar")),
+          equalTo(ImmutableSet.of(BAR, FOO_A, FOO_B, COMMON)));
+      assertThat(ImmutableSet.copyOf(resolve(closures, tx, "common", "other")),
+          equalTo(ImmutableSet.of(COMMON, OTHER)));
+      assertThat(resolve(closures, tx, "nope"), equalTo(ImmutableList.of()));
+    }
+  }
+
+  @Test
+  public void testUnknownPackagesAreNotLookedUp() {
+    try (final ReadOnlyTransaction tx = schemaStorage.open(snapshotVersion)) {
+      final DependencyClosures closures = DependencyClosures.create(snapshotVersion, tx);
+
+      assertThat(closures.resolve(ImmutableList.of("nope", "foo.a"), pkg -> {
+        throw new AssertionError("Looked up " + pkg);
+      }), equalTo(ImmutableList.of()));
+    }
+  }
+
+  private static ImmutableList<Path> resolve(final DependencyClosures closures,
+                                             final ReadOnlyTransaction tx,
+                                             final String... packages) {
+    return closures.resolve(ImmutableList.copyOf(packages),
+        pkg -> tx.protosForPackage(pkg).collect(ImmutableList.toImmutableList()));
+  }
+}
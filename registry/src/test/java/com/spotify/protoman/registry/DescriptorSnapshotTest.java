@@ -0,0 +1,97 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import java.util.Optional;
+import org.junit.Test;
+
+public class DescriptorSnapshotTest {
+
+  // Dependency order, as produced by protoc
+  private static final DescriptorSnapshot SNAPSHOT = DescriptorSnapshot.create(
+      1, FileDescriptorSet.newBuilder()
+          .addFile(file("common/a.proto", "common"))
+          .addFile(file("other/c.proto", "other"))
+          .addFile(file("foo/b.proto", "foo", "common/a.proto"))
+          .addFile(file("foo/a.proto", "foo", "foo/b.proto"))
+          .build());
+
+  @Test
+  public void testPackageDescriptorsIncludesImports() {
+    assertThat(
+        SNAPSHOT.packageDescriptors(ImmutableList.of("foo")).map(DescriptorSnapshotTest::names),
+        equalTo(Optional.of(ImmutableList.of("common/a.proto", "foo/b.proto", "foo/a.proto"))));
+    assertThat(
+        SNAPSHOT.packageDescriptors(ImmutableList.of("common")).map(DescriptorSnapshotTest::names),
+        equalTo(Optional.of(ImmutableList.of("common/a.proto"))));
+  }
+
+  @Test
+  public void testPackageDescriptorsMultiplePackages() {
+    assertThat(
+        SNAPSHOT.packageDescriptors(ImmutableList.of("other", "common"))
+            .map(DescriptorSnapshotTest::names),
+        equalTo(Optional.of(ImmutableList.of("common/a.proto", "other/c.proto"))));
+  }
+
+  @Test
+  public void testPackageDescriptorsUnknownPackage() {
+    assertThat(SNAPSHOT.packageDescriptors(ImmutableList.of("bar")), equalTo(Optional.empty()));
+    assertThat(SNAPSHOT.packageDescriptors(ImmutableList.of("foo", "bar")),
+        equalTo(Optional.empty()));
+  }
+
+  @Test
+  public void testPage() {
+    assertThat(names(SNAPSHOT.page(null, 2)),
+        equalTo(ImmutableList.of("common/a.proto", "foo/a.proto")));
+    assertThat(names(SNAPSHOT.page("foo/a.proto", 2)),
+        equalTo(ImmutableList.of("foo/b.proto", "other/c.proto")));
+    assertThat(names(SNAPSHOT.page("other/c.proto", 2)), equalTo(ImmutableList.of()));
+  }
+
+  private static FileDescriptorProto file(final String name,
+                                          final String pkg,
+                                          final String... dependencies) {
+    return FileDescriptorProto.newBuilder()
+        .setName(name)
+        .setPackage(pkg)
+        .addAllDependency(ImmutableList.copyOf(dependencies))
+        .build();
+  }
+
+  private static ImmutableList<String> names(final FileDescriptorSet fileDescriptorSet) {
+    return names(fileDescriptorSet.getFileList());
+  }
+
+  private static ImmutableList<String> names(final Iterable<FileDescriptorProto> files) {
+    return ImmutableList.copyOf(files).stream()
+        .map(FileDescriptorProto::getName)
+        .collect(toImmutableList());
+  }
+}
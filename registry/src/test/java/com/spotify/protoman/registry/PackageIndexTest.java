@@ -0,0 +1,66 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+public class PackageIndexTest {
+
+  private static final PackageIndex INDEX = PackageIndex.create(1, ImmutableList.of(
+      "spotify.foo",
+      "spotify.foo.bar",
+      "spotify.foo-x",
+      "spotify.foo.baz.qux",
+      "spotify.quux.a",
+      "spotifyx",
+      "other"
+  ));
+
+  @Test
+  public void testSubPackages() {
+    assertThat(INDEX.subPackages("spotify"), equalTo(ImmutableList.of(
+        ".foo", ".foo-x", ".foo.bar", ".foo.baz.qux", ".quux.a", "x")));
+    assertThat(INDEX.subPackages("spotify.foo."), equalTo(ImmutableList.of(
+        "bar", "baz.qux")));
+    assertThat(INDEX.subPackages("nope"), equalTo(ImmutableList.of()));
+    assertThat(INDEX.subPackages("").size(), equalTo(7));
+  }
+
+  @Test
+  public void testChildren() {
+    assertThat(INDEX.children("spotify"), equalTo(ImmutableList.of(
+        PackageIndex.Child.create("foo", 3),
+        PackageIndex.Child.create("foo-x", 1),
+        PackageIndex.Child.create("quux", 1))));
+    assertThat(INDEX.children("spotify.foo"), equalTo(ImmutableList.of(
+        PackageIndex.Child.create("bar", 1),
+        PackageIndex.Child.create("baz", 1))));
+    assertThat(INDEX.children(""), equalTo(ImmutableList.of(
+        PackageIndex.Child.create("other", 1),
+        PackageIndex.Child.create("spotify", 5),
+        PackageIndex.Child.create("spotifyx", 1))));
+    assertThat(INDEX.children("spotify.foo.bar"), equalTo(ImmutableList.of()));
+  }
+}
@@ -0,0 +1,167 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.protoman.ChangeType;
+import com.spotify.protoman.PackageChange;
+import com.spotify.protoman.PathChange;
+import com.spotify.protoman.SchemaDiff;
+import com.spotify.protoman.descriptor.ProtocDescriptorBuilder;
+import com.spotify.protoman.registry.storage.MvStoreSchemaStorage;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadAndWriteTransaction;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchemaDifferTest {
+
+  private static final Path COMMON = Paths.get("common/common.proto");
+  private static final Path PLAYLIST = Paths.get("playlist/playlist.proto");
+
+  private MvStoreSchemaStorage schemaStorage;
+  private SchemaDiffer schemaDiffer;
+
+  @Before
+  public void setup() {
+    schemaStorage = MvStoreSchemaStorage.createInMemory();
+    schemaDiffer = SchemaDiffer.create(
+        schemaStorage, ProtocDescriptorBuilder.factoryBuilder().build());
+  }
+
+  @After
+  public void tearDown() {
+    schemaStorage.close();
+  }
+
+  @Test
+  public void testDiff() {
+    final long first = commit(
+        "syntax = 'proto3'; package common; message Id { string id = 1; }",
+        "syntax = 'proto3'; package playlist; import 'common/common.proto';"
+        + " message Playlist { common.Id id = 1; string name = 2; }",
+        SchemaVersion.create("1", 0, 0));
+    final long second = commit(
+        "syntax = 'proto3'; package common; message Id { string id = 1; }",
+        "syntax = 'proto3'; package playlist; import 'common/common.proto';"
+        + " message Playlist { common.Id id = 1; int64 name = 2; string owner = 3; }"
+        + " enum Kind { UNKNOWN = 0; }",
+        SchemaVersion.create("2", 0, 0));
+
+    final SchemaDiff diff = schemaDiffer.diff(first, second);
+    assertThat(diff.getPreviousGeneration(), equalTo(first));
+    assertThat(diff.getGeneration(), equalTo(second));
+    assertThat(diff.getPathChangeList(), equalTo(ImmutableList.of(PathChange.newBuilder()
+        .setPath(PLAYLIST.toString())
+        .setType(ChangeType.MODIFIED)
+        .build())));
+    assertThat(diff.getPackageChangeList(), equalTo(ImmutableList.of(PackageChange.newBuilder()
+        .setPackage("playlist")
+        .setType(ChangeType.MODIFIED)
+        .setPreviousVersion(versionProto("1"))
+        .setVersion(versionProto("2"))
+        .build())));
+    // The message itself did not change, only its fields
+    assertThat(descriptorChanges(diff), equalTo(ImmutableSet.of(
+        "MODIFIED FIELD playlist.Playlist.name",
+        "ADDED FIELD playlist.Playlist.owner",
+        "ADDED ENUM_TYPE playlist.Kind",
+        "ADDED ENUM_VALUE playlist.Kind.UNKNOWN")));
+
+    assertThat(schemaDiffer.diff(first, second), sameInstance(diff));
+  }
+
+  @Test
+  public void testDiffFromEmpty() {
+    final long generation = commit(
+        "syntax = 'proto3'; package common; message Id { string id = 1; }",
+        "syntax = 'proto3'; package playlist; message Playlist {}",
+        SchemaVersion.create("1", 0, 0));
+
+    final SchemaDiff diff = schemaDiffer.diff(0, 0);
+    assertThat(diff.getGeneration(), equalTo(generation));
+    assertThat(diff.getPathChangeList().stream()
+                   .map(PathChange::getType)
+                   .collect(toImmutableList()),
+               equalTo(ImmutableList.of(ChangeType.ADDED, ChangeType.ADDED)));
+    assertThat(descriptorChanges(diff), equalTo(ImmutableSet.of(
+        "ADDED FILE common/common.proto",
+        "ADDED MESSAGE common.Id",
+        "ADDED FIELD common.Id.id",
+        "ADDED FILE playlist/playlist.proto",
+        "ADDED MESSAGE playlist.Playlist")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDiffBackwards() {
+    final long first = commit(
+        "syntax = 'proto3'; package common; message Id {}",
+        "syntax = 'proto3'; package playlist; message Playlist {}",
+        SchemaVersion.create("1", 0, 0));
+    final long second = commit(
+        "syntax = 'proto3'; package common; message Id {}",
+        "syntax = 'proto3'; package playlist; message Playlist { string name = 1; }",
+        SchemaVersion.create("2", 0, 0));
+
+    schemaDiffer.diff(second, first);
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void testDiffUnknownGeneration() {
+    final long generation = commit(
+        "syntax = 'proto3'; package common; message Id {}",
+        "syntax = 'proto3'; package playlist; message Playlist {}",
+        SchemaVersion.create("1", 0, 0));
+
+    schemaDiffer.diff(0, generation + 1);
+  }
+
+  private long commit(final String common, final String playlist, final SchemaVersion version) {
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(SchemaFile.create(COMMON, common));
+      tx.storeFile(SchemaFile.create(PLAYLIST, playlist));
+      tx.storeProtoDependencies(COMMON, ImmutableSet.of());
+      tx.storeProtoDependencies(PLAYLIST, ImmutableSet.of(COMMON));
+      tx.storePackageVersion("common", SchemaVersion.create("1", 0, 0));
+      tx.storePackageVersion("playlist", version);
+      return tx.commit();
+    }
+  }
+
+  private static com.spotify.protoman.SchemaVersion versionProto(final String major) {
+    return com.spotify.protoman.SchemaVersion.newBuilder().setMajor(major).build();
+  }
+
+  private static ImmutableSet<String> descriptorChanges(final SchemaDiff diff) {
+    return diff.getDescriptorChangeList().stream()
+        .map(change -> change.getType() + " " + change.getKind() + " " + change.getFullName())
+        .collect(ImmutableSet.toImmutableSet());
+  }
+}
@@ -0,0 +1,192 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.DescriptorProtos.MethodDescriptorProto;
+import com.google.protobuf.DescriptorProtos.OneofDescriptorProto;
+import com.google.protobuf.DescriptorProtos.ServiceDescriptorProto;
+import io.grpc.Status;
+import io.grpc.reflection.v1alpha.ExtensionRequest;
+import io.grpc.reflection.v1alpha.ServerReflectionRequest;
+import io.grpc.reflection.v1alpha.ServerReflectionResponse;
+import io.grpc.reflection.v1alpha.ServiceResponse;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class SchemaReflectionServiceTest {
+
+  private static final FileDescriptorProto BASE = FileDescriptorProto.newBuilder()
+      .setName("base/base.proto")
+      .setPackage("base")
+      .setSyntax("proto2")
+      .addMessageType(DescriptorProto.newBuilder()
+          .setName("Base")
+          .addExtensionRange(DescriptorProto.ExtensionRange.newBuilder()
+              .setStart(100)
+              .setEnd(200)))
+      .build();
+
+  private static final FileDescriptorProto FOO = FileDescriptorProto.newBuilder()
+      .setName("foo/foo.proto")
+      .setPackage("foo")
+      .setSyntax("proto2")
+      .addDependency("base/base.proto")
+      .addMessageType(DescriptorProto.newBuilder()
+          .setName("Foo")
+          .addNestedType(DescriptorProto.newBuilder().setName("Bar"))
+          .addOneofDecl(OneofDescriptorProto.newBuilder().setName("choice"))
+          .addEnumType(EnumDescriptorProto.newBuilder()
+              .setName("Kind")
+              .addValue(EnumValueDescriptorProto.newBuilder()
+                  .setName("KIND_UNKNOWN")
+                  .setNumber(0))))
+      .addExtension(FieldDescriptorProto.newBuilder()
+          .setName("foo_ext")
+          .setNumber(123)
+          .setExtendee(".base.Base")
+          .setType(FieldDescriptorProto.Type.TYPE_STRING)
+          .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL))
+      .addService(ServiceDescriptorProto.newBuilder()
+          .setName("FooService")
+          .addMethod(MethodDescriptorProto.newBuilder()
+              .setName("GetFoo")
+              .setInputType(".foo.Foo")
+              .setOutputType(".foo.Foo")))
+      .build();
+
+  private final SchemaReflectionService service = SchemaReflectionService.create(
+      new FakeSchemaGetter(DescriptorSnapshot.create(
+          1, FileDescriptorSet.newBuilder().addFile(BASE).addFile(FOO).build())));
+
+  @Test
+  public void testFileContainingSymbol() throws Exception {
+    final ImmutableList<ByteString> expected =
+        ImmutableList.of(FOO.toByteString(), BASE.toByteString());
+
+    assertThat(files(request().setFileContainingSymbol("foo.Foo.Bar")), equalTo(expected));
+    assertThat(files(request().setFileContainingSymbol("foo.FooService.GetFoo")),
+        equalTo(expected));
+    assertThat(files(request().setFileContainingSymbol("foo.Foo.choice")), equalTo(expected));
+    assertThat(files(request().setFileContainingSymbol("foo.Foo.Kind")), equalTo(expected));
+    assertThat(files(request().setFileContainingSymbol("foo.Foo.KIND_UNKNOWN")),
+        equalTo(expected));
+    assertThat(files(request().setFileContainingSymbol("foo.Foo.Kind.KIND_UNKNOWN")),
+        equalTo(expected));
+    assertThat(files(request().setFileByFilename("foo/foo.proto")), equalTo(expected));
+    assertThat(files(request().setFileContainingExtension(ExtensionRequest.newBuilder()
+        .setContainingType("base.Base")
+        .setExtensionNumber(123))), equalTo(expected));
+  }
+
+  @Test
+  public void testNotFound() throws Exception {
+    assertThat(
+        reflect(request().setFileContainingSymbol("foo.Nope")).getErrorResponse().getErrorCode(),
+        equalTo(Status.Code.NOT_FOUND.value()));
+  }
+
+  @Test
+  public void testListServices() throws Exception {
+    assertThat(reflect(request().setListServices("*")).getListServicesResponse().getServiceList(),
+        equalTo(ImmutableList.of(ServiceResponse.newBuilder().setName("foo.FooService").build())));
+  }
+
+  @Test
+  public void testAllExtensionNumbersOfType() throws Exception {
+    assertThat(reflect(request().setAllExtensionNumbersOfType("base.Base"))
+            .getAllExtensionNumbersResponse().getExtensionNumberList(),
+        equalTo(ImmutableList.of(123)));
+  }
+
+  private static ServerReflectionRequest.Builder request() {
+    return ServerReflectionRequest.newBuilder();
+  }
+
+  private ImmutableList<ByteString> files(final ServerReflectionRequest.Builder request)
+      throws Exception {
+    return reflect(request).getFileDescriptorResponse().getFileDescriptorProtoList().stream()
+        .collect(toImmutableList());
+  }
+
+  private ServerReflectionResponse reflect(final ServerReflectionRequest.Builder request)
+      throws Exception {
+    final List<ServerReflectionResponse> responses = new ArrayList<>();
+    final StreamObserver<ServerReflectionRequest> requests = service.serverReflectionInfo(
+        new StreamObserver<ServerReflectionResponse>() {
+          @Override
+          public void onNext(final ServerReflectionResponse value) {
+            responses.add(value);
+          }
+
+          @Override
+          public void onError(final Throwable t) {
+            throw new AssertionError(t);
+          }
+
+          @Override
+          public void onCompleted() {
+          }
+        });
+    requests.onNext(request.build());
+    requests.onCompleted();
+    assertThat(responses.size(), equalTo(1));
+    return responses.get(0);
+  }
+
+  private static class FakeSchemaGetter implements SchemaGetter {
+
+    private final DescriptorSnapshot descriptorSnapshot;
+
+    private FakeSchemaGetter(final DescriptorSnapshot descriptorSnapshot) {
+      this.descriptorSnapshot = descriptorSnapshot;
+    }
+
+    @Override
+    public Stream<SchemaFile> getSchemataForPackages(final ImmutableList<String> protoPackages) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Stream<String> getPackageNames() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DescriptorSnapshot descriptorSnapshot() {
+      return descriptorSnapshot;
+    }
+  }
+}
@@ -0,0 +1,373 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.spotify.protoman.DiffSchemaRequest;
+import com.spotify.protoman.GetDescriptorSetRequest;
+import com.spotify.protoman.GetDescriptorSetResponse;
+import com.spotify.protoman.ProtoFile;
+import com.spotify.protoman.PublishSchemaRequest;
+import com.spotify.protoman.PublishSchemaResponse;
+import com.spotify.protoman.PublishedPackage;
+import com.spotify.protoman.SchemaChange;
+import com.spotify.protoman.SchemaDiff;
+import com.spotify.protoman.SchemaRegistryGrpc;
+import com.spotify.protoman.WatchSchemaRequest;
+import com.spotify.protoman.descriptor.ProtocDescriptorBuilder;
+import com.spotify.protoman.registry.storage.MvStoreSchemaStorage;
+import com.spotify.protoman.registry.storage.SchemaStorage;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadAndWriteTransaction;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadOnlyTransaction;
+import com.spotify.protoman.validation.DefaultSchemaValidator;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchemaRegistryServiceTest {
+
+  private static final PublishSchemaRequest PUBLISH_REQUEST = PublishSchemaRequest.newBuilder()
+      .addProtoFile(ProtoFile.newBuilder()
+          .setPath("common/common.proto")
+          .setContent("syntax = 'proto3'; package common; message Id { string id = 1; }"))
+      .build();
+
+  private MvStoreSchemaStorage schemaStorage;
+  private SchemaRegistry schemaRegistry;
+  private SchemaWatcher schemaWatcher;
+  private SchemaDiffer schemaDiffer;
+  private SchemaRegistryService service;
+
+  @Before
+  public void setup() {
+    schemaStorage = MvStoreSchemaStorage.createInMemory();
+    schemaRegistry = SchemaRegistry.create(
+        schemaStorage,
+        DefaultSchemaValidator.withDefaultRules(),
+        SemverSchemaVersioner.create(),
+        ProtocDescriptorBuilder.factoryBuilder().build());
+    schemaWatcher = SchemaWatcher.create(schemaStorage, Duration.ofHours(1));
+    schemaDiffer = SchemaDiffer.create(
+        schemaStorage, ProtocDescriptorBuilder.factoryBuilder().build());
+    service = SchemaRegistryService.create(
+        schemaRegistry, schemaRegistry, schemaWatcher, schemaDiffer);
+  }
+
+  @After
+  public void tearDown() {
+    schemaWatcher.close();
+    schemaStorage.close();
+  }
+
+  @Test
+  public void followerForwardsPublishToWriter() throws Exception {
+    final String name = "writer-" + System.nanoTime();
+    final Server writer = InProcessServerBuilder.forName(name)
+        .directExecutor()
+        .addService(service)
+        .build()
+        .start();
+    final ManagedChannel channel = InProcessChannelBuilder.forName(name)
+        .directExecutor()
+        .build();
+    try {
+      final SchemaRegistryService follower = SchemaRegistryService.createFollower(
+          schemaRegistry, schemaWatcher, schemaDiffer, SchemaRegistryGrpc.newStub(channel));
+
+      final Responses<PublishSchemaResponse> responses = new Responses<>();
+      follower.publishSchema(PUBLISH_REQUEST, responses);
+
+      assertThat(responses.single().getPublishedPackageList().stream()
+              .map(PublishedPackage::getPackage)
+              .collect(ImmutableList.toImmutableList()),
+          equalTo(ImmutableList.of("common")));
+      assertThat(schemaRegistry.getPackageNames()
+              .collect(ImmutableList.toImmutableList()),
+          equalTo(ImmutableList.of("common")));
+    } finally {
+      channel.shutdownNow();
+      writer.shutdownNow();
+    }
+  }
+
+  @Test
+  public void followerWithoutWriterRejectsPublish() throws Exception {
+    final SchemaRegistryService follower = SchemaRegistryService.createFollower(
+        schemaRegistry, schemaWatcher, schemaDiffer, null);
+    final long snapshotVersion = schemaStorage.getLatestSnapshotVersion();
+
+    final Responses<PublishSchemaResponse> responses = new Responses<>();
+    follower.publishSchema(PUBLISH_REQUEST, responses);
+
+    assertThat(responses.status().getCode(), equalTo(Status.Code.FAILED_PRECONDITION));
+    assertThat(schemaStorage.getLatestSnapshotVersion(), equalTo(snapshotVersion));
+  }
+
+  @Test
+  public void getDescriptorSetIncludesImportedFiles() throws Exception {
+    publishPlaylist();
+
+    final GetDescriptorSetResponse response = getDescriptorSet(
+        GetDescriptorSetRequest.newBuilder().addPackage("playlist").build());
+
+    assertThat(fileNames(response), equalTo(ImmutableList.of(
+        "common/common.proto", "playlist/playlist.proto")));
+    assertThat(response.getGeneration(), equalTo(schemaStorage.getLatestSnapshotVersion()));
+    assertThat(response.getFileDescriptorSet().getFile(1).hasSourceCodeInfo(), equalTo(true));
+  }
+
+  @Test
+  public void getDescriptorSetExcludesSourceCodeInfo() throws Exception {
+    publishPlaylist();
+
+    final GetDescriptorSetResponse response = getDescriptorSet(
+        GetDescriptorSetRequest.newBuilder()
+            .addPackage("playlist")
+            .setExcludeSourceCodeInfo(true)
+            .build());
+
+    assertThat(fileNames(response), equalTo(ImmutableList.of(
+        "common/common.proto", "playlist/playlist.proto")));
+    assertThat(response.getFileDescriptorSet().getFileList().stream()
+            .anyMatch(FileDescriptorProto::hasSourceCodeInfo),
+        equalTo(false));
+  }
+
+  @Test
+  public void getDescriptorSetOfUnknownPackageIsNotFound() throws Exception {
+    publishPlaylist();
+
+    final Responses<GetDescriptorSetResponse> responses = new Responses<>();
+    service.getDescriptorSet(
+        GetDescriptorSetRequest.newBuilder().addPackage("playlist").addPackage("nope").build(),
+        responses);
+
+    assertThat(responses.status().getCode(), equalTo(Status.Code.NOT_FOUND));
+  }
+
+  @Test
+  public void getDescriptorSetResponsesAreCachedPerRequest() throws Exception {
+    publishPlaylist();
+
+    final GetDescriptorSetResponse response = getDescriptorSet(
+        GetDescriptorSetRequest.newBuilder().addPackage("playlist").addPackage("common").build());
+
+    // Package order does not matter
+    assertThat(getDescriptorSet(GetDescriptorSetRequest.newBuilder()
+            .addPackage("common")
+            .addPackage("playlist")
+            .build()),
+        sameInstance(response));
+    assertThat(getDescriptorSet(GetDescriptorSetRequest.newBuilder()
+            .addPackage("common")
+            .addPackage("playlist")
+            .setExcludeSourceCodeInfo(true)
+            .build()),
+        not(sameInstance(response)));
+
+    // A new snapshot is not served from the entries of the previous one
+    service.publishSchema(PUBLISH_REQUEST.toBuilder()
+        .addProtoFile(ProtoFile.newBuilder()
+            .setPath("common/other.proto")
+            .setContent("syntax = 'proto3'; package common; message Other {}"))
+        .build(), new Responses<>());
+    final GetDescriptorSetResponse updated = getDescriptorSet(
+        GetDescriptorSetRequest.newBuilder().addPackage("playlist").addPackage("common").build());
+    assertThat(updated.getGeneration(), equalTo(schemaStorage.getLatestSnapshotVersion()));
+    assertThat(updated.getGeneration(), not(equalTo(response.getGeneration())));
+  }
+
+  @Test
+  public void diffSchemaValidatesGenerations() throws Exception {
+    publishPlaylist();
+    final long latest = schemaStorage.getLatestSnapshotVersion();
+
+    assertThat(diffSchema(0, 0).getGeneration(), equalTo(latest));
+    assertThat(diffStatus(latest, latest - 1).getCode(), equalTo(Status.Code.INVALID_ARGUMENT));
+    assertThat(diffStatus(0, latest + 1).getCode(), equalTo(Status.Code.NOT_FOUND));
+  }
+
+  @Test
+  public void watchFromExpiredGenerationFailsWithOutOfRange() throws Exception {
+    final long expired = commit(SchemaFile.create(Paths.get("pkg1/proto1.proto"), "CONTENT1"));
+    commit(SchemaFile.create(Paths.get("pkg2/proto2.proto"), "CONTENT2"));
+    try (final SchemaWatcher watcher = SchemaWatcher.create(
+        new ExpiringSchemaStorage(schemaStorage, expired), Duration.ofHours(1))) {
+      final SchemaRegistryService service = SchemaRegistryService.create(
+          schemaRegistry, schemaRegistry, watcher, schemaDiffer);
+
+      final Responses<SchemaChange> responses = new Responses<>();
+      service.watchSchema(
+          WatchSchemaRequest.newBuilder().setFromGeneration(expired).build(), responses);
+
+      assertThat(responses.status().getCode(), equalTo(Status.Code.OUT_OF_RANGE));
+    }
+  }
+
+  private long commit(final SchemaFile file) {
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(file);
+      return tx.commit();
+    }
+  }
+
+  private void publishPlaylist() throws Exception {
+    final Responses<PublishSchemaResponse> responses = new Responses<>();
+    service.publishSchema(PUBLISH_REQUEST.toBuilder()
+        .addProtoFile(ProtoFile.newBuilder()
+            .setPath("playlist/playlist.proto")
+            .setContent("syntax = 'proto3'; package playlist; import 'common/common.proto';"
+                        + " message Playlist { common.Id id = 1; }"))
+        .build(), responses);
+    assertThat(responses.single().getPublishedPackageCount(), equalTo(2));
+  }
+
+  private GetDescriptorSetResponse getDescriptorSet(final GetDescriptorSetRequest request)
+      throws Exception {
+    final Responses<GetDescriptorSetResponse> responses = new Responses<>();
+    service.getDescriptorSet(request, responses);
+    return responses.single();
+  }
+
+  private SchemaDiff diffSchema(final long from, final long to) throws Exception {
+    final Responses<SchemaDiff> responses = new Responses<>();
+    service.diffSchema(diffRequest(from, to), responses);
+    return responses.single();
+  }
+
+  private Status diffStatus(final long from, final long to) throws Exception {
+    final Responses<SchemaDiff> responses = new Responses<>();
+    service.diffSchema(diffRequest(from, to), responses);
+    return responses.status();
+  }
+
+  private static DiffSchemaRequest diffRequest(final long from, final long to) {
+    return DiffSchemaRequest.newBuilder().setFromGeneration(from).setToGeneration(to).build();
+  }
+
+  private static ImmutableList<String> fileNames(final GetDescriptorSetResponse response) {
+    return response.getFileDescriptorSet().getFileList().stream()
+        .map(FileDescriptorProto::getName)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /**
+   * Storage from which one snapshot has expired.
+   */
+  private static class ExpiringSchemaStorage implements SchemaStorage {
+
+    private final SchemaStorage delegate;
+    private final long expired;
+
+    private ExpiringSchemaStorage(final SchemaStorage delegate, final long expired) {
+      this.delegate = delegate;
+      this.expired = expired;
+    }
+
+    @Override
+    public ReadAndWriteTransaction open() {
+      return delegate.open();
+    }
+
+    @Override
+    public ReadOnlyTransaction open(final long snapshotVersion) {
+      if (snapshotVersion == expired) {
+        throw new IllegalArgumentException("Snapshot not found: " + snapshotVersion);
+      }
+      return delegate.open(snapshotVersion);
+    }
+
+    @Override
+    public long getLatestSnapshotVersion() {
+      return delegate.getLatestSnapshotVersion();
+    }
+
+    @Override
+    public boolean hasSnapshotVersion(final long snapshotVersion) {
+      return snapshotVersion != expired && delegate.hasSnapshotVersion(snapshotVersion);
+    }
+
+    @Override
+    public Stream<Long> getSnapshotVersions() {
+      return delegate.getSnapshotVersions().filter(snapshotVersion -> snapshotVersion != expired);
+    }
+  }
+
+  /**
+   * Collects the responses of a call.
+   */
+  private static class Responses<T> implements StreamObserver<T> {
+
+    private final List<T> values = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<List<T>> done = new CompletableFuture<>();
+
+    @Override
+    public void onNext(final T value) {
+      values.add(value);
+    }
+
+    @Override
+    public void onError(final Throwable t) {
+      done.completeExceptionally(t);
+    }
+
+    @Override
+    public void onCompleted() {
+      done.complete(new ArrayList<>(values));
+    }
+
+    private T single() throws Exception {
+      final List<T> result = done.get(10, TimeUnit.SECONDS);
+      assertThat(result.size(), equalTo(1));
+      return result.get(0);
+    }
+
+    private Status status() throws Exception {
+      try {
+        done.get(10, TimeUnit.SECONDS);
+      } catch (ExecutionException e) {
+        return Status.fromThrowable(e.getCause());
+      }
+      throw new AssertionError("Call did not fail");
+    }
+  }
+}
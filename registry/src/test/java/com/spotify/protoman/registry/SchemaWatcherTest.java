@@ -0,0 +1,158 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.protoman.SchemaChange;
+import com.spotify.protoman.registry.storage.MvStoreSchemaStorage;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadAndWriteTransaction;
+import io.grpc.stub.StreamObserver;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchemaWatcherTest {
+
+  private static final SchemaFile schemaFile1 = SchemaFile.create(
+      Paths.get("pkg1/proto1.proto"), "CONTENT1");
+
+  private static final SchemaFile schemaFile2 = SchemaFile.create(
+      Paths.get("pkg2/proto2.proto"), "CONTENT2");
+
+  private static final SchemaVersion VERSION_1_0_0 = SchemaVersion.create("1", 0, 0);
+
+  private MvStoreSchemaStorage schemaStorage;
+  private SchemaWatcher schemaWatcher;
+
+  @Before
+  public void setup() {
+    schemaStorage = MvStoreSchemaStorage.createInMemory();
+    schemaWatcher = SchemaWatcher.create(schemaStorage, Duration.ofHours(1));
+  }
+
+  @After
+  public void tearDown() {
+    schemaWatcher.close();
+    schemaStorage.close();
+  }
+
+  @Test
+  public void notifiesWatchersOfNewSnapshots() throws Exception {
+    final long initial = schemaStorage.getLatestSnapshotVersion();
+    final BlockingQueue<SchemaChange> changes = new LinkedBlockingQueue<>();
+    schemaWatcher.watch(initial, collectingObserver(changes));
+
+    final long snapshot1;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile1);
+      tx.storePackageVersion("pkg1", VERSION_1_0_0);
+      snapshot1 = tx.commit();
+    }
+    schemaWatcher.poll();
+
+    assertThat(changes.poll(10, TimeUnit.SECONDS), equalTo(SchemaChange.newBuilder()
+        .setGeneration(snapshot1)
+        .setPreviousGeneration(initial)
+        .addChangedPackage("pkg1")
+        .addChangedPath("pkg1/proto1.proto")
+        .build()));
+
+    final long snapshot2;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile2);
+      snapshot2 = tx.commit();
+    }
+    schemaWatcher.poll();
+
+    assertThat(changes.poll(10, TimeUnit.SECONDS), equalTo(SchemaChange.newBuilder()
+        .setGeneration(snapshot2)
+        .setPreviousGeneration(snapshot1)
+        .addChangedPath("pkg2/proto2.proto")
+        .build()));
+  }
+
+  @Test
+  public void resumesFromGeneration() throws Exception {
+    final long snapshot1;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile1);
+      snapshot1 = tx.commit();
+    }
+    final long snapshot2;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile2);
+      snapshot2 = tx.commit();
+    }
+    schemaWatcher.poll();
+
+    final SchemaChange change = schemaWatcher.nextChange(snapshot1).get(10, TimeUnit.SECONDS);
+    assertThat(change, equalTo(SchemaChange.newBuilder()
+        .setGeneration(snapshot2)
+        .setPreviousGeneration(snapshot1)
+        .addChangedPath("pkg2/proto2.proto")
+        .build()));
+  }
+
+  @Test
+  public void nextChangeWaitsForNewSnapshot() throws Exception {
+    final CompletableFuture<SchemaChange> change =
+        schemaWatcher.nextChange(schemaStorage.getLatestSnapshotVersion());
+    schemaWatcher.poll();
+    Thread.sleep(100);
+    assertThat(change.isDone(), is(false));
+
+    final long snapshot;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile1);
+      snapshot = tx.commit();
+    }
+    schemaWatcher.poll();
+
+    assertThat(change.get(10, TimeUnit.SECONDS).getGeneration(), equalTo(snapshot));
+  }
+
+  private static StreamObserver<SchemaChange> collectingObserver(
+      final BlockingQueue<SchemaChange> changes) {
+    return new StreamObserver<SchemaChange>() {
+      @Override
+      public void onNext(final SchemaChange value) {
+        changes.add(value);
+      }
+
+      @Override
+      public void onError(final Throwable t) {
+      }
+
+      @Override
+      public void onCompleted() {
+      }
+    };
+  }
+}
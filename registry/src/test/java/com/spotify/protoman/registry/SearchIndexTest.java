@@ -0,0 +1,103 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.DescriptorProtos.MethodDescriptorProto;
+import com.google.protobuf.DescriptorProtos.ServiceDescriptorProto;
+import com.google.protobuf.DescriptorProtos.SourceCodeInfo;
+import com.spotify.protoman.SearchResult;
+import org.junit.Test;
+
+public class SearchIndexTest {
+
+  private static final SearchIndex INDEX = SearchIndex.create(DescriptorSnapshot.create(
+      1, FileDescriptorSet.newBuilder()
+          .addFile(FileDescriptorProto.newBuilder()
+              .setName("spotify/playlist/playlist.proto")
+              .setPackage("spotify.playlist")
+              .addMessageType(DescriptorProto.newBuilder()
+                  .setName("PlaylistItem")
+                  .addField(FieldDescriptorProto.newBuilder().setName("track_uri").setNumber(1))
+                  .addField(FieldDescriptorProto.newBuilder().setName("added_by").setNumber(2)))
+              .addEnumType(EnumDescriptorProto.newBuilder()
+                  .setName("Visibility")
+                  .addValue(EnumValueDescriptorProto.newBuilder().setName("PUBLIC"))
+                  .addValue(EnumValueDescriptorProto.newBuilder().setName("PRIVATE")))
+              .addService(ServiceDescriptorProto.newBuilder()
+                  .setName("PlaylistService")
+                  .addMethod(MethodDescriptorProto.newBuilder().setName("GetPlaylist")))
+              .setSourceCodeInfo(SourceCodeInfo.newBuilder()
+                  // message_type[0].field[1]
+                  .addLocation(SourceCodeInfo.Location.newBuilder()
+                      .addPath(4).addPath(0).addPath(2).addPath(1)
+                      .setLeadingComments(" Username of the collaborator\n"))))
+          .build()));
+
+  @Test
+  public void testNamePrefix() {
+    // Every symbol is in the package, names starting with the query rank first
+    final ImmutableList<String> names = names(INDEX.search("playl", 10));
+    assertThat(names.subList(0, 2), equalTo(ImmutableList.of(
+        "spotify.playlist.PlaylistItem",
+        "spotify.playlist.PlaylistService")));
+    assertThat(names.size(), equalTo(8));
+  }
+
+  @Test
+  public void testExactNameRanksFirst() {
+    assertThat(names(INDEX.search("track_uri", 1)),
+        equalTo(ImmutableList.of("spotify.playlist.PlaylistItem.track_uri")));
+    assertThat(names(INDEX.search("PlaylistItem", 1)),
+        equalTo(ImmutableList.of("spotify.playlist.PlaylistItem")));
+  }
+
+  @Test
+  public void testComments() {
+    final ImmutableList<SearchResult> results = INDEX.search("collab", 10);
+    assertThat(names(results),
+        equalTo(ImmutableList.of("spotify.playlist.PlaylistItem.added_by")));
+    assertThat(results.get(0).getComment(), equalTo("Username of the collaborator"));
+    assertThat(results.get(0).getKind(), equalTo(SearchResult.Kind.FIELD));
+  }
+
+  @Test
+  public void testAllWordsMustMatch() {
+    assertThat(names(INDEX.search("visibility pub", 10)),
+        equalTo(ImmutableList.of("spotify.playlist.Visibility.PUBLIC")));
+    assertThat(names(INDEX.search("visibility nope", 10)), equalTo(ImmutableList.of()));
+    assertThat(names(INDEX.search("", 10)), equalTo(ImmutableList.of()));
+  }
+
+  private static ImmutableList<String> names(final ImmutableList<SearchResult> results) {
+    return results.stream().map(SearchResult::getName).collect(toImmutableList());
+  }
+}
@@ -0,0 +1,108 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+  private final SingleFlight singleFlight = SingleFlight.create();
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testConcurrentCallsShareComputation() throws Exception {
+    final AtomicInteger computations = new AtomicInteger();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final Future<String> first = executor.submit(() -> singleFlight.get("key", () -> {
+      computations.incrementAndGet();
+      started.countDown();
+      await(release);
+      return "value";
+    }));
+    started.await(10, TimeUnit.SECONDS);
+    final Future<String> second = executor.submit(() -> singleFlight.get("key", () -> {
+      computations.incrementAndGet();
+      return "other";
+    }));
+    // Give the second call time to join the flight
+    Thread.sleep(100);
+    release.countDown();
+
+    assertThat(first.get(10, TimeUnit.SECONDS), equalTo("value"));
+    assertThat(second.get(10, TimeUnit.SECONDS), equalTo("value"));
+    assertThat(computations.get(), equalTo(1));
+  }
+
+  @Test
+  public void testCompletedComputationIsNotCached() {
+    assertThat(singleFlight.get("key", () -> "first"), equalTo("first"));
+    assertThat(singleFlight.get("key", () -> "second"), equalTo("second"));
+  }
+
+  @Test
+  public void testAsyncCallsShareComputation() throws Exception {
+    final CompletableFuture<String> computation = new CompletableFuture<>();
+    final CompletableFuture<String> first = singleFlight.getAsync("key", () -> computation);
+    final CompletableFuture<String> second =
+        singleFlight.getAsync("key", () -> CompletableFuture.completedFuture("other"));
+    second.cancel(false);
+
+    computation.complete("value");
+    assertThat(first.get(10, TimeUnit.SECONDS), equalTo("value"));
+    assertThat(
+        singleFlight.getAsync("key", () -> CompletableFuture.completedFuture("other"))
+            .get(10, TimeUnit.SECONDS),
+        equalTo("other"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testFailurePropagates() {
+    singleFlight.get("key", () -> {
+      throw new IllegalStateException();
+    });
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry.http;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitParamsRunner.class)
+public class EncodedEntityTest {
+
+  @SuppressWarnings("unused")
+  private Object parametersForTestContentEncoding() {
+    return new Object[]{
+        new Object[]{"gzip", "gzip"},
+        new Object[]{"gzip;q=1.0, deflate", "gzip"},
+        new Object[]{"deflate", "deflate"},
+        new Object[]{"br, deflate", "deflate"},
+        new Object[]{"gzip;q=0, deflate", "deflate"},
+        new Object[]{"GZIP", "gzip"},
+        new Object[]{"*", "gzip"},
+        new Object[]{"identity", null},
+        new Object[]{"br", null},
+        new Object[]{"gzip; q=0", null},
+        new Object[]{"", null},
+    };
+  }
+
+  @Parameters
+  @Test
+  public void testContentEncoding(final String acceptEncoding, final String expected) {
+    assertThat(EncodedEntity.contentEncoding(acceptEncoding), equalTo(expected));
+  }
+
+  @Test
+  public void testNoAcceptEncoding() {
+    assertThat(EncodedEntity.contentEncoding(null), equalTo(null));
+  }
+}
@@ -0,0 +1,91 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.util.JsonFormat;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import org.junit.Test;
+
+public class ProtobufJsonCodecTest {
+
+  @Test
+  public void testFileDescriptorSetRoundTrip() throws Exception {
+    final FileDescriptorSet fileDescriptorSet = FileDescriptorSet.newBuilder()
+        .addFile(FileDescriptorProto.newBuilder()
+            .setName("foo/a.proto")
+            .setPackage("foo")
+            .addMessageType(DescriptorProto.newBuilder().setName("A")))
+        .addFile(FileDescriptorProto.newBuilder()
+            .setName("foo/b.proto")
+            .setPackage("foo")
+            .addDependency("foo/a.proto"))
+        .build();
+
+    assertThat(parse(ProtobufJsonCodec.toJson(fileDescriptorSet)),
+        equalTo(parse(print(fileDescriptorSet))));
+  }
+
+  @Test
+  public void testWriteToMatchesToJson() throws Exception {
+    final FileDescriptorSet fileDescriptorSet = FileDescriptorSet.newBuilder()
+        .addFile(FileDescriptorProto.newBuilder()
+            .setName("foo/a.proto")
+            .setPackage("foo")
+            .addMessageType(DescriptorProto.newBuilder().setName("A")))
+        .build();
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new ProtobufJsonCodec().writeTo(fileDescriptorSet, FileDescriptorSet.class,
+        FileDescriptorSet.class, new Annotation[0], MediaType.APPLICATION_JSON_TYPE,
+        new MultivaluedHashMap<>(), output);
+
+    assertThat(parse(output.toByteArray()), equalTo(parse(print(fileDescriptorSet))));
+    assertThat(output.toByteArray(), equalTo(ProtobufJsonCodec.toJson(fileDescriptorSet)));
+  }
+
+  @Test
+  public void testEmptyFileDescriptorSet() throws Exception {
+    final FileDescriptorSet empty = FileDescriptorSet.getDefaultInstance();
+
+    assertThat(parse(ProtobufJsonCodec.toJson(empty)), equalTo(parse(print(empty))));
+  }
+
+  private static byte[] print(final FileDescriptorSet fileDescriptorSet) throws Exception {
+    return JsonFormat.printer().includingDefaultValueFields().print(fileDescriptorSet)
+        .getBytes(UTF_8);
+  }
+
+  static FileDescriptorSet parse(final byte[] json) throws Exception {
+    final FileDescriptorSet.Builder builder = FileDescriptorSet.newBuilder();
+    JsonFormat.parser().merge(new String(json, UTF_8), builder);
+    return builder.build();
+  }
+}
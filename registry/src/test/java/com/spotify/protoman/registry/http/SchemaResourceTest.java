@@ -0,0 +1,149 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry.http;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.spotify.protoman.descriptor.ProtocDescriptorBuilder;
+import com.spotify.protoman.registry.SchemaDiffer;
+import com.spotify.protoman.registry.SchemaFile;
+import com.spotify.protoman.registry.SchemaRegistry;
+import com.spotify.protoman.registry.SchemaWatcher;
+import com.spotify.protoman.registry.SemverSchemaVersioner;
+import com.spotify.protoman.registry.storage.MvStoreSchemaStorage;
+import com.spotify.protoman.validation.DefaultSchemaValidator;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchemaResourceTest {
+
+  private static final URI BASE_URI = URI.create("http://localhost/api/");
+
+  private MvStoreSchemaStorage schemaStorage;
+  private SchemaWatcher schemaWatcher;
+  private ApplicationHandler handler;
+
+  @Before
+  public void setup() {
+    schemaStorage = MvStoreSchemaStorage.createInMemory();
+    final SchemaRegistry schemaRegistry = SchemaRegistry.create(
+        schemaStorage,
+        DefaultSchemaValidator.withDefaultRules(),
+        SemverSchemaVersioner.create(),
+        ProtocDescriptorBuilder.factoryBuilder().build());
+    schemaRegistry.publishSchemata(ImmutableList.of(SchemaFile.create(
+        Paths.get("common/common.proto"),
+        "syntax = 'proto3'; package common; message Id { string id = 1; }")), false, false);
+    schemaWatcher = SchemaWatcher.create(schemaStorage, Duration.ofHours(1));
+    handler = new ApplicationHandler(new ResourceConfig()
+        .register(ProtobufJsonCodec.class)
+        .register(ProtobufBinaryCodec.class)
+        .register(SchemaResource.create(
+            schemaRegistry,
+            schemaWatcher,
+            SchemaDiffer.create(schemaStorage, ProtocDescriptorBuilder.factoryBuilder().build()))));
+  }
+
+  @After
+  public void tearDown() {
+    schemaWatcher.close();
+    schemaStorage.close();
+  }
+
+  @Test
+  public void testNotModified() throws Exception {
+    final ContainerResponse response = get(request("descriptors"));
+    assertThat(response.getStatus(), equalTo(200));
+    final String entityTag = response.getHeaderString(HttpHeaders.ETAG);
+
+    final ContainerRequest conditional = request("descriptors");
+    conditional.header(HttpHeaders.IF_NONE_MATCH, entityTag);
+    final ContainerResponse notModified = get(conditional);
+    assertThat(notModified.getStatus(), equalTo(304));
+    assertThat(notModified.getHeaderString(HttpHeaders.ETAG), equalTo(entityTag));
+  }
+
+  @Test
+  public void testEncodingNegotiation() throws Exception {
+    final ContainerResponse json = get(request("descriptors"));
+    assertThat(json.getMediaType(), equalTo(MediaType.APPLICATION_JSON_TYPE));
+    assertThat(fileNames(ProtobufJsonCodecTest.parse((byte[]) json.getEntity())),
+        equalTo(ImmutableList.of("common/common.proto")));
+
+    final ContainerRequest binaryRequest = request("descriptors");
+    binaryRequest.header(HttpHeaders.ACCEPT, ProtobufBinaryCodec.APPLICATION_PROTOBUF);
+    binaryRequest.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+    final ContainerResponse binary = get(binaryRequest);
+    assertThat(binary.getMediaType(), equalTo(ProtobufBinaryCodec.APPLICATION_PROTOBUF_TYPE));
+    assertThat(binary.getHeaderString(HttpHeaders.CONTENT_ENCODING), equalTo("gzip"));
+    assertThat(binary.getHeaderString(HttpHeaders.ETAG),
+        not(equalTo(json.getHeaderString(HttpHeaders.ETAG))));
+    assertThat(fileNames(FileDescriptorSet.parseFrom(
+        ByteStreams.toByteArray(new GZIPInputStream(
+            new ByteArrayInputStream((byte[]) binary.getEntity()))))),
+        equalTo(ImmutableList.of("common/common.proto")));
+  }
+
+  @Test
+  public void testSecondRequestIsServedFromCache() throws Exception {
+    final ContainerResponse first = get(request("descriptors"));
+    final ContainerResponse second = get(request("descriptors"));
+
+    assertThat(second.getEntity(), sameInstance(first.getEntity()));
+    assertThat(second.getHeaderString(HttpHeaders.ETAG),
+        equalTo(first.getHeaderString(HttpHeaders.ETAG)));
+  }
+
+  private static ContainerRequest request(final String path) {
+    return new ContainerRequest(BASE_URI, BASE_URI.resolve(path), "GET", null,
+        new MapPropertiesDelegate());
+  }
+
+  private ContainerResponse get(final ContainerRequest request) throws Exception {
+    return handler.apply(request).get();
+  }
+
+  private static ImmutableList<String> fileNames(final FileDescriptorSet fileDescriptorSet) {
+    return fileDescriptorSet.getFileList().stream()
+        .map(FileDescriptorProto::getName)
+        .collect(ImmutableList.toImmutableList());
+  }
+}
@@ -0,0 +1,178 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry.storage;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.protoman.registry.SchemaFile;
+import com.spotify.protoman.registry.SchemaVersion;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadAndWriteTransaction;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadOnlyTransaction;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FollowerSchemaStorageTest {
+
+  private static final SchemaFile schemaFile1 = SchemaFile.create(
+      Paths.get("pkg1/proto1.proto"), "CONTENT1");
+
+  private static final SchemaFile schemaFile2 = SchemaFile.create(
+      Paths.get("pkg2/proto2.proto"), "CONTENT2");
+
+  private static final SchemaFile schemaFile2Updated = SchemaFile.create(
+      Paths.get("pkg2/proto2.proto"), "CONTENT2_UPDATED");
+
+  private static final SchemaVersion VERSION_1_0_0 = SchemaVersion.create("1", 0, 0);
+
+  private MvStoreSchemaStorage upstream;
+  private FollowerSchemaStorage follower;
+
+  @Before
+  public void setup() {
+    upstream = MvStoreSchemaStorage.createInMemory();
+    follower = FollowerSchemaStorage.create(upstream, Duration.ofHours(1));
+  }
+
+  @After
+  public void tearDown() {
+    follower.close();
+    upstream.close();
+  }
+
+  @Test
+  public void servesLatestSnapshotAfterRefresh() {
+    final long snapshot;
+    try (final ReadAndWriteTransaction tx = upstream.open()) {
+      tx.storeFile(schemaFile1);
+      tx.storePackageVersion("pkg1", VERSION_1_0_0);
+      tx.storeProtoDependencies(schemaFile1.path(), ImmutableSet.of(schemaFile2.path()));
+      snapshot = tx.commit();
+    }
+
+    assertThat(schemaFiles(), equalTo(ImmutableSet.of()));
+
+    assertThat(follower.refresh(), equalTo(snapshot));
+    assertThat(follower.getLatestSnapshotVersion(), equalTo(snapshot));
+    assertThat(schemaFiles(), equalTo(ImmutableSet.of(schemaFile1)));
+    try (final ReadOnlyTransaction tx = follower.open()) {
+      assertThat(tx.allPackageVersions(), equalTo(ImmutableMap.of("pkg1", VERSION_1_0_0)));
+      assertThat(tx.getDependencies(schemaFile1.path()).collect(Collectors.toSet()),
+          equalTo(ImmutableSet.of(schemaFile2.path())));
+    }
+  }
+
+  @Test
+  public void unchangedFilesAreNotFetchedAgain() {
+    try (final ReadAndWriteTransaction tx = upstream.open()) {
+      tx.storeFile(schemaFile1);
+      tx.storeFile(schemaFile2);
+      tx.commit();
+    }
+    follower.refresh();
+    final SchemaFile before = schemaFile(schemaFile1.path());
+
+    try (final ReadAndWriteTransaction tx = upstream.open()) {
+      tx.storeFile(schemaFile2Updated);
+      tx.commit();
+    }
+    follower.refresh();
+
+    assertThat(schemaFile(schemaFile1.path()), sameInstance(before));
+    assertThat(schemaFiles(), equalTo(ImmutableSet.of(schemaFile1, schemaFile2Updated)));
+  }
+
+  @Test
+  public void dependenciesOfUnchangedFilesAreCarriedOver() {
+    try (final ReadAndWriteTransaction tx = upstream.open()) {
+      tx.storeFile(schemaFile1);
+      tx.storeFile(schemaFile2);
+      tx.storeProtoDependencies(schemaFile1.path(), ImmutableSet.of(schemaFile2.path()));
+      tx.commit();
+    }
+    follower.refresh();
+
+    // The content of proto1 is unchanged, so its dependencies are not read again
+    try (final ReadAndWriteTransaction tx = upstream.open()) {
+      tx.storeFile(schemaFile2Updated);
+      tx.storeProtoDependencies(schemaFile1.path(), ImmutableSet.of());
+      tx.storeProtoDependencies(schemaFile2.path(), ImmutableSet.of(schemaFile1.path()));
+      tx.commit();
+    }
+    follower.refresh();
+
+    assertThat(dependencies(schemaFile1.path()), equalTo(ImmutableSet.of(schemaFile2.path())));
+    assertThat(dependencies(schemaFile2.path()), equalTo(ImmutableSet.of(schemaFile1.path())));
+  }
+
+  @Test
+  public void olderSnapshotsAreReadFromUpstream() {
+    final long snapshot1;
+    try (final ReadAndWriteTransaction tx = upstream.open()) {
+      tx.storeFile(schemaFile1);
+      snapshot1 = tx.commit();
+    }
+    try (final ReadAndWriteTransaction tx = upstream.open()) {
+      tx.storeFile(schemaFile2);
+      tx.commit();
+    }
+    follower.refresh();
+
+    try (final ReadOnlyTransaction tx = follower.open(snapshot1)) {
+      assertThat(tx.fetchAllFiles().collect(Collectors.toSet()),
+          equalTo(ImmutableSet.of(schemaFile1)));
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void writesAreRejected() {
+    try (final ReadAndWriteTransaction tx = follower.open()) {
+      tx.storeFile(schemaFile1);
+    }
+  }
+
+  private Set<SchemaFile> schemaFiles() {
+    try (final ReadOnlyTransaction tx = follower.open()) {
+      return tx.fetchAllFiles().collect(Collectors.toSet());
+    }
+  }
+
+  private Set<Path> dependencies(final Path path) {
+    try (final ReadOnlyTransaction tx = follower.open()) {
+      return tx.getDependencies(path).collect(Collectors.toSet());
+    }
+  }
+
+  private SchemaFile schemaFile(final Path path) {
+    try (final ReadOnlyTransaction tx = follower.open()) {
+      return tx.schemaFile(path);
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.protoman.registry.storage;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.base.Ticker;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class HedgingContentAddressedBlobStorageTest {
+
+  private static final byte[] CONTENT = "CONTENT".getBytes();
+  private static final HashCode HASH = Hashing.sha256().hashBytes(CONTENT);
+
+  private static final long READ_MILLIS = 10;
+
+  private final ManualScheduler scheduler = new ManualScheduler();
+  private final ManualTicker ticker = new ManualTicker();
+
+  @Test
+  public void slowReadIsHedged() {
+    final PendingBlobStorage delegate = new PendingBlobStorage();
+    final HedgingContentAddressedBlobStorage storage = HedgingContentAddressedBlobStorage.create(
+        delegate, scheduler, ticker, 0.9, 3);
+    warmUp(storage, delegate);
+
+    final CompletableFuture<Optional<byte[]>> result = storage.getAsync(HASH);
+    final int first = delegate.reads.size() - 1;
+    assertThat(scheduler.delays,
+        equalTo(Arrays.asList(TimeUnit.MILLISECONDS.toNanos(READ_MILLIS))));
+
+    // The first read is still pending when the hedge delay expires
+    scheduler.runScheduled();
+    assertThat(delegate.reads.size(), is(first + 2));
+
+    delegate.reads.get(first + 1).complete(Optional.of(CONTENT));
+    assertThat(result.isDone(), is(true));
+    assertThat(delegate.reads.get(first).isDone(), is(false));
+
+    // No third read once the hedged read has won
+    scheduler.runScheduled();
+    assertThat(delegate.reads.size(), is(first + 2));
+  }
+
+  @Test
+  public void fastReadIsNotHedged() {
+    final PendingBlobStorage delegate = new PendingBlobStorage();
+    final HedgingContentAddressedBlobStorage storage = HedgingContentAddressedBlobStorage.create(
+        delegate, scheduler, ticker, 0.9, 3);
+    warmUp(storage, delegate);
+
+    final CompletableFuture<Optional<byte[]>> result = storage.getAsync(HASH);
+    final int first = delegate.reads.size() - 1;
+    delegate.reads.get(first).complete(Optional.of(CONTENT));
+    assertThat(result.isDone(), is(true));
+
+    scheduler.runScheduled();
+    assertThat(delegate.reads.size(), is(first + 1));
+  }
+
+  @Test
+  public void failedReadIsRetried() {
+    final FailingBlobStorage delegate = new FailingBlobStorage(1);
+    final HedgingContentAddressedBlobStorage storage = HedgingContentAddressedBlobStorage.create(
+        delegate, scheduler, ticker, 0.95, 3);
+
+    assertThat(storage.get(HASH).map(Arrays::toString),
+        equalTo(Optional.of(Arrays.toString(CONTENT))));
+    assertThat(delegate.calls.get(), equalTo(2));
+  }
+
+  @Test
+  public void attemptBudgetIsRespected() {
+    final FailingBlobStorage delegate = new FailingBlobStorage(Integer.MAX_VALUE);
+    final HedgingContentAddressedBlobStorage storage = HedgingContentAddressedBlobStorage.create(
+        delegate, scheduler, ticker, 0.95, 3);
+
+    try {
+      storage.get(HASH);
+      fail();
+    } catch (RuntimeException e) {
+      assertThat(delegate.calls.get(), equalTo(3));
+    }
+  }
+
+  /**
+   * Complete enough reads, each taking {@link #READ_MILLIS}, for the hedge delay to be based on
+   * observed latencies.
+   */
+  private void warmUp(final HedgingContentAddressedBlobStorage storage,
+                      final PendingBlobStorage delegate) {
+    for (int i = 0; i < 20; i++) {
+      storage.getAsync(HASH);
+      ticker.advance(READ_MILLIS, TimeUnit.MILLISECONDS);
+      delegate.reads.get(delegate.reads.size() - 1).complete(Optional.of(CONTENT));
+    }
+    scheduler.runScheduled();
+  }
+
+  private static class ManualTicker extends Ticker {
+
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    private void advance(final long duration, final TimeUnit unit) {
+      nanos += unit.toNanos(duration);
+    }
+  }
+
+  /**
+   * Collects scheduled tasks, and runs them only when asked to.
+   */
+  private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+
+    private ManualScheduler() {
+      super(0);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(final Runnable command, final long delay,
+                                       final TimeUnit unit) {
+      tasks.add(command);
+      delays.add(unit.toNanos(delay));
+      return null;
+    }
+
+    private void runScheduled() {
+      final List<Runnable> scheduled = new ArrayList<>(tasks);
+      tasks.clear();
+      delays.clear();
+      scheduled.forEach(Runnable::run);
+    }
+  }
+
+  /**
+   * Reads complete only when the test completes their futures.
+   */
+  private static class PendingBlobStorage implements ContentAddressedBlobStorage {
+
+    private final List<CompletableFuture<Optional<byte[]>>> reads = new ArrayList<>();
+
+    @Override
+    public HashCode put(final byte[] bytes) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<byte[]> get(final HashCode contentHash) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<Optional<byte[]>> getAsync(final HashCode contentHash) {
+      final CompletableFuture<Optional<byte[]>> read = new CompletableFuture<>();
+      reads.add(read);
+      return read;
+    }
+  }
+
+  private static class FailingBlobStorage implements ContentAddressedBlobStorage {
+
+    private final int failures;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private FailingBlobStorage(final int failures) {
+      this.failures = failures;
+    }
+
+    @Override
+    public HashCode put(final byte[] bytes) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<byte[]> get(final HashCode contentHash) {
+      if (calls.incrementAndGet() <= failures) {
+        throw new IllegalStateException("injected failure");
+      }
+      return Optional.of(CONTENT);
+    }
+  }
+}
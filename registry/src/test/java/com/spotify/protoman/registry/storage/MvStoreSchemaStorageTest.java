@@ -0,0 +1,305 @@
+/*-
+ * -\-\-
+ * protoman-registry
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.protoman.registry.storage;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.protoman.registry.SchemaFile;
+import com.spotify.protoman.registry.SchemaVersion;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadAndWriteTransaction;
+import com.spotify.protoman.registry.storage.SchemaStorage.ReadOnlyTransaction;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MvStoreSchemaStorageTest {
+
+  private static final SchemaFile schemaFile1 = SchemaFile.create(
+      Paths.get("pkg1/proto1.proto"), "CONTENT1");
+
+  private static final SchemaFile schemaFile2 = SchemaFile.create(
+      Paths.get("pkg2/proto2.proto"), "CONTENT2");
+
+  private static final SchemaVersion VERSION_1_0_0 = SchemaVersion.create("1", 0, 0);
+  private static final SchemaVersion VERSION_2_0_0 = SchemaVersion.create("2", 0, 0);
+  private static final SchemaVersion VERSION_0_1_0 = SchemaVersion.create("0", 1, 0);
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path storagePath;
+  private MvStoreSchemaStorage schemaStorage;
+
+  @Before
+  public void setup() throws Exception {
+    storagePath = temporaryFolder.getRoot().toPath().resolve("protoman.db");
+    schemaStorage = MvStoreSchemaStorage.create(storagePath);
+  }
+
+  @After
+  public void tearDown() {
+    schemaStorage.close();
+  }
+
+  @Test
+  public void testTransactions() {
+    final long snapshot0 = schemaStorage.getLatestSnapshotVersion();
+
+    final long snapshot1;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile1);
+      snapshot1 = tx.commit();
+    }
+
+    final long snapshot2;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storePackageVersion("pkg1", VERSION_1_0_0);
+      snapshot2 = tx.commit();
+    }
+
+    final long snapshot3;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile2);
+      tx.storePackageVersion("pkg1", VERSION_2_0_0);
+      tx.storePackageVersion("pkg2", VERSION_0_1_0);
+      snapshot3 = tx.commit();
+    }
+
+    final long snapshot4;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.deleteFile(schemaFile2.path());
+      snapshot4 = tx.commit();
+    }
+
+    // no commit
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile2);
+      tx.storePackageVersion("pkg1", VERSION_1_0_0);
+    }
+
+    assertThat(schemaFiles(snapshot0), equalTo(ImmutableSet.of()));
+    assertThat(packageVersions(snapshot0), equalTo(ImmutableMap.of()));
+
+    assertThat(snapshot1, is(greaterThan(snapshot0)));
+    assertThat(schemaFiles(snapshot1), equalTo(ImmutableSet.of(schemaFile1)));
+    assertThat(packageVersions(snapshot1), equalTo(ImmutableMap.of()));
+
+    assertThat(snapshot2, is(greaterThan(snapshot1)));
+    assertThat(packageVersions(snapshot2), equalTo(ImmutableMap.of("pkg1", VERSION_1_0_0)));
+
+    assertThat(snapshot3, is(greaterThan(snapshot2)));
+    assertThat(schemaFiles(snapshot3), equalTo(ImmutableSet.of(schemaFile1, schemaFile2)));
+    assertThat(packageVersions(snapshot3), equalTo(ImmutableMap.of(
+        "pkg1", VERSION_2_0_0,
+        "pkg2", VERSION_0_1_0)));
+
+    assertThat(snapshot4, is(greaterThan(snapshot3)));
+    assertThat(schemaFiles(snapshot4), equalTo(ImmutableSet.of(schemaFile1)));
+
+    assertThat(schemaStorage.getLatestSnapshotVersion(), equalTo(snapshot4));
+    assertThat(schemaStorage.getSnapshotVersions().collect(Collectors.toList()).size(), is(5));
+  }
+
+  @Test
+  public void testDependencySnapshots() {
+    final Path path1 = Paths.get("pkg1/proto1.proto");
+    final Path path2 = Paths.get("pkg2/proto2.proto");
+    final Path path3 = Paths.get("pkg3/proto3.proto");
+
+    final long snapshot1;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeProtoDependencies(path1, ImmutableSet.of(path2, path3));
+      assertThat(dependencies(tx, path1), equalTo(ImmutableSet.of(path2, path3)));
+      snapshot1 = tx.commit();
+    }
+
+    final long snapshot2;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeProtoDependencies(path1, ImmutableSet.of(path3));
+      snapshot2 = tx.commit();
+    }
+
+    try (final ReadOnlyTransaction tx = schemaStorage.open(snapshot1)) {
+      assertThat(dependencies(tx, path1), equalTo(ImmutableSet.of(path2, path3)));
+    }
+    try (final ReadOnlyTransaction tx = schemaStorage.open(snapshot2)) {
+      assertThat(dependencies(tx, path1), equalTo(ImmutableSet.of(path3)));
+      assertThat(dependencies(tx, path2), equalTo(ImmutableSet.of()));
+    }
+  }
+
+  @Test
+  public void testSnapshotsSurviveReopen() {
+    final long snapshot1;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile1);
+      tx.storePackageVersion("pkg1", VERSION_1_0_0);
+      snapshot1 = tx.commit();
+    }
+    final long snapshot2;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile2);
+      snapshot2 = tx.commit();
+    }
+
+    schemaStorage.close();
+    schemaStorage = MvStoreSchemaStorage.create(storagePath);
+
+    assertThat(schemaStorage.getLatestSnapshotVersion(), equalTo(snapshot2));
+    assertThat(schemaFiles(snapshot1), equalTo(ImmutableSet.of(schemaFile1)));
+    assertThat(schemaFiles(snapshot2), equalTo(ImmutableSet.of(schemaFile1, schemaFile2)));
+    assertThat(packageVersions(snapshot2), equalTo(ImmutableMap.of("pkg1", VERSION_1_0_0)));
+  }
+
+  @Test
+  public void testHistoricalReadsAfterManyCommits() {
+    final Path dependency = Paths.get("pkg0/dependency.proto");
+    final long first;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile1);
+      tx.storeFile(schemaFile2);
+      tx.storeProtoDependencies(schemaFile1.path(), ImmutableSet.of(dependency));
+      first = tx.commit();
+    }
+    long last = first;
+    for (int i = 0; i < 20; i++) {
+      try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+        tx.storeFile(SchemaFile.create(schemaFile1.path(), "CONTENT" + i));
+        tx.storePackageVersion("pkg1", SchemaVersion.create("1", i, 0));
+        last = tx.commit();
+      }
+    }
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.deleteFile(schemaFile2.path());
+      tx.storeProtoDependencies(schemaFile1.path(), ImmutableSet.of());
+      last = tx.commit();
+    }
+
+    final SchemaFile latestFile1 = SchemaFile.create(schemaFile1.path(), "CONTENT19");
+    final Set<Path> noDependencies = ImmutableSet.of();
+    for (int reopen = 0; reopen < 2; reopen++) {
+      assertThat(schemaFiles(first), equalTo(ImmutableSet.of(schemaFile1, schemaFile2)));
+      assertThat(packageVersions(first), equalTo(ImmutableMap.of()));
+      assertThat(schemaFiles(last - 1), equalTo(ImmutableSet.of(latestFile1, schemaFile2)));
+      assertThat(schemaFiles(last), equalTo(ImmutableSet.of(latestFile1)));
+      assertThat(packageVersions(last),
+                 equalTo(ImmutableMap.of("pkg1", SchemaVersion.create("1", 19, 0))));
+      try (final ReadOnlyTransaction tx = schemaStorage.open(first)) {
+        assertThat(dependencies(tx, schemaFile1.path()), equalTo(ImmutableSet.of(dependency)));
+      }
+      try (final ReadOnlyTransaction tx = schemaStorage.open(last)) {
+        assertThat(dependencies(tx, schemaFile1.path()), equalTo(noDependencies));
+      }
+
+      schemaStorage.close();
+      schemaStorage = MvStoreSchemaStorage.create(storagePath);
+    }
+  }
+
+  @Test
+  public void testFailedCommitIsRolledBack() {
+    final long snapshot0 = schemaStorage.getLatestSnapshotVersion();
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storeFile(schemaFile1);
+      tx.storeProtoDependencies(schemaFile1.path(), ImmutableSet.of(unprintablePath()));
+      tx.commit();
+      fail("commit should fail");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    assertThat(schemaStorage.getLatestSnapshotVersion(), equalTo(snapshot0));
+
+    final long snapshot1;
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.storePackageVersion("pkg1", VERSION_1_0_0);
+      snapshot1 = tx.commit();
+    }
+    assertThat(schemaFiles(snapshot1), equalTo(ImmutableSet.of()));
+    assertThat(packageVersions(snapshot1), equalTo(ImmutableMap.of("pkg1", VERSION_1_0_0)));
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void concurrentCommitFails() {
+    try (final ReadAndWriteTransaction tx1 = schemaStorage.open();
+         final ReadAndWriteTransaction tx2 = schemaStorage.open()) {
+      tx1.storeFile(schemaFile1);
+      tx2.storeFile(schemaFile2);
+      tx1.commit();
+      tx2.commit();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void useOfAlreadyCommittedTransactionThrows_commit() {
+    try (final ReadAndWriteTransaction tx = schemaStorage.open()) {
+      tx.commit();
+      tx.commit();
+    }
+  }
+
+  /**
+   * A path that fails when it is written to the store.
+   */
+  private static Path unprintablePath() {
+    return (Path) Proxy.newProxyInstance(
+        Path.class.getClassLoader(), new Class<?>[]{Path.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              throw new IllegalStateException(method.getName());
+          }
+        });
+  }
+
+  private static Set<Path> dependencies(final ReadOnlyTransaction tx, final Path path) {
+    return tx.getDependencies(path).collect(Collectors.toSet());
+  }
+
+  private Set<SchemaFile> schemaFiles(long snapshotVersion) {
+    try (final ReadOnlyTransaction tx = schemaStorage.open(snapshotVersion)) {
+      return tx.fetchAllFiles().collect(Collectors.toSet());
+    }
+  }
+
+  private Map<String, SchemaVersion> packageVersions(long snapshotVersion) {
+    try (final ReadOnlyTransaction tx = schemaStorage.open(snapshotVersion)) {
+      return tx.allPackageVersions();
+    }
+  }
+}
@@ -174,8 +174,8 @@ public class DefaultSchemaValidator implements SchemaValidator {
         removed.accept(ctx, current);
       } else if (current == null) {
         added.accept(ctx, candidate);
-      } else if (!current.toProto().equals(candidate.toProto())) {
-        // Run change validation only if the descriptors differ
+      } else if (!current.structuralHash().equals(candidate.structuralHash())) {
+        // Run change validation only if the descriptors differ, comments and formatting aside
         changed.accept(ctx, current, candidate);
       }
     }
@@ -194,7 +194,7 @@ public class DefaultSchemaValidator implements SchemaValidator {
         }
       } else if (current == null) {
         rules.forEach(rule -> rule.fieldAdded(ctx, candidate));
-      } else if (!current.toProto().equals(candidate.toProto())) {
+      } else if (!current.structuralHash().equals(candidate.structuralHash())) {
         rules.forEach(rule -> rule.fieldChanged(ctx, current, candidate));
       }
     }
@@ -231,7 +231,7 @@ public class DefaultSchemaValidator implements SchemaValidator {
         }
       } else if (current == null) {
         rules.forEach(rule -> rule.enumValueAdded(ctx, candidate));
-      } else if (!current.toProto().equals(candidate.toProto())) {
+      } else if (!current.structuralHash().equals(candidate.structuralHash())) {
         rules.forEach(rule -> rule.enumValueChanged(ctx, current, candidate));
       }
     }